@@ -25,19 +25,27 @@ import com.datastax.driver.core.Session
 import com.datastax.driver.core.policies.DCAwareRoundRobinPolicy
 import com.datastax.driver.core.policies.TokenAwarePolicy
 import com.hhandoko.cassandra.migration.api.CassandraMigrationException
+import com.hhandoko.cassandra.migration.api.MigrationCancelledException
 import com.hhandoko.cassandra.migration.api.MigrationInfoService
+import com.hhandoko.cassandra.migration.api.MigrationResult
+import com.hhandoko.cassandra.migration.api.MigrationState
 import com.hhandoko.cassandra.migration.api.MigrationVersion
 import com.hhandoko.cassandra.migration.api.configuration.CassandraMigrationConfiguration
 import com.hhandoko.cassandra.migration.api.configuration.ConfigurationProperty
 import com.hhandoko.cassandra.migration.api.configuration.KeyspaceConfiguration
+import com.hhandoko.cassandra.migration.api.migration.CancellationToken
 import com.hhandoko.cassandra.migration.api.resolver.MigrationResolver
+import com.hhandoko.cassandra.migration.internal.command.Archive
 import com.hhandoko.cassandra.migration.internal.command.Baseline
 import com.hhandoko.cassandra.migration.internal.command.Initialize
 import com.hhandoko.cassandra.migration.internal.command.Migrate
 import com.hhandoko.cassandra.migration.internal.command.Validate
+import com.hhandoko.cassandra.migration.internal.dbsupport.SchemaAgreement
 import com.hhandoko.cassandra.migration.internal.dbsupport.SchemaVersionDAO
 import com.hhandoko.cassandra.migration.internal.info.MigrationInfoServiceImpl
 import com.hhandoko.cassandra.migration.internal.resolver.CompositeMigrationResolver
+import com.hhandoko.cassandra.migration.internal.resolver.checksum.ChecksumAlgorithms
+import com.hhandoko.cassandra.migration.internal.resolver.cql.ResourceContentCache
 import com.hhandoko.cassandra.migration.internal.util.Locations
 import com.hhandoko.cassandra.migration.internal.util.StringUtils
 import com.hhandoko.cassandra.migration.internal.util.VersionPrinter
@@ -86,6 +94,12 @@ class CassandraMigration : CassandraMigrationConfiguration {
      */
     override var baselineDescription = "<< Cassandra Baseline >>"
 
+    /**
+     * The version before which the migration history is archived.
+     * (default: MigrationVersion.CURRENT)
+     */
+    var archiveVersion = MigrationVersion.CURRENT
+
     /**
      * The encoding of CQL migrations script encoding.
      * (default: "UTF-8")
@@ -116,6 +130,120 @@ class CassandraMigration : CassandraMigrationConfiguration {
      */
     var allowOutOfOrder = false
 
+    /**
+     * Resume failed migrations from the statement they failed on, rather than refusing to migrate until the migration
+     * history is repaired. Only CQL migrations can be resumed, as long as they have not changed since they failed.
+     * (default: false)
+     */
+    var resume = false
+
+    /**
+     * Stream the statements of CQL migrations while executing them, rather than loading each script upfront, so that
+     * only the current statement is held in memory (e.g. for very large reference data scripts).
+     * (default: false)
+     */
+    var streaming = false
+
+    /**
+     * The memory budget in megabytes to cache the content of CQL migrations, so that each script is read once for both
+     * its resolution and its execution. `0` disables caching.
+     * (default: 64)
+     */
+    var scriptCacheBudget = 64
+
+    /**
+     * The checksum algorithm of CQL migrations: `CRC32`, `CRC32C`, `XXHASH64`, or the fully qualified class name of a
+     * custom `ChecksumAlgorithm`. Changing the algorithm of a keyspace with applied migrations fails their validation.
+     * (default: "CRC32")
+     */
+    var checksumAlgorithm = "CRC32"
+
+    /**
+     * The number of CQL migrations to resolve (read and checksum) concurrently, on a fork-join pool, `0` or `1` to
+     * resolve them one at a time. The resolved migrations are ordered the same either way.
+     * (default: 1)
+     */
+    var resolverParallelism = 1
+
+    /**
+     * The number of applied migrations to record in a single batch, `0` or `1` to record each migration on its own.
+     * (default: 0)
+     */
+    var groupCommitSize = 0
+
+    /**
+     * The maximum time in milliseconds to hold an applied migration record for a batch.
+     * (default: 1000)
+     */
+    var groupCommitInterval = 1000
+
+    /**
+     * The maximum number of migrations to apply concurrently, as per their declared dependencies, `0` or `1` to apply
+     * the migrations one at a time in version order.
+     * (default: 1)
+     */
+    var parallelism = 1
+
+    /**
+     * Enable the cluster-wide migration lock, so that only one instance migrates at a time.
+     * Instances waiting for the lock return as soon as the migrations have been applied by the lock owner.
+     * The lock table (the migration version table name suffixed with `_lock`) is created on first use; for large fleets,
+     * create it ahead of the first deployment so that the instances do not all issue the same schema change.
+     * (default: false)
+     */
+    var lockEnabled = false
+
+    /**
+     * The duration in seconds of the migration lock lease, renewed while the lock is held.
+     * (default: 30)
+     */
+    var lockLease = 30
+
+    /**
+     * The maximum time in seconds to wait for the migration lock.
+     * (default: 600)
+     */
+    var lockTimeout = 600
+
+    /**
+     * The initial time in milliseconds to wait between attempts to acquire the migration lock, doubled on each attempt.
+     * (default: 100)
+     */
+    var lockBackoff = 100
+
+    /**
+     * The maximum time in milliseconds to wait between attempts to acquire the migration lock.
+     * (default: 5000)
+     */
+    var lockMaxBackoff = 5000
+
+    /**
+     * The maximum time in milliseconds to wait for schema agreement after a schema change, `0` not to wait.
+     * Data statements never wait for schema agreement.
+     * (default: 10000)
+     */
+    var schemaAgreementTimeout = 10000
+
+    /**
+     * The time in milliseconds between schema agreement checks.
+     * (default: 200)
+     */
+    var schemaAgreementInterval = 200
+
+    /**
+     * The maximum time in seconds to apply each migration, `0` for no deadline.
+     * Once expired, the migration stops between statements and is recorded as failed along with its progress.
+     * (default: 0)
+     */
+    var migrationDeadline = 0
+
+    /**
+     * The maximum time in seconds to apply all the pending migrations of a run, `0` for no deadline.
+     * Once expired, the migration executing stops between statements and is recorded as failed along with its progress.
+     * (default: 0)
+     */
+    var runDeadline = 0
+
     /**
      * CassandraMigration initialization.
      */
@@ -136,6 +264,10 @@ class CassandraMigration : CassandraMigrationConfiguration {
                 this.baselineDescription = it.trim()
             }
 
+            it.extract<String?>(ConfigurationProperty.ARCHIVE_VERSION.namespace)?.let {
+                this.archiveVersion = MigrationVersion.fromVersion(it.trim().toUpperCase())
+            }
+
             it.extract<String?>(ConfigurationProperty.SCRIPTS_ENCODING.namespace)?.let {
                 this.encoding = it.trim()
             }
@@ -152,9 +284,77 @@ class CassandraMigration : CassandraMigrationConfiguration {
                 this.allowOutOfOrder = it
             }
 
+            it.extract<Boolean?>(ConfigurationProperty.RESUME.namespace)?.let {
+                this.resume = it
+            }
+
+            it.extract<Boolean?>(ConfigurationProperty.SCRIPTS_STREAMING.namespace)?.let {
+                this.streaming = it
+            }
+
+            it.extract<Int?>(ConfigurationProperty.SCRIPTS_CACHE_BUDGET.namespace)?.let {
+                this.scriptCacheBudget = it
+            }
+
+            it.extract<String?>(ConfigurationProperty.SCRIPTS_CHECKSUM.namespace)?.let {
+                this.checksumAlgorithm = it.trim()
+            }
+
+            it.extract<Int?>(ConfigurationProperty.SCRIPTS_RESOLVER_PARALLELISM.namespace)?.let {
+                this.resolverParallelism = it
+            }
+
             it.extract<String?>(ConfigurationProperty.TABLE_PREFIX.namespace)?.let {
                 this.tablePrefix = it.trim()
             }
+
+            it.extract<Int?>(ConfigurationProperty.GROUP_COMMIT_SIZE.namespace)?.let {
+                this.groupCommitSize = it
+            }
+
+            it.extract<Int?>(ConfigurationProperty.GROUP_COMMIT_INTERVAL.namespace)?.let {
+                this.groupCommitInterval = it
+            }
+
+            it.extract<Int?>(ConfigurationProperty.PARALLELISM.namespace)?.let {
+                this.parallelism = it
+            }
+
+            it.extract<Boolean?>(ConfigurationProperty.LOCK_ENABLED.namespace)?.let {
+                this.lockEnabled = it
+            }
+
+            it.extract<Int?>(ConfigurationProperty.LOCK_LEASE.namespace)?.let {
+                this.lockLease = it
+            }
+
+            it.extract<Int?>(ConfigurationProperty.LOCK_TIMEOUT.namespace)?.let {
+                this.lockTimeout = it
+            }
+
+            it.extract<Int?>(ConfigurationProperty.LOCK_BACKOFF.namespace)?.let {
+                this.lockBackoff = it
+            }
+
+            it.extract<Int?>(ConfigurationProperty.LOCK_MAX_BACKOFF.namespace)?.let {
+                this.lockMaxBackoff = it
+            }
+
+            it.extract<Int?>(ConfigurationProperty.SCHEMA_AGREEMENT_TIMEOUT.namespace)?.let {
+                this.schemaAgreementTimeout = it
+            }
+
+            it.extract<Int?>(ConfigurationProperty.SCHEMA_AGREEMENT_INTERVAL.namespace)?.let {
+                this.schemaAgreementInterval = it
+            }
+
+            it.extract<Int?>(ConfigurationProperty.DEADLINE_MIGRATION.namespace)?.let {
+                this.migrationDeadline = it
+            }
+
+            it.extract<Int?>(ConfigurationProperty.DEADLINE_RUN.namespace)?.let {
+                this.runDeadline = it
+            }
         }
     }
 
@@ -163,9 +363,10 @@ class CassandraMigration : CassandraMigrationConfiguration {
      * Calling migrate on an up-to-date database has no effect.
      *
      * @return The number of successfully applied migrations.
+     * @throws MigrationCancelledException when the migration was stopped early, once a deadline has expired.
      */
     fun migrate(): Int {
-        return execute(migrateAction())
+        return appliedCountOf(execute(migrateAction()))
     }
 
     /**
@@ -174,8 +375,32 @@ class CassandraMigration : CassandraMigrationConfiguration {
      *
      * @param session The Cassandra connection session.
      * @return The number of successfully applied migrations.
+     * @throws MigrationCancelledException when the migration was stopped early, once a deadline has expired.
      */
     fun migrate(session: Session): Int {
+        return appliedCountOf(execute(migrateAction(), session))
+    }
+
+    /**
+     * Starts the database migration, as per `migrate()`.
+     * Once a deadline has expired, the migration stops early and the cancellation is reported in the result, rather
+     * than thrown.
+     *
+     * @return The result of the migration.
+     */
+    fun migrateWithResult(): MigrationResult {
+        return execute(migrateAction())
+    }
+
+    /**
+     * Starts the database migration, as per `migrate()`.
+     * Once a deadline has expired, the migration stops early and the cancellation is reported in the result, rather
+     * than thrown.
+     *
+     * @param session The Cassandra connection session.
+     * @return The result of the migration.
+     */
+    fun migrateWithResult(session: Session): MigrationResult {
         return execute(migrateAction(), session)
     }
 
@@ -252,6 +477,25 @@ class CassandraMigration : CassandraMigrationConfiguration {
         execute(baselineAction(), session)
     }
 
+    /**
+     * Archives the migration history before archiveVersion into a single snapshot record.
+     *
+     * @return The number of archived migration history records.
+     */
+    fun archive(): Int {
+        return execute(archiveAction())
+    }
+
+    /**
+     * Archives the migration history before archiveVersion into a single snapshot record.
+     *
+     * @param session The Cassandra connection session.
+     * @return The number of archived migration history records.
+     */
+    fun archive(session: Session): Int {
+        return execute(archiveAction(), session)
+    }
+
     /**
      * Executes this command with proper resource handling and cleanup.
      *
@@ -400,13 +644,46 @@ class CassandraMigration : CassandraMigrationConfiguration {
         return sb.toString()
     }
 
+    /**
+     * Unwraps the number of successfully applied migrations from this migration result.
+     *
+     * @param result The migration result.
+     * @return The number of successfully applied migrations.
+     * @throws MigrationCancelledException when the migration was stopped early.
+     */
+    private fun appliedCountOf(result: MigrationResult): Int {
+        if (result.isCancelled) {
+            throw MigrationCancelledException("Migration of keyspace ${keyspaceConfig.name} ${result.cancellationReason}")
+        }
+        return result.appliedCount
+    }
+
     /**
      * Creates the MigrationResolver.
      *
      * @return A new, fully configured, MigrationResolver instance.
      */
     private fun createMigrationResolver(): MigrationResolver {
-        return CompositeMigrationResolver(classLoader, Locations(*locations), encoding, timeout)
+        return CompositeMigrationResolver(
+                classLoader,
+                Locations(*locations),
+                encoding,
+                timeout,
+                createSchemaAgreement(),
+                streaming,
+                ResourceContentCache(scriptCacheBudget * 1024L * 1024L),
+                ChecksumAlgorithms.fromName(checksumAlgorithm, classLoader),
+                resolverParallelism
+        )
+    }
+
+    /**
+     * Creates the SchemaAgreement.
+     *
+     * @return A configured SchemaAgreement instance.
+     */
+    private fun createSchemaAgreement(): SchemaAgreement {
+        return SchemaAgreement(schemaAgreementTimeout.toLong(), schemaAgreementInterval.toLong())
     }
 
     private fun migrationTableName(): String{
@@ -423,25 +700,103 @@ class CassandraMigration : CassandraMigrationConfiguration {
     }
 
     /**
-     * @return The database migration action.
+     * Checks whether all the migrations have been applied, e.g. by another instance holding the migration lock.
+     *
+     * @param migrationResolver The migration resolver, resolving the migrations once for all the checks.
+     * @param schemaVersionDAO The schema version DAO to read the migration history with.
+     * @return `true` if there is neither a pending nor a failed migration.
+     * @throws CassandraMigrationException when a migration has failed, e.g. on the instance holding the lock, and is
+     *                                     not to be resumed.
      */
-    private fun migrateAction(): Action<Int> {
-        return object: Action<Int> {
-            override fun execute(session: Session): Int {
-                Initialize().run(session, keyspaceConfig, migrationTableName())
+    @Throws(CassandraMigrationException::class)
+    private fun isUpToDate(migrationResolver: MigrationResolver, schemaVersionDAO: SchemaVersionDAO): Boolean {
+        val migrationInfoService = MigrationInfoServiceImpl(
+                migrationResolver,
+                schemaVersionDAO,
+                target,
+                allowOutOfOrder,
+                pendingOrFuture = true
+        )
+        migrationInfoService.refresh()
+
+        // NOTE: As when migrating, a single failed future migration is tolerated, and a failed migration is left to be
+        //       resumed once the lock is acquired
+        val failed = migrationInfoService.failed()
+        val isFutureFailed = failed.size == 1 && failed[0].state === MigrationState.FUTURE_FAILED
+        if (failed.isNotEmpty() && !isFutureFailed && !resume) {
+            throw CassandraMigrationException(
+                    "Keyspace ${keyspaceConfig.name} contains a failed migration to version ${failed[0].version}!"
+            )
+        }
 
+        return migrationInfoService.pending().isEmpty() && failed.isEmpty()
+    }
+
+    /**
+     * @return The database migration action.
+     */
+    private fun migrateAction(): Action<MigrationResult> {
+        return object: Action<MigrationResult> {
+            override fun execute(session: Session): MigrationResult {
                 val migrationResolver = createMigrationResolver()
                 val schemaVersionDAO = createSchemaVersionDAO(session)
+
+                // GUARD: Migrate right away if the migration lock is disabled
+                if (!lockEnabled) return migrate(session, migrationResolver, schemaVersionDAO, CancellationToken.NONE)
+
+                val lock = schemaVersionDAO.createMigrationLock(lockLease)
+                lock.createTableIfNotExists(createSchemaAgreement())
+
+                // NOTE: Instances losing the race for the lock poll the migration history until the owner is done,
+                //       with the same resolver and DAO for every poll
+                val timeout = lockTimeout * 1000L
+                if (!lock.acquire(timeout, lockBackoff.toLong(), lockMaxBackoff.toLong()) { isUpToDate(migrationResolver, schemaVersionDAO) }) {
+                    LOG.info("Keyspace ${keyspaceConfig.name} has been migrated by another instance")
+                    return MigrationResult(0, 0L)
+                }
+
+                try {
+                    return migrate(session, migrationResolver, schemaVersionDAO, lock.cancellationToken)
+                } finally {
+                    lock.release()
+                }
+            }
+
+            /**
+             * Initialises the migration tables, and applies the pending migrations.
+             *
+             * @param session The Cassandra session connection to use to execute the migration.
+             * @param migrationResolver The migration resolver.
+             * @param schemaVersionDAO The schema version DAO.
+             * @param cancellationToken The token the migration run is cancelled along with, e.g. once the lock is lost.
+             * @return The result of the migration.
+             */
+            private fun migrate(
+                session: Session,
+                migrationResolver: MigrationResolver,
+                schemaVersionDAO: SchemaVersionDAO,
+                cancellationToken: CancellationToken
+            ): MigrationResult {
+                Initialize().run(session, keyspaceConfig, migrationTableName())
+
                 val migrate = Migrate(
                         migrationResolver,
                         target,
                         schemaVersionDAO,
                         session,
                         keyspaceConfig.clusterConfig.username ?: "",
-                        allowOutOfOrder
+                        allowOutOfOrder,
+                        groupCommitSize,
+                        groupCommitInterval.toLong(),
+                        parallelism,
+                        createSchemaAgreement(),
+                        resume,
+                        migrationDeadline * 1000L,
+                        runDeadline * 1000L,
+                        cancellationToken
                 )
 
-                return migrate.run()
+                return migrate.execute()
             }
         }
     }
@@ -509,6 +864,20 @@ class CassandraMigration : CassandraMigrationConfiguration {
         }
     }
 
+    /**
+     * @return The migration history archival action.
+     */
+    private fun archiveAction(): Action<Int> {
+        return object : Action<Int> {
+            override fun execute(session: Session): Int {
+                val schemaVersionDAO = createSchemaVersionDAO(session)
+                val archive = Archive(schemaVersionDAO, archiveVersion)
+
+                return archive.run()
+            }
+        }
+    }
+
     /**
      * A Cassandra migration action that can be executed.
      *
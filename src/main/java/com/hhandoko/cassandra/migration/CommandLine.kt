@@ -44,6 +44,9 @@ object CommandLine {
     /** Command to trigger baseline action */
     val BASELINE = "baseline"
 
+    /** Command to trigger archive action */
+    val ARCHIVE = "archive"
+
     /**
      * Logging support.
      */
@@ -68,6 +71,7 @@ object CommandLine {
             operations.contains(MIGRATE)  -> cm.migrate()
             operations.contains(VALIDATE) -> cm.validate()
             operations.contains(BASELINE) -> cm.baseline()
+            operations.contains(ARCHIVE)  -> cm.archive()
             else                          -> printUsage()
         }
     }
@@ -113,6 +117,7 @@ object CommandLine {
         LOG.info("migrate  : Migrates the database")
         LOG.info("validate : Validates the applied migrations against the available ones")
         LOG.info("baseline : Baselines an existing database, excluding all migrations up to, and including baselineVersion")
+        LOG.info("archive  : Archives the migration history before archiveVersion into a single snapshot record")
         LOG.info("")
         LOG.info("Add ${DEBUG_FLAG} to print debug output")
         LOG.info("Add ${QUIET_FLAG} to suppress all output, except for errors and warnings")
@@ -21,7 +21,7 @@ package com.hhandoko.cassandra.migration.api
 /**
  * Exception thrown when Cassandra migration encounters a problem.
  */
-class CassandraMigrationException : RuntimeException {
+open class CassandraMigrationException : RuntimeException {
 
     /**
      * Creates a new CassandraMigrationException with this message.
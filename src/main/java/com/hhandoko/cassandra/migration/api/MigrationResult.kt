@@ -0,0 +1,47 @@
+/**
+ * File     : MigrationResult.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.api
+
+/**
+ * Result of a migration run.
+ *
+ * @param appliedCount The number of successfully applied migrations.
+ * @param executionTime The total time taken to perform the migration run, in milliseconds.
+ * @param cancellationReason The reason the migration run was cancelled, e.g. a deadline expiry, `null` if completed.
+ * @param cancelledVersion The version of the migration cancelled midway, `null` if none (e.g. if the migration run
+ *                         was cancelled between migrations).
+ * @param completedStatements The number of statements of the cancelled migration completed before it stopped, as
+ *                            recorded for resuming it, `null` if it is not made of statements.
+ * @param schemaAgreementStats The statistics of the schema agreement waits of each executed CQL migration, by version.
+ */
+data class MigrationResult(
+    val appliedCount: Int,
+    val executionTime: Long,
+    val cancellationReason: String? = null,
+    val cancelledVersion: MigrationVersion? = null,
+    val completedStatements: Int? = null,
+    val schemaAgreementStats: Map<MigrationVersion, SchemaAgreementStats> = emptyMap()
+) {
+
+    /**
+     * Flag indicating whether the migration run was cancelled before all the pending migrations were applied.
+     */
+    val isCancelled: Boolean
+        get() = cancellationReason != null
+
+}
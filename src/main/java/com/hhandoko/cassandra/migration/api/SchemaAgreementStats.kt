@@ -0,0 +1,59 @@
+/**
+ * File     : SchemaAgreementStats.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.api
+
+/**
+ * Statistics of the schema agreement waits of a migration.
+ *
+ * @param schemaChanges The number of schema changes executed.
+ * @param waitTime The total time spent waiting for schema agreement, in milliseconds.
+ * @param timeouts The number of schema changes not in agreement by the end of the wait.
+ */
+data class SchemaAgreementStats(
+    val schemaChanges: Int,
+    val waitTime: Long,
+    val timeouts: Int
+) {
+
+    /**
+     * Adds the given schema change wait to these statistics.
+     *
+     * @param waitTime The time spent waiting for schema agreement, in milliseconds.
+     * @param isInAgreement Whether the schema was in agreement by the end of the wait.
+     * @return The updated statistics.
+     */
+    fun record(waitTime: Long, isInAgreement: Boolean): SchemaAgreementStats {
+        return SchemaAgreementStats(
+                schemaChanges + 1,
+                this.waitTime + waitTime,
+                if (isInAgreement) timeouts else timeouts + 1
+        )
+    }
+
+    /**
+     * SchemaAgreementStats companion object.
+     */
+    companion object {
+
+        /**
+         * The statistics of a migration without any schema change.
+         */
+        val EMPTY = SchemaAgreementStats(0, 0L, 0)
+    }
+
+}
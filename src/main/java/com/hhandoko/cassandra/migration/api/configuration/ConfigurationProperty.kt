@@ -48,6 +48,31 @@ enum class ConfigurationProperty(val namespace: String, val description: String)
             "Allow out of order migration"
     ),
 
+    RESUME(
+            "cassandra.migration.scripts.resume",
+            "Resume failed migrations from the statement they failed on"
+    ),
+
+    SCRIPTS_STREAMING(
+            "cassandra.migration.scripts.streaming",
+            "Stream the statements of CQL scripts while executing them, rather than loading them upfront"
+    ),
+
+    SCRIPTS_CACHE_BUDGET(
+            "cassandra.migration.scripts.cachebudget",
+            "Memory budget in megabytes to cache CQL scripts between their resolution and execution"
+    ),
+
+    SCRIPTS_CHECKSUM(
+            "cassandra.migration.scripts.checksum",
+            "Checksum algorithm of CQL scripts (CRC32, CRC32C, XXHASH64 or a custom class name)"
+    ),
+
+    SCRIPTS_RESOLVER_PARALLELISM(
+            "cassandra.migration.scripts.resolverparallelism",
+            "Number of CQL scripts to resolve concurrently (1 to resolve them one at a time)"
+    ),
+
     // Table configuration properties
     // ~~~~~~
     TABLE_PREFIX(
@@ -67,6 +92,83 @@ enum class ConfigurationProperty(val namespace: String, val description: String)
             "Description to apply to an existing schema when baseline is run"
     ),
 
+    // Archive configuration properties
+    // ~~~~~~
+    ARCHIVE_VERSION(
+            "cassandra.migration.archive.version",
+            "Version before which the migration history is compacted when archive is run"
+    ),
+
+    // Group-commit configuration properties
+    // ~~~~~~
+    GROUP_COMMIT_SIZE(
+            "cassandra.migration.groupcommit.size",
+            "Number of applied migrations to record in a single batch (0 or 1 to record each migration on its own)"
+    ),
+
+    GROUP_COMMIT_INTERVAL(
+            "cassandra.migration.groupcommit.interval",
+            "Maximum time in milliseconds to hold an applied migration record for a batch"
+    ),
+
+    // Parallel migration configuration properties
+    // ~~~~~~
+    PARALLELISM(
+            "cassandra.migration.parallelism",
+            "Maximum number of migrations to apply concurrently, as per their declared dependencies (1 to apply them in order)"
+    ),
+
+    // Migration lock configuration properties
+    // ~~~~~~
+    LOCK_ENABLED(
+            "cassandra.migration.lock.enabled",
+            "Enable the cluster-wide migration lock, so that only one instance migrates at a time"
+    ),
+
+    LOCK_LEASE(
+            "cassandra.migration.lock.lease",
+            "Duration in seconds of the migration lock lease, renewed while the lock is held"
+    ),
+
+    LOCK_TIMEOUT(
+            "cassandra.migration.lock.timeout",
+            "Maximum time in seconds to wait for the migration lock"
+    ),
+
+    LOCK_BACKOFF(
+            "cassandra.migration.lock.backoff",
+            "Initial time in milliseconds to wait between attempts to acquire the migration lock"
+    ),
+
+    LOCK_MAX_BACKOFF(
+            "cassandra.migration.lock.maxbackoff",
+            "Maximum time in milliseconds to wait between attempts to acquire the migration lock"
+    ),
+
+    // Schema agreement configuration properties
+    // ~~~~~~
+    SCHEMA_AGREEMENT_TIMEOUT(
+            "cassandra.migration.schemaagreement.timeout",
+            "Maximum time in milliseconds to wait for schema agreement after a schema change (0 not to wait)"
+    ),
+
+    SCHEMA_AGREEMENT_INTERVAL(
+            "cassandra.migration.schemaagreement.interval",
+            "Time in milliseconds between schema agreement checks"
+    ),
+
+    // Deadline configuration properties
+    // ~~~~~~
+    DEADLINE_MIGRATION(
+            "cassandra.migration.deadline.migration",
+            "Maximum time in seconds to apply each migration (0 for no deadline)"
+    ),
+
+    DEADLINE_RUN(
+            "cassandra.migration.deadline.run",
+            "Maximum time in seconds to apply all the pending migrations of a run (0 for no deadline)"
+    ),
+
     // Version target configuration properties
     // ~~~~~~
     TARGET_VERSION(
@@ -141,6 +243,66 @@ enum class ConfigurationProperty(val namespace: String, val description: String)
     CONSISTENCY_LEVEL(
             "cassandra.migration.keyspace.consistency",
             "Keyspace write consistency levels for migrations schema tracking"
+    ),
+
+    READ_CONSISTENCY_LEVEL(
+            "cassandra.migration.keyspace.readconsistency",
+            "Keyspace consistency level for migrations schema tracking reads (defaults to the keyspace consistency level)"
+    ),
+
+    WRITE_CONSISTENCY_LEVEL(
+            "cassandra.migration.keyspace.writeconsistency",
+            "Keyspace consistency level for migrations schema tracking writes (defaults to the keyspace consistency level)"
+    ),
+
+    SERIAL_CONSISTENCY_LEVEL(
+            "cassandra.migration.keyspace.serialconsistency",
+            "Keyspace serial consistency level for migrations schema tracking lightweight transactions"
+    ),
+
+    QUERY_TABLE_CHECK(
+            "cassandra.migration.keyspace.querytablecheck",
+            "Check migrations schema tracking tables existence by querying them rather than through schema metadata"
+    ),
+
+    TABLE_LAYOUT(
+            "cassandra.migration.keyspace.tablelayout",
+            "Migrations schema tracking table layout, either V1 (partition per version) or V2 (single partition)"
+    ),
+
+    TABLE_COMPACTION(
+            "cassandra.migration.keyspace.tablecompaction",
+            "Compaction strategy class of the migrations schema tracking tables"
+    ),
+
+    TABLE_CACHING(
+            "cassandra.migration.keyspace.tablecaching",
+            "Rows per partition to cache for the migrations schema tracking tables, either ALL, NONE or a number"
+    ),
+
+    TABLE_GC_GRACE_SECONDS(
+            "cassandra.migration.keyspace.tablegcgraceseconds",
+            "GC grace seconds of the migrations schema tracking tables"
+    ),
+
+    TABLE_SPECULATIVE_RETRY(
+            "cassandra.migration.keyspace.tablespeculativeretry",
+            "Speculative retry of the migrations schema tracking tables reads"
+    ),
+
+    RANK_ALLOCATION(
+            "cassandra.migration.keyspace.rankallocation",
+            "Migrations installed rank allocation, either COUNTER (counter table) or LWT (lightweight transactions)"
+    ),
+
+    FETCH_SIZE(
+            "cassandra.migration.keyspace.fetchsize",
+            "Number of migrations schema tracking rows to fetch per page (0 for the driver's default)"
+    ),
+
+    PREFETCH(
+            "cassandra.migration.keyspace.prefetch",
+            "Fetch the next page of migrations schema tracking rows asynchronously while the current page is read"
     )
 
 }
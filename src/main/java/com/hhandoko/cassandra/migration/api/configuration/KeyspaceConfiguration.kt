@@ -44,6 +44,93 @@ class KeyspaceConfiguration {
     var consistency: ConsistencyLevel? = null
       get set
 
+    /**
+     * Keyspace consistency level for the migrations schema tracking reads, overriding the keyspace consistency level.
+     * (default: null)
+     */
+    var readConsistency: ConsistencyLevel? = null
+      get set
+
+    /**
+     * Keyspace consistency level for the migrations schema tracking writes, overriding the keyspace consistency level.
+     * (default: null)
+     */
+    var writeConsistency: ConsistencyLevel? = null
+      get set
+
+    /**
+     * Keyspace serial consistency level for the migrations schema tracking lightweight transactions, either SERIAL or
+     * LOCAL_SERIAL.
+     * (default: SERIAL)
+     */
+    var serialConsistency = ConsistencyLevel.SERIAL
+      get set
+
+    /**
+     * True to check the migration tables existence by querying them, rather than through the driver's schema metadata.
+     * Fallback for embedded and older Cassandra versions.
+     * (default: false)
+     */
+    var queryTableCheck = false
+      get set
+
+    /**
+     * The layout of the migrations schema tracking table.
+     * (default: V1)
+     */
+    var tableLayout = TableLayout.V1
+      get set
+
+    /**
+     * The compaction strategy class of the migrations schema tracking tables, applied when the tables are created.
+     * (default: "LeveledCompactionStrategy")
+     */
+    var tableCompaction = "LeveledCompactionStrategy"
+      get set
+
+    /**
+     * The rows per partition to cache for the migrations schema tracking tables (all keys are cached), applied when the
+     * tables are created. Rows are only cached when the row cache is enabled on the nodes.
+     * (default: "ALL")
+     */
+    var tableCaching = "ALL"
+      get set
+
+    /**
+     * The GC grace seconds of the migrations schema tracking tables, or `null` for Cassandra's default.
+     * (default: null)
+     */
+    var tableGcGraceSeconds: Int? = null
+      get set
+
+    /**
+     * The speculative retry of the migrations schema tracking tables reads, or `null` for Cassandra's default.
+     * (default: null)
+     */
+    var tableSpeculativeRetry: String? = null
+      get set
+
+    /**
+     * The allocation strategy for the installed rank of applied migrations.
+     * (default: COUNTER)
+     */
+    var rankAllocation = RankAllocation.COUNTER
+      get set
+
+    /**
+     * The number of migrations schema tracking rows to fetch per page, or `0` for the driver's default.
+     * (default: 0)
+     */
+    var fetchSize = 0
+      get set
+
+    /**
+     * True to fetch the next page of migrations schema tracking rows asynchronously, while the current page is read.
+     * (default: false)
+     */
+    var prefetch = false
+      get set
+
     /**
      * KeyspaceConfiguration initialization.
      */
@@ -57,6 +144,54 @@ class KeyspaceConfiguration {
             it.extract<String?>(ConfigurationProperty.CONSISTENCY_LEVEL.namespace)?.let {
                 this.consistency = ConsistencyLevel.valueOf(it.trim().toUpperCase())
             }
+
+            it.extract<String?>(ConfigurationProperty.READ_CONSISTENCY_LEVEL.namespace)?.let {
+                this.readConsistency = ConsistencyLevel.valueOf(it.trim().toUpperCase())
+            }
+
+            it.extract<String?>(ConfigurationProperty.WRITE_CONSISTENCY_LEVEL.namespace)?.let {
+                this.writeConsistency = ConsistencyLevel.valueOf(it.trim().toUpperCase())
+            }
+
+            it.extract<String?>(ConfigurationProperty.SERIAL_CONSISTENCY_LEVEL.namespace)?.let {
+                this.serialConsistency = ConsistencyLevel.valueOf(it.trim().toUpperCase())
+            }
+
+            it.extract<Boolean?>(ConfigurationProperty.QUERY_TABLE_CHECK.namespace)?.let {
+                this.queryTableCheck = it
+            }
+
+            it.extract<String?>(ConfigurationProperty.TABLE_LAYOUT.namespace)?.let {
+                this.tableLayout = TableLayout.valueOf(it.trim().toUpperCase())
+            }
+
+            it.extract<String?>(ConfigurationProperty.TABLE_COMPACTION.namespace)?.let {
+                this.tableCompaction = it.trim()
+            }
+
+            it.extract<String?>(ConfigurationProperty.TABLE_CACHING.namespace)?.let {
+                this.tableCaching = it.trim().toUpperCase()
+            }
+
+            it.extract<Int?>(ConfigurationProperty.TABLE_GC_GRACE_SECONDS.namespace)?.let {
+                this.tableGcGraceSeconds = it
+            }
+
+            it.extract<String?>(ConfigurationProperty.TABLE_SPECULATIVE_RETRY.namespace)?.let {
+                this.tableSpeculativeRetry = it.trim().toUpperCase()
+            }
+
+            it.extract<String?>(ConfigurationProperty.RANK_ALLOCATION.namespace)?.let {
+                this.rankAllocation = RankAllocation.valueOf(it.trim().toUpperCase())
+            }
+
+            it.extract<Int?>(ConfigurationProperty.FETCH_SIZE.namespace)?.let {
+                this.fetchSize = it
+            }
+
+            it.extract<Boolean?>(ConfigurationProperty.PREFETCH.namespace)?.let {
+                this.prefetch = it
+            }
         }
     }
 
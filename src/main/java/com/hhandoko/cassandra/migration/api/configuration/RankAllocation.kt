@@ -0,0 +1,36 @@
+/**
+ * File     : RankAllocation.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.api.configuration
+
+/**
+ * Allocation strategy for the installed rank of applied migrations.
+ */
+enum class RankAllocation {
+
+    /**
+     * Increment and read back a counter in the `_counts` table.
+     */
+    COUNTER,
+
+    /**
+     * Compare-and-set a `max_rank` row in the `_ranks` table through lightweight transactions.
+     * Allocations are safe to retry on timeouts, and the `_counts` table is not required.
+     */
+    LWT
+
+}
@@ -0,0 +1,38 @@
+/**
+ * File     : TableLayout.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.api.configuration
+
+/**
+ * Layout of the schema migration version table.
+ */
+enum class TableLayout {
+
+    /**
+     * One partition per migration version, i.e. `PRIMARY KEY (version)`.
+     * Reading the migration history requires a range scan across the whole token ring.
+     */
+    V1,
+
+    /**
+     * All migration history rows in a single partition, clustered by `installed_rank`.
+     * Reading the migration history is a single partition slice, served by one replica set.
+     * Existing V1 migration history is copied into the V2 table when it is first created.
+     */
+    V2
+
+}
@@ -0,0 +1,123 @@
+/**
+ * File     : CancellationToken.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.api.migration
+
+import com.hhandoko.cassandra.migration.api.MigrationCancelledException
+import java.util.concurrent.TimeUnit
+
+/**
+ * Cooperative cancellation token, polled by migrations between units of work (e.g. statements) to stop early once
+ * cancelled, or once its deadline has expired.
+ *
+ * @param deadline The deadline of this token, as per `System.nanoTime()`, `null` if none.
+ * @param parent The token this token is derived from, cancelled along with it, `null` if none.
+ */
+class CancellationToken private constructor(
+    private val deadline: Long?,
+    private val parent: CancellationToken?
+) {
+
+    /**
+     * Flag indicating whether this token has been explicitly cancelled.
+     */
+    @Volatile private var cancelled = false
+
+    /**
+     * Flag indicating whether this token has been cancelled, its deadline has expired, or its parent has been
+     * cancelled.
+     */
+    val isCancelled: Boolean
+        get() = isExplicitlyCancelled() || isExpired() || (parent?.isCancelled ?: false)
+
+    /**
+     * Cancels this token, and all the tokens derived from it.
+     */
+    fun cancel() {
+        // GUARD: The shared token without deadline is never cancelled
+        if (this === NONE) return
+
+        cancelled = true
+    }
+
+    /**
+     * Throws if this token has been cancelled, to be called between units of work.
+     *
+     * @throws MigrationCancelledException when this token has been cancelled.
+     */
+    @Throws(MigrationCancelledException::class)
+    fun throwIfCancelled() {
+        if (isCancelled) {
+            val reason = if (isExplicitlyCancelled()) "cancelled" else "deadline exceeded"
+            throw MigrationCancelledException("Migration $reason")
+        }
+    }
+
+    /**
+     * Derives a token from this token, cancelled along with it, or once the given timeout has elapsed.
+     *
+     * @param timeout The timeout of the derived token in milliseconds, `0` or less for no timeout.
+     * @return The derived token.
+     */
+    fun withTimeout(timeout: Long): CancellationToken {
+        return CancellationToken(deadlineOf(timeout), this)
+    }
+
+    /**
+     * @return `true` if this token or the token it is derived from has been explicitly cancelled.
+     */
+    private fun isExplicitlyCancelled(): Boolean {
+        return cancelled || (parent?.isExplicitlyCancelled() ?: false)
+    }
+
+    /**
+     * @return `true` if the deadline of this token has expired.
+     */
+    private fun isExpired(): Boolean {
+        return deadline != null && System.nanoTime() - deadline >= 0
+    }
+
+    /**
+     * CancellationToken companion object.
+     */
+    companion object {
+
+        /**
+         * A token that is never cancelled, e.g. for migrations executed without any deadline.
+         */
+        @JvmField val NONE = CancellationToken(null, null)
+
+        /**
+         * Creates a new token, cancelled once the given timeout has elapsed.
+         *
+         * @param timeout The timeout of the token in milliseconds, `0` or less for no timeout.
+         * @return The new token.
+         */
+        @JvmStatic fun withDeadline(timeout: Long): CancellationToken {
+            return CancellationToken(deadlineOf(timeout), null)
+        }
+
+        /**
+         * @param timeout The timeout in milliseconds, `0` or less for no timeout.
+         * @return The deadline as per `System.nanoTime()`, `null` if none.
+         */
+        private fun deadlineOf(timeout: Long): Long? {
+            return if (timeout > 0) System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout) else null
+        }
+    }
+
+}
@@ -0,0 +1,35 @@
+/**
+ * File     : MigrationDependencyProvider.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.api.migration
+
+import com.hhandoko.cassandra.migration.api.MigrationVersion
+
+/**
+ * Migration implementors that also implement this interface will be able to declare the migrations they depend on,
+ * so that they can be applied concurrently with the migrations they do not depend on (when parallel migration is
+ * enabled), instead of after all the migrations with a lower version.
+ */
+interface MigrationDependencyProvider {
+
+    /**
+     * The versions of the migrations this migration depends on, all lower than its own version.
+     * An empty collection declares the migration as independent of any other.
+     */
+    val dependencies: Collection<MigrationVersion>
+
+}
@@ -0,0 +1,40 @@
+/**
+ * File     : CancellableJavaMigration.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.api.migration.java
+
+import com.datastax.driver.core.Session
+import com.hhandoko.cassandra.migration.api.migration.CancellationToken
+
+/**
+ * Java-based Cassandra schema migration, which can be cancelled, e.g. once its deadline has expired.
+ * Only `migrate(Session, CancellationToken)` is called by the migration executor.
+ */
+interface CancellableJavaMigration : JavaMigration {
+
+    /**
+     * Runs the Java-based Cassandra schema migration, polling the cancellation token between units of work to stop
+     * early once cancelled, e.g. with `CancellationToken.throwIfCancelled()`.
+     *
+     * @param session The Cassandra session connection to use to execute the migration.
+     * @param cancellationToken The cancellation token to poll.
+     * @throws Exception when the execution of the migration failed, or was cancelled.
+     */
+    @Throws(Exception::class)
+    fun migrate(session: Session, cancellationToken: CancellationToken)
+
+}
@@ -0,0 +1,36 @@
+/**
+ * File     : CancellableMigrationExecutor.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.api.resolver
+
+import com.datastax.driver.core.Session
+import com.hhandoko.cassandra.migration.api.migration.CancellationToken
+
+/**
+ * Executes a migration, which can be cancelled, e.g. once its deadline has expired.
+ */
+interface CancellableMigrationExecutor : MigrationExecutor {
+
+    /**
+     * Executes the migration this executor is associated with, stopping early once the token is cancelled.
+     *
+     * @param session The Cassandra session connection to use to execute the migration.
+     * @param cancellationToken The cancellation token to poll.
+     */
+    fun execute(session: Session, cancellationToken: CancellationToken)
+
+}
@@ -0,0 +1,39 @@
+/**
+ * File     : ChecksumAlgorithm.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.api.resolver
+
+import java.util.zip.Checksum
+
+/**
+ * Algorithm calculating the checksum of CQL migration scripts. This interface can be implemented to plug in a custom
+ * algorithm, configured by its fully qualified class name.
+ *
+ * The checksum is updated with the raw bytes of a script, excluding line terminators, and stored as the lower 32 bits of
+ * its value. Changing the algorithm changes the checksums of the migrations already applied, which then fail validation
+ * until they are repaired. Scripts may be checksummed concurrently, each with its own new checksum.
+ */
+interface ChecksumAlgorithm {
+
+    /**
+     * Creates a new checksum, to update with the bytes of a single script.
+     *
+     * @return The new checksum.
+     */
+    fun newChecksum(): Checksum
+
+}
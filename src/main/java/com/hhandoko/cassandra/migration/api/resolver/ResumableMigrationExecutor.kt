@@ -0,0 +1,39 @@
+/**
+ * File     : ResumableMigrationExecutor.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.api.resolver
+
+import com.datastax.driver.core.Session
+import com.hhandoko.cassandra.migration.api.migration.CancellationToken
+
+/**
+ * Executes a migration made of a series of statements, which can be resumed from the statement it failed on.
+ */
+interface ResumableMigrationExecutor : CancellableMigrationExecutor {
+
+    /**
+     * Executes the migration this executor is associated with, skipping the statements already completed.
+     * The cancellation token is polled between statements.
+     *
+     * @param session The Cassandra session connection to use to execute the migration.
+     * @param completedStatements The number of leading statements already completed, to skip.
+     * @param cancellationToken The cancellation token to poll.
+     * @param checkpoint Called with the number of completed statements, after each statement completes.
+     */
+    fun execute(session: Session, completedStatements: Int, cancellationToken: CancellationToken, checkpoint: (Int) -> Unit)
+
+}
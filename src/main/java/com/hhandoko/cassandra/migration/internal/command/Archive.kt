@@ -0,0 +1,87 @@
+/**
+ * File     : Archive.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.command
+
+import com.hhandoko.cassandra.migration.api.CassandraMigrationException
+import com.hhandoko.cassandra.migration.api.MigrationVersion
+import com.hhandoko.cassandra.migration.internal.dbsupport.SchemaVersionDAO
+import com.hhandoko.cassandra.migration.internal.util.StopWatch
+import com.hhandoko.cassandra.migration.internal.util.TimeFormat
+import com.hhandoko.cassandra.migration.internal.util.logging.LogFactory
+
+/**
+ * Handles the archive command.
+ * Compacts the migration history older than the archive version into a single snapshot record.
+ *
+ * @param schemaVersionDAO The Cassandra migration schema version DAO.
+ * @param archiveVersion The version before which the migration history is archived.
+ *                       `MigrationVersion.CURRENT` archives everything before the currently applied version.
+ */
+class Archive(
+    private val schemaVersionDAO: SchemaVersionDAO,
+    private val archiveVersion: MigrationVersion
+) {
+
+    /**
+     * Runs the migration history archival.
+     *
+     * @return The number of archived migration history records.
+     * @throws CassandraMigrationException when migration history archival failed for any reason.
+     */
+    @Throws(CassandraMigrationException::class)
+    fun run(): Int {
+        val stopWatch = StopWatch()
+        stopWatch.start()
+
+        val version = when {
+            archiveVersion === MigrationVersion.CURRENT -> schemaVersionDAO.findSummary()?.highestVersion
+            else                                        -> archiveVersion
+        }
+
+        val count = if (version == null) 0 else schemaVersionDAO.archiveAppliedMigrations(version)
+
+        stopWatch.stop()
+
+        logSummary(count, version, stopWatch.totalTimeMillis)
+
+        return count
+    }
+
+    /**
+     * Logs the summary of this archival run.
+     *
+     * @param count The number of archived migration history records.
+     * @param version The version before which the migration history was archived, `null` if nothing has been applied.
+     * @param executionTime The total time taken to perform this archival run (in ms).
+     */
+    private fun logSummary(count: Int, version: MigrationVersion?, executionTime: Long) {
+        val time = TimeFormat.format(executionTime)
+        when (version) {
+            null -> LOG.info("No migration history to archive (execution time $time)")
+            else -> LOG.info("Archived $count migration history record(s) before version $version (execution time $time)")
+        }
+    }
+
+    /**
+     * Archive command companion object.
+     */
+    companion object {
+        private val LOG = LogFactory.getLog(Archive::class.java)
+    }
+
+}
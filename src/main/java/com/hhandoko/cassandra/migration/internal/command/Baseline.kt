@@ -48,13 +48,13 @@ class Baseline(
      */
     @Throws(CassandraMigrationException::class)
     fun run() {
-        val baselineMigration = schemaVersionDAO.baselineMarker
         if (schemaVersionDAO.hasAppliedMigrations()) {
             val msg = "Unable to baseline metadata table ${schemaVersionDAO.tableName} as it already contains migrations"
             throw CassandraMigrationException(msg)
         }
 
         if (schemaVersionDAO.hasBaselineMarker()) {
+            val baselineMigration = schemaVersionDAO.baselineMarker
             val isNotBaselineByVersion = !(baselineMigration?.version?.equals(baselineVersion) ?: false)
             val isNotBaselineByDescription = !baselineMigration?.description.equals(baselineDescription)
             if (isNotBaselineByVersion || isNotBaselineByDescription) {
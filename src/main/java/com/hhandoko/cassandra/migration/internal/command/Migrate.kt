@@ -19,18 +19,36 @@
 package com.hhandoko.cassandra.migration.internal.command
 
 import com.datastax.driver.core.Session
+import com.google.common.util.concurrent.ThreadFactoryBuilder
+import com.google.common.util.concurrent.Uninterruptibles
 import com.hhandoko.cassandra.migration.api.CassandraMigrationException
-import com.hhandoko.cassandra.migration.api.MigrationInfo
+import com.hhandoko.cassandra.migration.api.MigrationCancelledException
+import com.hhandoko.cassandra.migration.api.MigrationResult
 import com.hhandoko.cassandra.migration.api.MigrationState
 import com.hhandoko.cassandra.migration.api.MigrationVersion
+import com.hhandoko.cassandra.migration.api.SchemaAgreementStats
+import com.hhandoko.cassandra.migration.api.migration.CancellationToken
+import com.hhandoko.cassandra.migration.api.resolver.CancellableMigrationExecutor
 import com.hhandoko.cassandra.migration.api.resolver.MigrationResolver
+import com.hhandoko.cassandra.migration.api.resolver.ResumableMigrationExecutor
+import com.hhandoko.cassandra.migration.internal.dbsupport.AppliedMigrationBuffer
+import com.hhandoko.cassandra.migration.internal.dbsupport.SchemaAgreement
 import com.hhandoko.cassandra.migration.internal.dbsupport.SchemaVersionDAO
 import com.hhandoko.cassandra.migration.internal.info.MigrationInfoImpl
 import com.hhandoko.cassandra.migration.internal.info.MigrationInfoServiceImpl
+import com.hhandoko.cassandra.migration.internal.info.MigrationWavePlanner
 import com.hhandoko.cassandra.migration.internal.metadatatable.AppliedMigration
+import com.hhandoko.cassandra.migration.internal.metadatatable.MigrationProgress
+import com.hhandoko.cassandra.migration.internal.resolver.ResolvedMigrationFingerprint
+import com.hhandoko.cassandra.migration.internal.resolver.cql.CqlMigrationExecutor
 import com.hhandoko.cassandra.migration.internal.util.StopWatch
 import com.hhandoko.cassandra.migration.internal.util.TimeFormat
 import com.hhandoko.cassandra.migration.internal.util.logging.LogFactory
+import java.util.*
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicReference
 
 /**
  * Main workflow for migrating the database.
@@ -41,6 +59,17 @@ import com.hhandoko.cassandra.migration.internal.util.logging.LogFactory
  * @param session The Cassandra session connection to use to execute the migration.
  * @param user The user to execute the migration as.
  * @param allowOutOfOrder True to allow migration to be run "out of order".
+ * @param groupCommitSize The number of applied migration records to group-commit, `0` or `1` to record every
+ *                        migration as soon as it has been applied.
+ * @param groupCommitInterval The maximum time to hold an applied migration record for group-commit, in milliseconds.
+ * @param parallelism The maximum number of migrations to apply concurrently, as per their declared dependencies, `0` or
+ *                    `1` to apply the migrations one at a time. Group-commit does not apply to parallel migration, as
+ *                    each wave of migrations is recorded in a single batch.
+ * @param schemaAgreement The schema agreement wait following each wave of parallel migrations.
+ * @param resume True to resume failed migrations from the statement they failed on, rather than refusing to migrate.
+ * @param migrationDeadline The maximum time to apply each migration, in milliseconds, `0` for no deadline.
+ * @param runDeadline The maximum time to apply all the pending migrations, in milliseconds, `0` for no deadline.
+ * @param cancellationToken The token the migration run is cancelled along with, e.g. once the migration lock is lost.
  */
 class Migrate(
     private val migrationResolver: MigrationResolver,
@@ -48,94 +77,401 @@ class Migrate(
     private val schemaVersionDAO: SchemaVersionDAO,
     private val session: Session,
     private val user: String,
-    private val allowOutOfOrder: Boolean
+    private val allowOutOfOrder: Boolean,
+    groupCommitSize: Int,
+    groupCommitInterval: Long,
+    private val parallelism: Int = 1,
+    private val schemaAgreement: SchemaAgreement = SchemaAgreement.DEFAULT,
+    private val resume: Boolean = false,
+    private val migrationDeadline: Long = 0L,
+    private val runDeadline: Long = 0L,
+    private val cancellationToken: CancellationToken = CancellationToken.NONE
 ) {
 
     /** Keyspace name lensing */
     private val keyspaceName = schemaVersionDAO.keyspaceConfig.name
 
+    /** Applied migration records buffer, `null` if group-commit is disabled */
+    private val historyBuffer = when {
+        groupCommitSize > 1 -> AppliedMigrationBuffer(schemaVersionDAO, groupCommitSize, groupCommitInterval)
+        else                -> null
+    }
+
+    /** Statement-level progress of the failed migrations to resume, by version */
+    private val resumePoints = HashMap<MigrationVersion, MigrationProgress>()
+
+    /** Cancellation token of the migration run, from which the token of each migration is derived */
+    private var runToken = CancellationToken.NONE
+
+    /** Cancellation of the migration run, `null` unless cancelled */
+    private var cancellation: MigrationCancelledException? = null
+
+    /** Statistics of the schema agreement waits of the executed CQL migrations, by version */
+    private val schemaAgreementStats = TreeMap<MigrationVersion, SchemaAgreementStats>()
+
+    /** Version of the migration cancelled midway and its completed statements (if resumable), `null` if none */
+    private val cancelledProgress = AtomicReference<Pair<MigrationVersion, Int?>?>(null)
+
     /**
      * Runs the actual migration.
      *
+     * Available and applied migrations are resolved and merged once, and the pending migrations are applied in order
+     * against an in-memory view of the migration history. The history is only re-read from the database when another
+     * writer is detected, i.e. when the installed rank assigned to an applied migration is not the expected one.
+     * With group-commit enabled, the applied migrations are recorded in batches, and the buffered records are flushed
+     * as soon as a migration fails. With parallel migration enabled, the pending migrations are applied in waves of
+     * migrations that do not depend on each other instead.
+     *
+     * Once migrated up to date, the fingerprint of the resolved migrations is recorded with the migration history
+     * summary. Subsequent runs with the same resolved migrations are then no-ops after a single row read, without
+     * reading, merging and checking the migration history.
+     *
+     * The statement-level progress of a failed migration is recorded alongside its failure. In resume mode, failed
+     * migrations are applied again from the statement they failed on, rather than refusing to migrate.
+     *
      * @return The number of successfully applied migrations.
+     * @throws MigrationCancelledException when the migration run was cancelled, e.g. once a deadline has expired.
      * @throws CassandraMigrationException when migration execution failed for any reason.
      */
     @Throws(CassandraMigrationException::class)
     fun run(): Int {
+        val result = execute()
+        if (result.isCancelled) throw MigrationCancelledException("Migration of keyspace $keyspaceName ${result.cancellationReason}")
+
+        return result.appliedCount
+    }
+
+    /**
+     * Runs the actual migration, as per `run()`, returning a structured result.
+     *
+     * Once the deadline of a migration, or of the whole migration run, has expired, the migration executing stops
+     * between statements (or as soon as it polls its cancellation token), and is recorded as failed along with its
+     * statement-level progress, so that it can be resumed. The result then reports the cancellation, rather than
+     * throwing.
+     *
+     * @return The result of the migration run.
+     * @throws CassandraMigrationException when migration execution failed for any other reason.
+     */
+    @Throws(CassandraMigrationException::class)
+    fun execute(): MigrationResult {
         val stopWatch = StopWatch()
         stopWatch.start()
+        runToken = cancellationToken.withTimeout(runDeadline)
+
+        // Fast path
+        // ~~~~~
+        // Skip the migration history entirely if the resolved migrations have already been migrated up to date
+        // NOTE: The summary is only trusted while its highest migration is still recorded in the migration history
+        val fingerprint = ResolvedMigrationFingerprint.calculate(migrationResolver.resolveMigrations(), migrationTarget, allowOutOfOrder)
+        val summary = schemaVersionDAO.findSummary()
+        if (summary != null && summary.isUpToDate(fingerprint) && schemaVersionDAO.hasHighestRecordedMigration(summary)) {
+            LOG.debug("Resolved migrations fingerprint ${java.lang.Long.toHexString(fingerprint)} of keyspace $keyspaceName is up to date")
+            stopWatch.stop()
+            logSummary(0, stopWatch.totalTimeMillis)
+            return MigrationResult(0, stopWatch.totalTimeMillis)
+        }
+
+        val infoService = MigrationInfoServiceImpl(migrationResolver, schemaVersionDAO, migrationTarget, allowOutOfOrder, true)
+        infoService.refresh()
+
+        val currentSchemaVersion = infoService.current()?.version ?: MigrationVersion.CURRENT
+
+        // Log first run message and warn the user if `out-of-order` is enabled
+        LOG.info("Current version of keyspace $keyspaceName: $currentSchemaVersion")
+        if (allowOutOfOrder) {
+            LOG.warn("'outOfOrder' mode is active. Migration of keyspace $keyspaceName may not be reproducible.")
+        }
+
+        checkFutureMigrations(infoService, currentSchemaVersion)
+        checkFailedMigrations(infoService)
+
+        // Pending migrations
+        // ~~~~~
+        // Apply pending migrations one at a time, or in waves of independent migrations if running in parallel
+        val migrationSuccessCount = when {
+            parallelism > 1 -> applyInWaves(infoService, currentSchemaVersion)
+            else            -> applyInOrder(infoService, currentSchemaVersion)
+        }
+
+        // NOTE: Only fingerprint a fully migrated set of resolved migrations, so that the fast path never skips any work
+        if (infoService.pending().isEmpty() && infoService.failed().isEmpty()) {
+            schemaVersionDAO.recordFingerprint(fingerprint, infoService.lastInstalledRank)
+        }
+
+        stopWatch.stop()
+        logSummary(migrationSuccessCount, stopWatch.totalTimeMillis)
+
+        val cancelled = cancellation ?: return MigrationResult(
+                migrationSuccessCount,
+                stopWatch.totalTimeMillis,
+                schemaAgreementStats = schemaAgreementStats
+        )
+        val progress = cancelledProgress.get()
+        LOG.warn("Migration of keyspace $keyspaceName stopped early: ${cancelled.message}")
+        return MigrationResult(
+                migrationSuccessCount,
+                stopWatch.totalTimeMillis,
+                cancelled.message,
+                progress?.first,
+                progress?.second,
+                schemaAgreementStats
+        )
+    }
+
+    /**
+     * Finds the cancellation amongst this failure and its causes.
+     *
+     * @param failure The failure to check.
+     * @return The cancellation, or `null` if the failure is not a cancellation.
+     */
+    private fun findCancellation(failure: Throwable?): MigrationCancelledException? {
+        var cause = failure
+        while (cause != null) {
+            if (cause is MigrationCancelledException) return cause
+            cause = cause.cause
+        }
+        return null
+    }
+
+    /**
+     * Log future migrations and warn users if there are no resolved migrations, or if there current version migration
+     * is newer than what is available.
+     *
+     * @param infoService The migration info service.
+     * @param currentSchemaVersion The current schema version of the keyspace.
+     */
+    private fun checkFutureMigrations(infoService: MigrationInfoServiceImpl, currentSchemaVersion: MigrationVersion) {
+        val future = infoService.future()
+        if (future.isNotEmpty()) {
+            val resolvedLogMsg = "Keyspace $keyspaceName has version $currentSchemaVersion"
+            val resolved = infoService.resolved()
+            if (resolved.size == 0) {
+                LOG.warn("$resolvedLogMsg, but no migration could be resolved in the configured locations!")
+            } else {
+                val latestVersion = resolved[resolved.size - 1].version
+                LOG.warn("$resolvedLogMsg that is newer than the latest available migration ($latestVersion)!")
+            }
+        }
+    }
 
+    /**
+     * Log failed future migrations and throw `CassandraMigrationException` for everything else.
+     *
+     * @param infoService The migration info service.
+     * @throws CassandraMigrationException when the keyspace contains a failed migration.
+     */
+    @Throws(CassandraMigrationException::class)
+    private fun checkFailedMigrations(infoService: MigrationInfoServiceImpl) {
+        val failed = infoService.failed()
+        if (failed.isNotEmpty()) {
+            val isFutureFailed = failed[0].state === MigrationState.FUTURE_FAILED
+            val failedVersion = failed[0].version
+            if (failed.size == 1 && isFutureFailed) {
+                val failedLogMsg = "Keyspace $keyspaceName contains a failed future migration to version $failedVersion!"
+                LOG.warn(failedLogMsg)
+            } else if (resume) {
+                checkResumableMigrations(failed.filterIsInstance<MigrationInfoImpl>())
+            } else {
+                val failedLogMsg = "Keyspace $keyspaceName contains a failed migration to version $failedVersion!"
+                throw CassandraMigrationException(failedLogMsg)
+            }
+        }
+    }
+
+    /**
+     * Checks that the failed migrations can all be resumed from the statement they failed on, i.e. that their
+     * statement-level progress has been recorded and that they have not changed since they failed.
+     *
+     * @param failed The failed migrations.
+     * @throws CassandraMigrationException when a failed migration cannot be resumed.
+     */
+    @Throws(CassandraMigrationException::class)
+    private fun checkResumableMigrations(failed: List<MigrationInfoImpl>) {
+        for (migration in failed) {
+            val failedLogMsg = "Keyspace $keyspaceName contains a failed migration to version ${migration.version}"
+            val resolvedMigration = migration.resolvedMigration
+            if (resolvedMigration?.executor !is ResumableMigrationExecutor) {
+                throw CassandraMigrationException("$failedLogMsg that cannot be resumed!")
+            }
+
+            val progress = schemaVersionDAO.findMigrationProgress(migration.version)
+                    ?: throw CassandraMigrationException("$failedLogMsg without any recorded progress to resume from!")
+            if (progress.checksum != resolvedMigration!!.checksum) {
+                throw CassandraMigrationException("$failedLogMsg that has changed since it failed!")
+            }
+
+            resumePoints.put(migration.version, progress)
+        }
+    }
+
+    /**
+     * Plans the migrations to apply, i.e. the failed migrations to resume and the pending migrations, in version order.
+     *
+     * @param infoService The migration info service.
+     * @return The migrations to apply.
+     */
+    private fun planMigrations(infoService: MigrationInfoServiceImpl): List<MigrationInfoImpl> {
+        val resumed = infoService.failed().filterIsInstance<MigrationInfoImpl>().filter { resumePoints.containsKey(it.version) }
+        val pending = infoService.pending().filterIsInstance<MigrationInfoImpl>()
+
+        // GUARD: Nothing to resume
+        if (resumed.isEmpty()) return pending
+
+        return (resumed + pending).sortedBy { it.version }
+    }
+
+    /**
+     * Applies the pending migrations one at a time, in version order, following the execution plan and re-planning
+     * only on concurrent changes.
+     *
+     * @param infoService The migration info service.
+     * @param schemaVersion The current schema version of the keyspace.
+     * @return The number of successfully applied migrations.
+     * @throws CassandraMigrationException when a migration cannot be applied.
+     */
+    @Throws(CassandraMigrationException::class)
+    private fun applyInOrder(infoService: MigrationInfoServiceImpl, schemaVersion: MigrationVersion): Int {
+        var currentSchemaVersion = schemaVersion
         var migrationSuccessCount = 0
-        while (true) {
-            val infoService = MigrationInfoServiceImpl(migrationResolver, schemaVersionDAO, migrationTarget, allowOutOfOrder, true)
-            infoService.refresh()
-
-            // Initialise `firstRun` and `currentSchemaVersion` variables
-            val firstRun = migrationSuccessCount == 0
-            val currentSchemaVersion = infoService.current()?.version ?: MigrationVersion.CURRENT
-
-            // First run only
-            // ~~~~~
-            // Log first run message and warn the user if `out-of-order` is enabled
-            if (firstRun) {
-                LOG.info("Current version of keyspace $keyspaceName: $currentSchemaVersion")
-
-                if (allowOutOfOrder) {
-                    LOG.warn("'outOfOrder' mode is active. Migration of keyspace $keyspaceName may not be reproducible.")
+        var expectedInstalledRank = infoService.lastInstalledRank + 1
+        var plan = planMigrations(infoService)
+        var planIndex = 0
+        try {
+            while (planIndex < plan.size) {
+                runToken.throwIfCancelled()
+
+                val migration = plan[planIndex]
+                val isOutOfOrder = migration.version.compareTo(currentSchemaVersion) < 0
+                val appliedMigration = applyMigration(migration, isOutOfOrder)
+                migrationSuccessCount++
+
+                // NOTE: Buffered records are indexed ahead of being recorded, and replaced once flushed with their ranks
+                if (historyBuffer != null) {
+                    infoService.addAppliedMigration(appliedMigration)
                 }
-            }
 
-            // Future migrations
-            // ~~~~~
-            // Log future migrations and warn users if there are no resolved migrations, or
-            // if there current version migration is newer than what is available
-            val future = infoService.future()
-            if (future.isNotEmpty()) {
-                val resolvedLogMsg = "Keyspace $keyspaceName has version $currentSchemaVersion"
-                val resolved = infoService.resolved()
-                if (resolved.size == 0) {
-                    LOG.warn("$resolvedLogMsg, but no migration could be resolved in the configured locations!")
-                } else {
-                    val latestVersion = resolved[resolved.size - 1].version
-                    LOG.warn("$resolvedLogMsg that is newer than the latest available migration ($latestVersion)!")
+                val recordedMigrations = when {
+                    historyBuffer == null                                  -> listOf(appliedMigration)
+                    historyBuffer.isFlushDue || planIndex + 1 >= plan.size -> historyBuffer.flush()
+                    else                                                   -> emptyList()
                 }
-            }
 
-            // Failed migrations
-            // ~~~~~
-            // Log failed future migrations and throw `CassandraMigrationException` for everything else
-            val failed = infoService.failed()
-            if (failed.isNotEmpty()) {
-                val isFutureFailed = failed[0].state === MigrationState.FUTURE_FAILED
-                val failedVersion = failed[0].version
-                if (failed.size == 1 && isFutureFailed) {
-                    val failedLogMsg = "Keyspace $keyspaceName contains a failed future migration to version $failedVersion!"
-                    LOG.warn(failedLogMsg)
+                if (recordedMigrations.isEmpty()) {
+                    planIndex++
+                } else if (recordedMigrations.first().installedRank == expectedInstalledRank) {
+                    recordedMigrations.forEach { infoService.addAppliedMigration(it) }
+                    planIndex++
                 } else {
-                    val failedLogMsg = "Keyspace $keyspaceName contains a failed migration to version $failedVersion!"
-                    throw CassandraMigrationException(failedLogMsg)
+                    LOG.debug("Concurrent changes detected in keyspace $keyspaceName, refreshing migration history")
+                    infoService.refresh()
+                    checkFailedMigrations(infoService)
+                    plan = planMigrations(infoService)
+                    planIndex = 0
                 }
-            }
 
-            // Pending migrations
-            // ~~~~~
-            // Apply pending migrations
-            val pendingMigrations = infoService.pending()
-            if (pendingMigrations.isNotEmpty()) {
-                if (pendingMigrations[0] is MigrationInfoImpl) {
-                    val isOutOfOrder = pendingMigrations[0].version.compareTo(currentSchemaVersion) < 0
-                    applyMigration(pendingMigrations[0] as MigrationInfoImpl, isOutOfOrder) ?: break
+                if (recordedMigrations.isNotEmpty()) {
+                    expectedInstalledRank = (recordedMigrations.last().installedRank ?: 0) + 1
                 }
-            } else {
-                // Exit if there are no more pending migrations
-                break
+                currentSchemaVersion = infoService.current()?.version ?: MigrationVersion.CURRENT
             }
+        } catch (e: CassandraMigrationException) {
+            // NOTE: A cancelled migration run stops with a result, rather than failing
+            cancellation = findCancellation(e) ?: throw e
+        } finally {
+            // NOTE: Record whatever has been applied, should the run be interrupted
+            historyBuffer?.flush()
+        }
+
+        return migrationSuccessCount
+    }
 
-            migrationSuccessCount++
+    /**
+     * Applies the pending migrations in waves of migrations that do not depend on each other, the migrations of each
+     * wave running concurrently on a bounded thread pool. The schema is awaited to be in agreement after each wave.
+     *
+     * The applied migrations are recorded in version order, as soon as all the lower pending versions have been
+     * applied. Should a migration fail, all the migrations that have been applied are recorded along with it.
+     *
+     * @param infoService The migration info service.
+     * @param currentSchemaVersion The current schema version of the keyspace.
+     * @return The number of successfully applied migrations.
+     * @throws CassandraMigrationException when a migration cannot be applied.
+     */
+    @Throws(CassandraMigrationException::class)
+    private fun applyInWaves(infoService: MigrationInfoServiceImpl, currentSchemaVersion: MigrationVersion): Int {
+        val pending = planMigrations(infoService)
+        val appliedVersions = infoService.applied().filter { !it.state.isFailed }.map { it.version }.toSet()
+        val waves = MigrationWavePlanner.plan(pending) { appliedVersions.contains(it) }
+        if (pending.isNotEmpty()) {
+            LOG.info("Migrating keyspace $keyspaceName in ${waves.size} wave(s), applying up to $parallelism migration(s) at a time")
         }
 
-        stopWatch.stop()
-        logSummary(migrationSuccessCount, stopWatch.totalTimeMillis)
+        val executor = Executors.newFixedThreadPool(
+                parallelism,
+                ThreadFactoryBuilder()
+                        .setDaemon(true)
+                        .setNameFormat("cassandra-migration-parallel-%d")
+                        .build()
+        )
+
+        var migrationSuccessCount = 0
+        var expectedInstalledRank = infoService.lastInstalledRank + 1
+        val unrecorded = TreeMap<MigrationVersion, AppliedMigration>()
+        var recordIndex = 0
+        try {
+            for (wave in waves) {
+                runToken.throwIfCancelled()
+
+                val futures = wave.map { migration ->
+                    val isOutOfOrder = migration.version.compareTo(currentSchemaVersion) < 0
+                    executor.submit(Callable { executeMigration(migration, isOutOfOrder) })
+                }
+
+                // NOTE: The outcomes are recorded from this thread only, as the schema version DAO is not shared
+                //       with the worker threads
+                var failure: Exception? = null
+                for ((migration, future) in wave.zip(futures)) {
+                    val outcome = try {
+                        Uninterruptibles.getUninterruptibly(future)
+                    } catch (e: ExecutionException) {
+                        throw CassandraMigrationException("Unable to apply migration", e.cause)
+                    }
+                    recordOutcome(migration, outcome)
+
+                    unrecorded.put(outcome.appliedMigration.version!!, outcome.appliedMigration)
+                    if (outcome.failure == null) migrationSuccessCount++ else if (failure == null) failure = outcome.failure
+                }
+
+                schemaAgreement.await(session)
+
+                // NOTE: Hold back the records of versions higher than a pending one, unless failing
+                val recordable = ArrayList<AppliedMigration>()
+                while (recordIndex < pending.size && unrecorded.containsKey(pending[recordIndex].version)) {
+                    recordable.add(unrecorded.remove(pending[recordIndex].version)!!)
+                    recordIndex++
+                }
+                if (failure != null) {
+                    recordable.addAll(unrecorded.values)
+                    unrecorded.clear()
+                }
+
+                if (recordable.isNotEmpty()) {
+                    val recordedMigrations = schemaVersionDAO.addAppliedMigrations(recordable)
+                    if (recordedMigrations.first().installedRank != expectedInstalledRank) {
+                        LOG.warn("Concurrent changes detected in keyspace $keyspaceName while migrating in parallel, consider enabling the migration lock")
+                    }
+                    recordedMigrations.forEach { infoService.addAppliedMigration(it) }
+                    expectedInstalledRank = (recordedMigrations.last().installedRank ?: 0) + 1
+                }
+
+                if (failure != null) throw CassandraMigrationException("Unable to apply migration", failure)
+            }
+        } catch (e: CassandraMigrationException) {
+            // NOTE: A cancelled migration run stops with a result, rather than failing
+            cancellation = findCancellation(e) ?: throw e
+        } finally {
+            executor.shutdownNow()
+        }
 
         return migrationSuccessCount
     }
@@ -145,35 +481,49 @@ class Migrate(
      *
      * @param migration The migration to apply.
      * @param isOutOfOrder If this migration is being applied out of order.
-     * @return The result of the migration.
+     * @return The applied migration, as recorded in the schema version table (unranked if buffered for group-commit).
      * @throws CassandraMigrationException when migration cannot be applied.
      */
     @Throws(CassandraMigrationException::class)
-    private fun applyMigration(migration: MigrationInfoImpl, isOutOfOrder: Boolean): MigrationVersion? {
+    private fun applyMigration(migration: MigrationInfoImpl, isOutOfOrder: Boolean): AppliedMigration {
 
         /**
          * Add applied migration into the Cassandra migration versioning table.
          *
-         * @param version The migration version currently being applied.
-         * @param migration The migration to apply.
-         * @param executionTime The total time taken to perform this migration run (in ms).
-         * @param success True to denote successful migration application.
+         * @param appliedMigration The applied migration to record.
+         * @return The applied migration, as recorded in the schema version table (unranked if buffered for group-commit).
          */
-        fun addAppliedMigration(version: MigrationVersion, migration: MigrationInfo, executionTime: Long, success: Boolean = true) {
-            schemaVersionDAO.addAppliedMigration(
-                AppliedMigration(
-                    version,
-                    migration.description,
-                    migration.type,
-                    migration.script,
-                    migration.checksum,
-                    user,
-                    executionTime.toInt(),
-                    success
-                )
-            )
+        fun addAppliedMigration(appliedMigration: AppliedMigration): AppliedMigration {
+            // GUARD: Record the migration right away if group-commit is disabled
+            if (historyBuffer == null) return schemaVersionDAO.addAppliedMigration(appliedMigration)
+
+            // NOTE: A failure is flushed immediately along with the buffered records, so that the history reflects
+            //       what actually ran
+            historyBuffer.add(appliedMigration)
+            if (!appliedMigration.isSuccess) historyBuffer.flush()
+
+            return appliedMigration
         }
 
+        val outcome = executeMigration(migration, isOutOfOrder)
+        recordOutcome(migration, outcome)
+
+        val (appliedMigration, failure) = outcome
+        val recordedMigration = addAppliedMigration(appliedMigration)
+        if (failure != null) throw CassandraMigrationException("Unable to apply migration", failure)
+
+        return recordedMigration
+    }
+
+    /**
+     * Executes this migration against the database, without recording it nor its progress.
+     * Safe to run on a worker thread, as it does not use the schema version DAO.
+     *
+     * @param migration The migration to execute.
+     * @param isOutOfOrder If this migration is being applied out of order.
+     * @return The outcome of the migration, to record.
+     */
+    private fun executeMigration(migration: MigrationInfoImpl, isOutOfOrder: Boolean): MigrationOutcome {
         val version = migration.version
         val logMsg = "Migration of keyspace $keyspaceName to version $version"
 
@@ -183,21 +533,78 @@ class Migrate(
         val stopWatch = StopWatch()
         stopWatch.start()
 
-        var isMigrationSuccess = false
+        val executor = migration.resolvedMigration!!.executor!!
+        val progress = resumePoints[version]
+        var completedStatements = progress?.completedStatements ?: 0
+        val cancellationToken = runToken.withTimeout(migrationDeadline)
+
+        if (progress != null) LOG.info("$logMsg resuming after statement $completedStatements")
+
+        var failure: Exception? = null
         try {
-            val executor = migration.resolvedMigration!!.executor!!
-            executor.execute(session)
-            isMigrationSuccess = true
+            when (executor) {
+                is ResumableMigrationExecutor   -> executor.execute(session, completedStatements, cancellationToken) { completedStatements = it }
+                is CancellableMigrationExecutor -> executor.execute(session, cancellationToken)
+                else                            -> executor.execute(session)
+            }
             LOG.debug("$logMsg success!")
         } catch (e: Exception) {
-            LOG.error("$logMsg failed! Please restore backups and roll back database and code!")
-            throw CassandraMigrationException("Unable to apply migration", e)
-        } finally {
-            stopWatch.stop()
-            addAppliedMigration(version, migration, stopWatch.totalTimeMillis, isMigrationSuccess)
+            val cancelled = findCancellation(e)
+            if (cancelled != null) {
+                LOG.warn("$logMsg stopped early: ${cancelled.message}")
+                val statements = if (executor is ResumableMigrationExecutor) completedStatements else null
+                cancelledProgress.compareAndSet(null, Pair(version, statements))
+            } else {
+                LOG.error("$logMsg failed! Please restore backups and roll back database and code!")
+            }
+            failure = e
         }
 
-        return version
+        stopWatch.stop()
+        val appliedMigration = AppliedMigration(
+            version,
+            migration.description,
+            migration.type,
+            migration.script,
+            migration.checksum,
+            user,
+            stopWatch.totalTimeMillis.toInt(),
+            failure == null
+        )
+
+        return MigrationOutcome(
+                appliedMigration,
+                failure,
+                if (executor is ResumableMigrationExecutor) completedStatements else null,
+                if (failure == null && executor is CqlMigrationExecutor) executor.schemaAgreementStats else null
+        )
+    }
+
+    /**
+     * Records how far this migration got, so that it can be resumed from the statement it failed on, or clears its
+     * progress once resumed successfully. The schema agreement statistics of the migration are collected for the
+     * migration result.
+     *
+     * @param migration The executed migration.
+     * @param outcome The outcome of the migration.
+     */
+    private fun recordOutcome(migration: MigrationInfoImpl, outcome: MigrationOutcome) {
+        val version = migration.version
+        outcome.schemaAgreementStats?.let { schemaAgreementStats.put(version, it) }
+
+        val logMsg = "Migration of keyspace $keyspaceName to version $version"
+        val completedStatements = outcome.completedStatements
+
+        try {
+            if (outcome.failure == null && resumePoints.containsKey(version)) {
+                schemaVersionDAO.clearMigrationProgress(version)
+            } else if (outcome.failure != null && completedStatements != null) {
+                LOG.info("$logMsg failed after statement $completedStatements")
+                schemaVersionDAO.recordMigrationProgress(MigrationProgress(version, migration.resolvedMigration!!.checksum, completedStatements))
+            }
+        } catch (e: Exception) {
+            LOG.warn("$logMsg progress could not be recorded: ${e.message}")
+        }
     }
 
     /**
@@ -231,6 +638,21 @@ class Migrate(
         if (count == 0) return
     }
 
+    /**
+     * Outcome of a migration execution, recorded by the migrating thread.
+     *
+     * @param appliedMigration The applied migration to record (successful or not).
+     * @param failure The cause of the migration failure, `null` if it succeeded.
+     * @param completedStatements The number of statements completed by a resumable migration, `null` otherwise.
+     * @param schemaAgreementStats The schema agreement statistics of a successful CQL migration, `null` otherwise.
+     */
+    private data class MigrationOutcome(
+        val appliedMigration: AppliedMigration,
+        val failure: Exception?,
+        val completedStatements: Int?,
+        val schemaAgreementStats: SchemaAgreementStats?
+    )
+
     /**
      * Migrate command companion object.
      */
@@ -0,0 +1,94 @@
+/**
+ * File     : AppliedMigrationBuffer.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.dbsupport
+
+import com.hhandoko.cassandra.migration.internal.metadatatable.AppliedMigration
+import java.util.*
+import java.util.concurrent.TimeUnit
+
+/**
+ * Buffers applied migration records, to group-commit them into the schema migration version table.
+ * The buffered records are flushed as a single logged batch once the buffer is full, or once the oldest buffered
+ * record has waited for longer than the flush interval.
+ *
+ * @param schemaVersionDAO The Cassandra migration schema version DAO.
+ * @param size The maximum number of buffered records.
+ * @param interval The maximum time to buffer a record for, in milliseconds.
+ */
+class AppliedMigrationBuffer(
+    private val schemaVersionDAO: SchemaVersionDAO,
+    private val size: Int,
+    private val interval: Long
+) {
+
+    /**
+     * The buffered applied migrations, in the order they have been applied.
+     */
+    private val buffered = ArrayList<AppliedMigration>()
+
+    /**
+     * The time the oldest buffered record has been added at, in nanoseconds.
+     */
+    private var oldestBufferedAt = 0L
+
+    /**
+     * Flag indicating whether there are buffered records.
+     */
+    val isEmpty: Boolean
+        get() = buffered.isEmpty()
+
+    /**
+     * Flag indicating whether the buffered records are due to be flushed, as per the buffer size and flush interval.
+     */
+    val isFlushDue: Boolean
+        get() {
+            return when {
+                buffered.isEmpty()     -> false
+                buffered.size >= size  -> true
+                else                   -> System.nanoTime() - oldestBufferedAt >= TimeUnit.MILLISECONDS.toNanos(interval)
+            }
+        }
+
+    /**
+     * Buffer the given applied migration record.
+     *
+     * @param appliedMigration The applied migration.
+     */
+    fun add(appliedMigration: AppliedMigration) {
+        if (buffered.isEmpty()) {
+            oldestBufferedAt = System.nanoTime()
+        }
+        buffered.add(appliedMigration)
+    }
+
+    /**
+     * Flush the buffered records into the schema migration version table.
+     *
+     * @return The flushed applied migrations as recorded, including their version and installed ranks.
+     */
+    fun flush(): List<AppliedMigration> {
+        // GUARD: Nothing to flush
+        if (buffered.isEmpty()) return emptyList()
+
+        val flushed = ArrayList(buffered)
+        buffered.clear()
+
+        return schemaVersionDAO.addAppliedMigrations(flushed)
+    }
+
+}
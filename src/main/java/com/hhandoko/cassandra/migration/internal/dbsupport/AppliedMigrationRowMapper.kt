@@ -0,0 +1,127 @@
+/**
+ * File     : AppliedMigrationRowMapper.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.dbsupport
+
+import com.datastax.driver.core.ColumnDefinitions
+import com.datastax.driver.core.Row
+import com.hhandoko.cassandra.migration.api.MigrationType
+import com.hhandoko.cassandra.migration.api.MigrationVersion
+import com.hhandoko.cassandra.migration.internal.metadatatable.AppliedMigration
+import java.util.*
+
+/**
+ * Maps schema migration version table rows into applied migrations.
+ *
+ * Column indexes are resolved once from the rows' column definitions, and the rows are then decoded by index rather
+ * than by column name. Parsed migration versions are cached by their version string.
+ */
+class AppliedMigrationRowMapper {
+
+    /**
+     * The column definitions the column indexes were resolved from, `null` if not resolved yet.
+     */
+    private var columnDefinitions: ColumnDefinitions? = null
+
+    /**
+     * The column indexes, in the order of [COLUMNS].
+     */
+    private val indexes = IntArray(COLUMNS.size)
+
+    /**
+     * Parsed migration versions, by version string.
+     */
+    private val versions = HashMap<String, MigrationVersion>()
+
+    /**
+     * Map the given schema migration version table row into an applied migration.
+     *
+     * @param row The schema migration version table row.
+     * @return The applied migration.
+     */
+    fun map(row: Row): AppliedMigration {
+        resolveIndexes(row.columnDefinitions)
+
+        return AppliedMigration(
+                row.getInt(indexes[VERSION_RANK]),
+                row.getInt(indexes[INSTALLED_RANK]),
+                toVersion(row.getString(indexes[VERSION])),
+                row.getString(indexes[DESCRIPTION]),
+                MigrationType.valueOf(row.getString(indexes[TYPE])),
+                row.getString(indexes[SCRIPT]),
+                if (row.isNull(indexes[CHECKSUM])) null else row.getInt(indexes[CHECKSUM]),
+                row.getTimestamp(indexes[INSTALLED_ON]),
+                row.getString(indexes[INSTALLED_BY]),
+                row.getInt(indexes[EXECUTION_TIME]),
+                row.getBool(indexes[SUCCESS])
+        )
+    }
+
+    /**
+     * Parse the given version string, reusing the previously parsed instance if any.
+     *
+     * @param version The version string.
+     * @return The migration version.
+     */
+    fun toVersion(version: String): MigrationVersion {
+        return versions.getOrPut(version) { MigrationVersion.fromVersion(version) }
+    }
+
+    /**
+     * Resolve the column indexes from the given column definitions, unless already resolved from the same instance.
+     *
+     * @param definitions The rows' column definitions.
+     */
+    private fun resolveIndexes(definitions: ColumnDefinitions) {
+        // GUARD: Skip if resolved from the same column definitions (shared by all rows of a result set)
+        if (definitions === columnDefinitions) return
+
+        for (i in COLUMNS.indices) {
+            indexes[i] = definitions.getIndexOf(COLUMNS[i])
+        }
+        columnDefinitions = definitions
+    }
+
+    /**
+     * AppliedMigrationRowMapper companion object.
+     */
+    companion object {
+
+        /**
+         * The schema migration version table columns mapped into applied migrations.
+         */
+        val COLUMNS = arrayOf(
+                "version_rank", "installed_rank", "version",
+                "description", "type", "script",
+                "checksum", "installed_on", "installed_by",
+                "execution_time", "success"
+        )
+
+        private val VERSION_RANK = 0
+        private val INSTALLED_RANK = 1
+        private val VERSION = 2
+        private val DESCRIPTION = 3
+        private val TYPE = 4
+        private val SCRIPT = 5
+        private val CHECKSUM = 6
+        private val INSTALLED_ON = 7
+        private val INSTALLED_BY = 8
+        private val EXECUTION_TIME = 9
+        private val SUCCESS = 10
+    }
+
+}
@@ -0,0 +1,138 @@
+/**
+ * File     : CqlLineReader.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.dbsupport
+
+import java.io.Closeable
+import java.io.Reader
+
+/**
+ * Reads a CQL script line by line from a character stream. Only the current line is held in memory, however large the
+ * script is. Lines are terminated by either \n, \r or \r\n, as per `BufferedReader.readLine()`.
+ *
+ * @param reader The character stream to read the script from.
+ */
+class CqlLineReader(private val reader: Reader) : Closeable {
+
+    /**
+     * The characters read ahead from the stream.
+     */
+    private val buffer = CharArray(BUFFER_SIZE)
+
+    /**
+     * The position of the next character to read in the buffer.
+     */
+    private var position = 0
+
+    /**
+     * The number of characters read ahead in the buffer.
+     */
+    private var limit = 0
+
+    /**
+     * Flag indicating whether the last line was terminated by \r, so that a following \n is skipped.
+     */
+    private var skipLineFeed = false
+
+    /**
+     * The current line, reused across lines.
+     */
+    private val line = StringBuilder()
+
+    /**
+     * The number of the last line read (starting at 1), `0` if none.
+     */
+    var lineNumber = 0
+        private set
+
+    /**
+     * Reads the next line of the script.
+     *
+     * @return The next line without its terminator, only valid until the next line is read, or `null` at the end of
+     *         the script.
+     */
+    fun readLine(): CharSequence? {
+        line.setLength(0)
+        while (true) {
+            if (position == limit && !fill()) {
+                // GUARD: A terminator at the very end of the script is not followed by an empty line
+                return if (line.length > 0) completeLine() else null
+            }
+
+            if (skipLineFeed) {
+                skipLineFeed = false
+                if (buffer[position] == '\n') {
+                    position++
+                    continue
+                }
+            }
+
+            var end = position
+            while (end < limit && buffer[end] != '\n' && buffer[end] != '\r') end++
+            line.append(buffer, position, end - position)
+            if (end == limit) {
+                position = limit
+                continue
+            }
+
+            skipLineFeed = buffer[end] == '\r'
+            position = end + 1
+            return completeLine()
+        }
+    }
+
+    /**
+     * Closes the underlying character stream.
+     */
+    override fun close() {
+        reader.close()
+    }
+
+    /**
+     * Reads ahead the next characters from the stream.
+     *
+     * @return `true` if characters were read, `false` at the end of the stream.
+     */
+    private fun fill(): Boolean {
+        val count = reader.read(buffer)
+        if (count <= 0) return false
+
+        position = 0
+        limit = count
+        return true
+    }
+
+    /**
+     * Completes the current line.
+     *
+     * @return The current line.
+     */
+    private fun completeLine(): CharSequence {
+        lineNumber++
+        return line
+    }
+
+    /**
+     * CqlLineReader companion object.
+     */
+    companion object {
+
+        /** The number of characters read ahead from the stream at a time. */
+        private val BUFFER_SIZE = 8192
+    }
+
+}
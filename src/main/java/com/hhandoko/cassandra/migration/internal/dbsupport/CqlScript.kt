@@ -21,10 +21,12 @@ package com.hhandoko.cassandra.migration.internal.dbsupport
 import com.datastax.driver.core.Session
 import com.datastax.driver.core.SimpleStatement
 import com.hhandoko.cassandra.migration.api.CassandraMigrationException
-import com.hhandoko.cassandra.migration.internal.util.StringUtils
+import com.hhandoko.cassandra.migration.api.MigrationCancelledException
+import com.hhandoko.cassandra.migration.api.SchemaAgreementStats
+import com.hhandoko.cassandra.migration.api.migration.CancellationToken
+import com.hhandoko.cassandra.migration.internal.util.StopWatch
 import com.hhandoko.cassandra.migration.internal.util.logging.LogFactory
 import com.hhandoko.cassandra.migration.internal.util.scanner.Resource
-import java.io.BufferedReader
 import java.io.IOException
 import java.io.Reader
 import java.io.StringReader
@@ -33,33 +35,63 @@ import java.util.*
 /**
  * CQL script containing a series of statements terminated by a delimiter (eg: ;).
  * Single-line (--) and multi-line (/ ** * /) comments are stripped and ignored.
+ * Schema changes are awaited to be in agreement across the cluster before executing the next statement.
+ *
+ * A streaming script is not parsed upfront. Its statements are read from the resource one at a time while it is being
+ * executed, so that only the current statement is held in memory, however large the script is.
  */
 class CqlScript {
 
+    /**
+     * The CQL statements parsed upfront, `null` for a streaming script.
+     */
+    private val statements: List<String>?
+
     /**
      * The CQL statements contained in this script.
+     * The statements of a streaming script are read from its resource (and held in memory) on each access.
      */
     val cqlStatements: List<String>
+        get() = statements ?: ArrayList<String>().apply { readStatements { add(it) } }
 
     /**
      * The resource containing the statements.
      */
     val resource: Resource?
 
+    /**
+     * The encoding of the resource.
+     */
+    private val encoding: String
+
     /**
      * The CQL script read timeout in milliseconds.
      */
     val timeout: Int
 
+    /**
+     * The schema agreement wait following schema changes.
+     */
+    val schemaAgreement: SchemaAgreement
+
+    /**
+     * Flag indicating whether the statements are read from the resource as the script is executed.
+     */
+    val isStreaming: Boolean
+
     /**
      * Creates a new CQL script from this source.
      *
      * @param cqlScriptSource The cql script as a text block with all placeholders already replaced.
+     * @param schemaAgreement The schema agreement wait following schema changes.
      */
-    constructor(cqlScriptSource: String) {
-        this.cqlStatements = parse(cqlScriptSource)
+    constructor(cqlScriptSource: String, schemaAgreement: SchemaAgreement = SchemaAgreement.DEFAULT) {
         this.resource = null
+        this.encoding = "UTF-8"
         this.timeout = 0
+        this.schemaAgreement = schemaAgreement
+        this.isStreaming = false
+        this.statements = ArrayList<String>().apply { parse(StringReader(cqlScriptSource)) { add(it) } }
     }
 
     /**
@@ -68,73 +100,139 @@ class CqlScript {
      * @param cqlScriptResource The resource containing the statements.
      * @param encoding The encoding to use.
      * @param timeout The script read timeout in seconds.
+     * @param schemaAgreement The schema agreement wait following schema changes.
+     * @param streaming Read the statements from the resource as the script is executed, rather than upfront.
      */
-    constructor(cqlScriptResource: Resource, encoding: String, timeout: Int) {
-        val cqlScriptSource = cqlScriptResource.loadAsString(encoding)
-        this.cqlStatements = parse(cqlScriptSource)
+    constructor(
+        cqlScriptResource: Resource,
+        encoding: String,
+        timeout: Int,
+        schemaAgreement: SchemaAgreement = SchemaAgreement.DEFAULT,
+        streaming: Boolean = false
+    ) {
         this.resource = cqlScriptResource
+        this.encoding = encoding
         this.timeout = timeout * 1000 // Convert from seconds to milliseconds
+        this.schemaAgreement = schemaAgreement
+        this.isStreaming = streaming
+        this.statements = if (streaming) null else ArrayList<String>().apply { readStatements { add(it) } }
     }
 
     /**
      * Executes this script against the database.
      *
+     * Each schema change (DDL) is awaited to be in agreement before executing the next statement, so that subsequent
+     * statements do not fail against a node that has not seen it yet. Data statements (DML) are executed back to back.
+     * The cancellation token is polled before each statement, so that the script stops between statements once it is
+     * cancelled.
+     *
      * @param session The Cassandra session connection to use to execute the migration.
+     * @param completedStatements The number of leading statements already completed, to skip when resuming.
+     * @param cancellationToken The cancellation token to poll.
+     * @param checkpoint Called with the number of completed statements, after each statement completes.
+     * @return The statistics of the schema agreement waits.
+     * @throws MigrationCancelledException when the script is cancelled before all its statements are executed.
      */
-    fun execute(session: Session) {
-        cqlStatements.forEach {
-            LOG.debug("Executing CQL: $it")
-            when {
-                timeout > 0 -> session.execute(SimpleStatement(it).setReadTimeoutMillis(timeout))
-                else        -> session.execute(it)
+    @Throws(MigrationCancelledException::class)
+    fun execute(
+        session: Session,
+        completedStatements: Int = 0,
+        cancellationToken: CancellationToken = CancellationToken.NONE,
+        checkpoint: (Int) -> Unit = {}
+    ): SchemaAgreementStats {
+        var stats = SchemaAgreementStats.EMPTY
+        var index = 0
+        forEachStatement { statement ->
+            // GUARD: Statements completed by a previous execution are still read, but not executed again
+            if (index >= completedStatements) {
+                cancellationToken.throwIfCancelled()
+                stats = executeStatement(session, statement, stats)
+                checkpoint(index + 1)
             }
+            index++
         }
+
+        return stats
     }
 
     /**
-     * Parses this script's source into statements.
+     * Executes this statement against the database, awaiting schema agreement if it is a schema change.
      *
-     * @param cqlScriptSource The script source to parse.
-     * @return The parsed statements.
+     * @param session The Cassandra session connection to use.
+     * @param statement The statement to execute.
+     * @param stats The statistics of the schema agreement waits so far.
+     * @return The updated statistics of the schema agreement waits.
      */
-    private fun parse(cqlScriptSource: String): List<String> {
-        return linesToStatements(readLines(StringReader(cqlScriptSource)))
+    private fun executeStatement(session: Session, statement: String, stats: SchemaAgreementStats): SchemaAgreementStats {
+        LOG.debug("Executing CQL: $statement")
+        val resultSet = when {
+            timeout > 0 -> session.execute(SimpleStatement(statement).setReadTimeoutMillis(timeout))
+            else        -> session.execute(statement)
+        }
+
+        // NOTE: Only schema changes need to be propagated across the cluster
+        if (CqlStatementType.classify(statement) != CqlStatementType.SCHEMA_CHANGE) {
+            return stats
+        }
+
+        val stopWatch = StopWatch()
+        stopWatch.start()
+        val isInAgreement = schemaAgreement.await(session, resultSet.executionInfo)
+        stopWatch.stop()
+        return stats.record(stopWatch.totalTimeMillis, isInAgreement)
     }
 
     /**
-     * Turns these lines in a series of statements.
+     * Performs the given action on each statement of this script (in order), reading them from the resource for a
+     * streaming script.
      *
-     * @param lines The lines to analyse.
-     * @return The statements contained in these lines (in order).
-    */
-    private fun linesToStatements(lines: List<String>): List<String> {
-        val statements = ArrayList<String>()
+     * @param action The action to perform on each statement.
+     */
+    private fun forEachStatement(action: (String) -> Unit) {
+        if (statements != null) {
+            statements.forEach(action)
+        } else {
+            readStatements(action)
+        }
+    }
 
-        var nonStandardDelimiter: Delimiter? = null
+    /**
+     * Reads and parses the statements of this script's resource.
+     *
+     * @param action The action to perform on each statement, as it is parsed.
+     * @throws CassandraMigrationException when the resource cannot be read.
+     */
+    private fun readStatements(action: (String) -> Unit) {
+        val resource = this.resource!!
+        try {
+            resource.openReader(encoding).use { parse(it, action) }
+        } catch (e: IOException) {
+            throw CassandraMigrationException("Unable to read CQL script ${resource.location} (encoding: $encoding)", e)
+        }
+    }
+
+    /**
+     * Parses this script's source into statements, in a single pass over its lines.
+     * Only the current statement is held in memory, each one being handed over once parsed.
+     *
+     * @param cqlScriptSource The script source to parse.
+     * @param action The action to perform on each statement (in order), as it is parsed.
+     */
+    private fun parse(cqlScriptSource: Reader, action: (String) -> Unit) {
+        val lineReader = CqlLineReader(cqlScriptSource)
         var cqlStatementBuilder = CqlStatementBuilder()
 
-        for (lineNumber in 1..lines.size) {
-            val line = lines[lineNumber - 1]
+        while (true) {
+            val line = lineReader.readLine() ?: break
 
             if (cqlStatementBuilder.isEmpty) {
-                if (!StringUtils.hasText(line)) {
+                if (!hasText(line)) {
                     // Skip empty line between statements.
                     continue
                 }
 
-                val newDelimiter = cqlStatementBuilder.extractNewDelimiterFromLine(line)
-                if (newDelimiter != null) {
-                    nonStandardDelimiter = newDelimiter
-                    // Skip this line as it was an explicit delimiter change directive outside of any statements.
-                    continue
-                }
-
-                cqlStatementBuilder.setLineNumber(lineNumber)
-
                 // Start a new statement, marking it with this line number.
-                if (nonStandardDelimiter != null) {
-                    cqlStatementBuilder.setDelimiter(nonStandardDelimiter)
-                }
+                cqlStatementBuilder.setLineNumber(lineReader.lineNumber)
             }
 
             cqlStatementBuilder.addLine(line)
@@ -143,8 +241,8 @@ class CqlScript {
                 cqlStatementBuilder = CqlStatementBuilder()
             } else if (cqlStatementBuilder.isTerminated) {
                 val cqlStatement = cqlStatementBuilder.cqlStatement
-                statements.add(cqlStatement)
                 LOG.debug("Found statement: $cqlStatement")
+                action(cqlStatement)
 
                 cqlStatementBuilder = CqlStatementBuilder()
             }
@@ -152,27 +250,21 @@ class CqlScript {
 
         // Catch any statements not followed by delimiter.
         if (!cqlStatementBuilder.isEmpty) {
-            statements.add(cqlStatementBuilder.cqlStatement)
+            action(cqlStatementBuilder.cqlStatement)
         }
-
-        return statements
     }
 
     /**
-     * Parses the textual data provided by this reader into a list of lines.
+     * Checks whether this line contains any non-whitespace character.
      *
-     * @param reader The reader for the textual data.
-     * @return The list of lines (in order).
-     * @throws IllegalStateException when the textual data parsing failed.
-     * @throws CassandraMigrationException when textual data parsing failed.
+     * @param line The line to check.
+     * @return {@code true} if it does, {@code false} if it doesn't.
      */
-    private fun readLines(reader: Reader): List<String> {
-        try {
-            return BufferedReader(reader).lineSequence().toList()
-        } catch (e: IOException) {
-            val message = if (resource != null) { "${resource.location} (${resource.locationOnDisk})" } else "lines"
-            throw CassandraMigrationException("Unable to parse $message", e)
+    private fun hasText(line: CharSequence): Boolean {
+        for (i in 0..line.length - 1) {
+            if (line[i] > ' ') return true
         }
+        return false
     }
 
     /**
@@ -18,11 +18,12 @@
  */
 package com.hhandoko.cassandra.migration.internal.dbsupport
 
-import com.hhandoko.cassandra.migration.internal.util.StringUtils
-import java.util.*
-
 /**
  * Builds a CQL statement, one line at a time.
+ *
+ * Each line is lexed in a single pass, character by character, tracking string literals ('...' and $$...$$), quoted
+ * identifiers ("..."), and comments (--, // and / ** * /) across lines. Lines are appended to the statement as ranges
+ * of the script source, so that only the final statement string is allocated.
  */
 class CqlStatementBuilder {
 
@@ -54,19 +55,14 @@ class CqlStatementBuilder {
     private var insideQuoteStringLiteral = false
 
     /**
-     * Are we currently inside an alternate multi-line string literal.
+     * Are we currently inside a $$ multi-line string literal.
      */
     private var insideAlternateQuoteStringLiteral = false
 
     /**
-     * The alternate quote that is expected to close the string literal.
+     * Are we currently inside a " quoted identifier.
      */
-    private var alternateQuote: String? = null
-
-    /**
-     * Whether the last processed line ended with a single line -- comment.
-     */
-    private var lineEndsWithSingleLineComment = false
+    private var insideQuotedIdentifier = false
 
     /**
      * Are we inside a multi-line / ** * / comment.
@@ -81,13 +77,7 @@ class CqlStatementBuilder {
     /**
      * The current delimiter to look for to terminate the statement.
      */
-    private var delimiter = defaultDelimiter
-
-    /**
-     * @return The default delimiter for this database.
-     */
-    protected val defaultDelimiter: Delimiter
-        get() = Delimiter(";", false)
+    private var delimiter = DEFAULT_DELIMITER
 
     /**
      * @param lineNumber The initial line number of this statement.
@@ -109,314 +99,134 @@ class CqlStatementBuilder {
     val cqlStatement: String
         get() = statement.toString()
 
-    /**
-     * Analyses this line and extracts the new default delimiter.
-     * This method is only called between statements and looks for explicit delimiter change directives.
-     *
-     * @param line Line to analyze.
-     * @return The new delimiter. `null` if it is the same as the current one.
-     */
-    @SuppressWarnings("UnusedParameters")
-    fun extractNewDelimiterFromLine(line: String): Delimiter? {
-        return null
-    }
-
-    /**
-     * Checks whether this line is in fact a directive disguised as a comment.
-     *
-     * @param line The line to analyse.
-     * @return {@code true} if it is a directive that should be processed by the database, {@code false} if not.
-     */
-    fun isCommentDirective(line: String): Boolean {
-        return false
-    }
-
-    /**
-     * Checks whether this line is just a single-line comment outside a statement or not.
-     *
-     * @param line The line to analyse.
-     * @return {@code true} if it is, {@code false} if not.
-     */
-    protected fun isSingleLineComment(line: String): Boolean {
-        return line.startsWith("--")
-    }
-
     /**
      * Adds this line to the current statement being built.
      *
-     * @param line The line to add.
+     * @param source The source containing the line to add.
+     * @param start The index of the start of the line in the source (inclusive).
+     * @param end The index of the end of the line in the source (exclusive), excluding the line terminator.
      */
-    fun addLine(line: String) {
+    fun addLine(source: CharSequence, start: Int = 0, end: Int = source.length) {
         if (isEmpty) {
             isEmpty = false
         } else {
-            statement.append("\n")
+            statement.append('\n')
         }
+        statement.append(source, start, end)
 
-        val lineSimplified = simplifyLine(line)
-
-        applyStateChanges(lineSimplified)
-        if (endWithOpenMultilineStringLiteral() || insideMultiLineComment) {
-            statement.append(line)
-            return
-        }
-
-        delimiter = changeDelimiterIfNecessary(lineSimplified, delimiter)
-
-        statement.append(line)
+        val lineEndsWithSingleLineComment = lex(source, start, end)
 
-        if (isCommentDirective(lineSimplified)) {
-            nonCommentStatementPartSeen = true
-        }
+        // GUARD: The statement carries on over the next line
+        if (endWithOpenMultilineStringLiteral() || insideMultiLineComment || lineEndsWithSingleLineComment) return
 
-        if (!lineEndsWithSingleLineComment && lineTerminatesStatement(lineSimplified, delimiter)) {
+        if (lineTerminatesStatement(source, start, end)) {
             stripDelimiter(statement, delimiter)
             isTerminated = true
         }
     }
 
     /**
-     * Checks whether the statement currently ends with an open multiline string literal.
+     * Checks whether the statement currently ends with an open multiline string literal (or quoted identifier).
      *
      * @return {@code true} if it does, {@code false} if it doesn't.
      */
     fun endWithOpenMultilineStringLiteral(): Boolean {
-        return insideQuoteStringLiteral || insideAlternateQuoteStringLiteral
+        return insideQuoteStringLiteral || insideAlternateQuoteStringLiteral || insideQuotedIdentifier
     }
 
     /**
      * @return Whether the current statement is only closed comments so far and can be discarded.
      */
     fun canDiscard(): Boolean {
-        return !insideAlternateQuoteStringLiteral && !insideQuoteStringLiteral && !insideMultiLineComment && !nonCommentStatementPartSeen
+        return !endWithOpenMultilineStringLiteral() && !insideMultiLineComment && !nonCommentStatementPartSeen
     }
 
     /**
-     * Simplifies this line to make it easier to parse.
+     * Lexes this line, applying the string literal and comment state changes.
+     * Escaped quotes ('' and "") close and re-open their literal, which leaves the state unchanged.
      *
-     * @param line The line to simplify.
-     * @return The simplified line.
-     */
-    protected fun simplifyLine(line: String): String {
-        return removeEscapedQuotes(line).replace("--", " -- ").replace("\\s+".toRegex(), " ").trim { it <= ' ' }.toUpperCase()
-    }
+     * @param source The source containing the line.
+     * @param start The index of the start of the line in the source (inclusive).
+     * @param end The index of the end of the line in the source (exclusive).
+     * @return {@code true} if the line ends with a single-line comment, {@code false} if not.
+     */
+    private fun lex(source: CharSequence, start: Int, end: Int): Boolean {
+        var i = start
+        while (i < end) {
+            val c = source[i]
+            val next = if (i + 1 < end) source[i + 1] else ' '
+
+            when {
+                insideMultiLineComment            -> if (c == '*' && next == '/') { insideMultiLineComment = false; i++ }
+                insideQuoteStringLiteral          -> if (c == '\'') insideQuoteStringLiteral = false
+                insideQuotedIdentifier            -> if (c == '"') insideQuotedIdentifier = false
+                insideAlternateQuoteStringLiteral -> if (c == '$' && next == '$') { insideAlternateQuoteStringLiteral = false; i++ }
+                c == '-' && next == '-'           -> return true
+                c == '/' && next == '/'           -> return true
+                c == '/' && next == '*'           -> { insideMultiLineComment = true; i++ }
+                c == '\''                         -> { insideQuoteStringLiteral = true; nonCommentStatementPartSeen = true }
+                c == '"'                          -> { insideQuotedIdentifier = true; nonCommentStatementPartSeen = true }
+                c == '$' && next == '$'           -> { insideAlternateQuoteStringLiteral = true; nonCommentStatementPartSeen = true; i++ }
+                c > ' '                           -> nonCommentStatementPartSeen = true
+            }
+            i++
+        }
 
-    /**
-     * Checks whether this line in the CQL script indicates that the statement delimiter will be different from the
-     * current one. Useful for database-specific stored procedures and block constructs.
-     *
-     * @param line The simplified line to analyse.
-     * @param delimiter The current delimiter.
-     * @return The new delimiter to use (can be the same as the current one) or `null` for no delimiter.
-     */
-    @SuppressWarnings("UnusedDeclaration")
-    protected fun changeDelimiterIfNecessary(line: String, delimiter: Delimiter): Delimiter {
-        return delimiter
+        return false
     }
 
     /**
-     * Checks whether this line terminates the current statement.
+     * Checks whether this line terminates the current statement, i.e. whether it ends with the delimiter (or only
+     * contains the delimiter if it has to be alone on its line), ignoring the surrounding whitespaces.
      *
-     * @param line The line to check.
-     * @param delimiter The current delimiter.
+     * @param source The source containing the line.
+     * @param start The index of the start of the line in the source (inclusive).
+     * @param end The index of the end of the line in the source (exclusive).
      * @return {@code true} if it does, {@code false} if it doesn't.
      */
-    private fun lineTerminatesStatement(line: String, delimiter: Delimiter?): Boolean {
-        if (delimiter == null) {
-            return false
-        }
+    private fun lineTerminatesStatement(source: CharSequence, start: Int, end: Int): Boolean {
+        var last = end
+        while (last > start && source[last - 1] <= ' ') last--
 
-        val upperCaseDelimiter = delimiter.delimiter.toUpperCase()
+        val length = delimiter.delimiter.length
+        val from = last - length
+        if (from < start || !regionMatchesIgnoreCase(source, from, delimiter.delimiter)) return false
 
+        // GUARD: The delimiter only terminates the statement if nothing else is on its line
         if (delimiter.isAloneOnLine) {
-            return line == upperCaseDelimiter
+            var first = start
+            while (first < from && source[first] <= ' ') first++
+            return first == from
         }
 
-        return line.endsWith(upperCaseDelimiter)
-    }
-
-    /**
-     * Extracts the alternate open quote from this token (if any).
-     *
-     * @param token The token to check.
-     * @return The alternate open quote. `null` if none.
-     */
-    protected fun extractAlternateOpenQuote(token: String): String? {
-        return null
-    }
-
-    /**
-     * Computes the alternate closing quote for this open quote.
-     *
-     * @param openQuote The alternate open quote.
-     * @return The close quote.
-     */
-    protected fun computeAlternateCloseQuote(openQuote: String): String {
-        return openQuote
+        return true
     }
 
     /**
-     * Applies any state changes resulting from this line being added.
-     *
-     * @param line The line that was just added to the statement.
-     */
-    protected fun applyStateChanges(line: String) {
-        // Ignore all special characters that naturally occur in CQL, but are not opening or closing string literals
-        val tokens = StringUtils.tokenizeToStringArray(line, " @<>;:=|(),+{}")
-
-        val delimitingTokens = extractStringLiteralDelimitingTokens(tokens)
-
-        lineEndsWithSingleLineComment = false
-        for (delimitingToken in delimitingTokens) {
-            if (!insideQuoteStringLiteral && !insideAlternateQuoteStringLiteral
-                    && TokenType.MULTI_LINE_COMMENT == delimitingToken) {
-                insideMultiLineComment = !insideMultiLineComment
-            }
-
-            if (!insideQuoteStringLiteral && !insideAlternateQuoteStringLiteral && !insideMultiLineComment
-                    && TokenType.SINGLE_LINE_COMMENT == delimitingToken) {
-                lineEndsWithSingleLineComment = true
-                return
-            }
-
-            if (!insideMultiLineComment && !insideQuoteStringLiteral &&
-                    TokenType.ALTERNATE_QUOTE == delimitingToken) {
-                insideAlternateQuoteStringLiteral = !insideAlternateQuoteStringLiteral
-            }
-
-            if (!insideMultiLineComment && !insideAlternateQuoteStringLiteral &&
-                    TokenType.QUOTE == delimitingToken) {
-                insideQuoteStringLiteral = !insideQuoteStringLiteral
-            }
-
-            if (!insideMultiLineComment && !insideQuoteStringLiteral && !insideAlternateQuoteStringLiteral &&
-                    TokenType.OTHER == delimitingToken) {
-                nonCommentStatementPartSeen = true
-            }
-        }
-    }
-
-    /**
-     * Extract the type of all tokens that potentially delimit string literals.
-     *
-     * @param tokens The tokens to analyse.
-     * @return The list of potentially delimiting string literals token types per token.
-     *         Tokens that do not have any impact on string delimiting are discarded.
+     * CqlStatementBuilder companion object.
      */
-    private fun extractStringLiteralDelimitingTokens(tokens: Array<String>): List<TokenType> {
-        val delimitingTokens = ArrayList<TokenType>()
-        for (token in tokens) {
-            val cleanToken = cleanToken(token)
-            var handled = false
-
-            if (alternateQuote == null) {
-                val alternateQuoteFromToken = extractAlternateOpenQuote(cleanToken)
-                if (alternateQuoteFromToken != null) {
-                    val closeQuote = computeAlternateCloseQuote(alternateQuoteFromToken)
-                    if (cleanToken.length >= alternateQuoteFromToken.length + closeQuote.length
-                            && cleanToken.startsWith(alternateQuoteFromToken) && cleanToken.endsWith(closeQuote)) {
-                        //Skip $$abc$$, ...
-                        continue
-                    }
-
-                    alternateQuote = closeQuote
-                    delimitingTokens.add(TokenType.ALTERNATE_QUOTE)
-
-                    continue
-                }
-            }
-            if (alternateQuote != null && cleanToken.endsWith(alternateQuote!!)) {
-                alternateQuote = null
-                delimitingTokens.add(TokenType.ALTERNATE_QUOTE)
-                continue
-            }
-
-            if (cleanToken.length >= 2 && cleanToken.startsWith("'") && cleanToken.endsWith("'")) {
-                //Skip '', 'abc', ...
-                continue
-            }
-            if (cleanToken.length >= 4 && cleanToken.startsWith("/*") && cleanToken.endsWith("*/")) {
-                //Skip /**/, /*comment*/, ...
-                continue
-            }
-
-            if (isSingleLineComment(cleanToken)) {
-                delimitingTokens.add(TokenType.SINGLE_LINE_COMMENT)
-                handled = true
-            }
-
-            if (cleanToken.startsWith("/*")) {
-                delimitingTokens.add(TokenType.MULTI_LINE_COMMENT)
-                handled = true
-            } else if (cleanToken.startsWith("'")) {
-                delimitingTokens.add(TokenType.QUOTE)
-                handled = true
-            }
+    companion object {
 
-            if (!cleanToken.startsWith("/*") && cleanToken.endsWith("*/")) {
-                delimitingTokens.add(TokenType.MULTI_LINE_COMMENT)
-                handled = true
-            } else if (!cleanToken.startsWith("'") && cleanToken.endsWith("'")) {
-                delimitingTokens.add(TokenType.QUOTE)
-                handled = true
-            }
+        /**
+         * The default delimiter for CQL statements.
+         */
+        private val DEFAULT_DELIMITER = Delimiter(";", false)
 
-            if (!handled) {
-                delimitingTokens.add(TokenType.OTHER)
+        /**
+         * Checks whether this source region matches this text, ignoring case.
+         *
+         * @param source The source to check.
+         * @param offset The offset of the region in the source.
+         * @param text The text to match.
+         * @return {@code true} if it does, {@code false} if it doesn't.
+         */
+        private fun regionMatchesIgnoreCase(source: CharSequence, offset: Int, text: String): Boolean {
+            for (i in 0..text.length - 1) {
+                if (Character.toUpperCase(source[offset + i]) != Character.toUpperCase(text[i])) return false
             }
+            return true
         }
 
-        return delimitingTokens
-    }
-
-    /**
-     * Removes escaped quotes from this token.
-     *
-     * @param token The token to parse.
-     * @return The cleaned token.
-     */
-    protected fun removeEscapedQuotes(token: String): String {
-        return StringUtils.replaceAll(token, "''", "")
-    }
-
-    /**
-     * Performs additional cleanup on this token, such as removing charset casting that prefixes string literals.
-     * Must be implemented in dialect specific sub classes.
-     *
-     * @param token The token to clean.
-     * @return The cleaned token.
-     */
-    protected fun cleanToken(token: String): String {
-        return token
-    }
-
-    /**
-     * The types of tokens relevant for string delimiter related parsing.
-     */
-    private enum class TokenType {
-
-        /** Some other token. */
-        OTHER,
-
-        /** Token opens or closes a ' string literal. */
-        QUOTE,
-
-        /** Token opens or closes an alternate string literal. */
-        ALTERNATE_QUOTE,
-
-        /** Token starts end of line comment. */
-        SINGLE_LINE_COMMENT,
-
-        /** Token opens or closes multi-line comment. */
-        MULTI_LINE_COMMENT
-
-    }
-
-    /**
-     * CqlStatementBuilder companion object.
-     */
-    companion object {
-
         /**
          * Strips this delimiter from this cql statement.
          *
@@ -0,0 +1,117 @@
+/**
+ * File     : CqlStatementType.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.dbsupport
+
+import java.util.*
+
+/**
+ * Type of CQL statement, as far as schema agreement is concerned.
+ */
+enum class CqlStatementType {
+
+    /** The type for schema changes (DDL), e.g. `CREATE TABLE`, `ALTER TYPE` or `DROP INDEX`. */
+    SCHEMA_CHANGE,
+
+    /** The type for data reads and writes (DML), e.g. `INSERT`, `UPDATE`, `BEGIN BATCH` or `TRUNCATE`. */
+    DATA,
+
+    /** The type for any other statement, e.g. `USE`, `GRANT` or role and user management. */
+    OTHER;
+
+    /**
+     * CqlStatementType companion object.
+     */
+    companion object {
+
+        /** Keywords starting a schema change */
+        private val SCHEMA_CHANGE_KEYWORDS = setOf("CREATE", "ALTER", "DROP")
+
+        /** Keywords starting a data read or write */
+        private val DATA_KEYWORDS = setOf("INSERT", "UPDATE", "DELETE", "BEGIN", "SELECT", "TRUNCATE")
+
+        /** Objects of `CREATE`, `ALTER` and `DROP` statements that are not part of the schema */
+        private val NON_SCHEMA_OBJECTS = setOf("ROLE", "USER")
+
+        /**
+         * Classifies this CQL statement from its leading keywords, skipping any leading comment.
+         *
+         * @param statement The CQL statement to classify.
+         * @return The type of the statement.
+         */
+        fun classify(statement: String): CqlStatementType {
+            val keywords = leadingKeywords(statement, 2)
+            val first = keywords.getOrNull(0) ?: return OTHER
+
+            return when {
+                SCHEMA_CHANGE_KEYWORDS.contains(first) -> if (NON_SCHEMA_OBJECTS.contains(keywords.getOrNull(1))) OTHER else SCHEMA_CHANGE
+                DATA_KEYWORDS.contains(first)          -> DATA
+                else                                   -> OTHER
+            }
+        }
+
+        /**
+         * Reads up to the given number of leading keywords of this CQL statement, upper-cased, skipping whitespaces and
+         * comments.
+         *
+         * @param statement The CQL statement to read.
+         * @param count The maximum number of keywords to read.
+         * @return The leading keywords.
+         */
+        private fun leadingKeywords(statement: String, count: Int): List<String> {
+            val keywords = ArrayList<String>(count)
+            var i = 0
+            while (i < statement.length && keywords.size < count) {
+                val c = statement[i]
+                when {
+                    c.isWhitespace()              -> i++
+                    statement.startsWith("--", i) -> i = skipLine(statement, i)
+                    statement.startsWith("//", i) -> i = skipLine(statement, i)
+                    statement.startsWith("/*", i) -> i = skipBlockComment(statement, i)
+                    c.isLetter()                  -> {
+                        val start = i
+                        while (i < statement.length && (statement[i].isLetterOrDigit() || statement[i] == '_')) i++
+                        keywords.add(statement.substring(start, i).toUpperCase())
+                    }
+                    else                          -> return keywords
+                }
+            }
+            return keywords
+        }
+
+        /**
+         * @param statement The CQL statement being read.
+         * @param index The index of the single-line comment.
+         * @return The index of the start of the line following the comment.
+         */
+        private fun skipLine(statement: String, index: Int): Int {
+            val eol = statement.indexOf('\n', index)
+            return if (eol < 0) statement.length else eol + 1
+        }
+
+        /**
+         * @param statement The CQL statement being read.
+         * @param index The index of the multi-line comment.
+         * @return The index following the end of the comment.
+         */
+        private fun skipBlockComment(statement: String, index: Int): Int {
+            val end = statement.indexOf("*/", index + 2)
+            return if (end < 0) statement.length else end + 2
+        }
+    }
+
+}
@@ -0,0 +1,314 @@
+/**
+ * File     : InstalledRankAllocator.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.dbsupport
+
+import com.datastax.driver.core.*
+import com.datastax.driver.core.exceptions.WriteTimeoutException
+import com.datastax.driver.core.querybuilder.QueryBuilder
+import com.datastax.driver.core.querybuilder.QueryBuilder.bindMarker
+import com.datastax.driver.core.querybuilder.QueryBuilder.eq
+import com.datastax.driver.core.utils.UUIDs
+import com.google.common.util.concurrent.AsyncFunction
+import com.google.common.util.concurrent.Futures
+import com.google.common.util.concurrent.ListenableFuture
+import com.hhandoko.cassandra.migration.api.CassandraMigrationException
+import com.hhandoko.cassandra.migration.internal.util.CachePrepareStatement
+import com.hhandoko.cassandra.migration.internal.util.FutureUtils
+import com.hhandoko.cassandra.migration.internal.util.logging.LogFactory
+import java.util.*
+import java.util.concurrent.Executor
+import java.util.concurrent.ThreadLocalRandom
+
+/**
+ * Allocates installed ranks through lightweight transactions, as a compare-and-set on a `max_rank` row.
+ *
+ * Every allocation attempt is tagged with a unique owner. Attempts that time out are resolved with a serial read,
+ * which makes allocations safe to retry, unlike counter increments.
+ *
+ * @param session The Cassandra session connection to use to allocate the installed ranks.
+ * @param keyspaceName The Cassandra keyspace name.
+ * @param tableName The Cassandra migration version table name.
+ * @param tableOptions The options of the installed rank table, as `WITH` clause options.
+ * @param consistencyLevel The consistency level for the lightweight transactions commit phase.
+ * @param serialConsistencyLevel The serial consistency level for the lightweight transactions Paxos phase, and for
+ *                               resolving timed-out attempts.
+ * @param executor The executor to run the asynchronous allocation steps on.
+ */
+class InstalledRankAllocator(
+    private val session: Session,
+    private val keyspaceName: String,
+    tableName: String,
+    private val tableOptions: List<String>,
+    private val consistencyLevel: ConsistencyLevel,
+    private val serialConsistencyLevel: ConsistencyLevel,
+    private val executor: Executor
+) {
+
+    /**
+     * The Cassandra migration installed rank table name.
+     */
+    val rankTableName = tableName + RANKS_TABLE_NAME_SUFFIX
+
+    /**
+     * The last known allocated installed rank, `null` if not known yet.
+     */
+    @Volatile private var lastKnownRank: Int? = null
+
+    private val cachePs = CachePrepareStatement.forSession(session)
+    private val createRankTableStmt: SimpleStatement by lazy { buildCreateRankTableStmt() }
+    private val insertRankStmt: PreparedStatement by lazy { buildInsertRankStmt() }
+    private val updateRankStmt: PreparedStatement by lazy { buildUpdateRankStmt() }
+    private val findRankQuery: PreparedStatement by lazy { buildFindRankQuery() }
+
+    /**
+     * Create the installed rank table if it does not exists.
+     *
+     * @return The future completion of the table creation.
+     */
+    fun createTableIfNotExistsAsync(): ListenableFuture<ResultSet> {
+        return session.executeAsync(createRankTableStmt)
+    }
+
+    /**
+     * Allocates the next installed rank.
+     * Fails with [CassandraMigrationException] when no rank could be allocated after the maximum number of attempts.
+     *
+     * @param seed Provides the highest installed rank already recorded, used if no rank has been allocated yet.
+     * @return The future allocated installed rank.
+     */
+    fun allocateAsync(seed: () -> ListenableFuture<Int>): ListenableFuture<Int> {
+        return allocateAsync(1, seed)
+    }
+
+    /**
+     * Allocates a contiguous block of the next installed ranks.
+     * Fails with [CassandraMigrationException] when no rank could be allocated after the maximum number of attempts.
+     *
+     * @param count The number of installed ranks to allocate.
+     * @param seed Provides the highest installed rank already recorded, used if no rank has been allocated yet.
+     * @return The future highest allocated installed rank of the block.
+     */
+    fun allocateAsync(count: Int, seed: () -> ListenableFuture<Int>): ListenableFuture<Int> {
+        return allocateAsync(count, seed, 1)
+    }
+
+    /**
+     * Allocates a contiguous block of the next installed ranks, retrying attempts lost to concurrent writers with a
+     * jittered exponential backoff.
+     *
+     * @param count The number of installed ranks to allocate.
+     * @param seed Provides the highest installed rank already recorded, used if no rank has been allocated yet.
+     * @param attempt The current attempt number.
+     * @return The future highest allocated installed rank of the block.
+     */
+    private fun allocateAsync(count: Int, seed: () -> ListenableFuture<Int>, attempt: Int): ListenableFuture<Int> {
+        return FutureUtils.then(tryAllocateAsync(lastKnownRank, count, seed), executor) { rank ->
+            when {
+                rank != null -> {
+                    lastKnownRank = rank
+                    Futures.immediateFuture(rank)
+                }
+                attempt >= MAX_ATTEMPTS -> {
+                    val msg = "Unable to allocate an installed rank in $rankTableName after $MAX_ATTEMPTS attempts"
+                    Futures.immediateFailedFuture<Int>(CassandraMigrationException(msg))
+                }
+                else -> {
+                    // NOTE: The backoff is jittered, so that concurrent writers do not keep colliding in lockstep
+                    val backoff = Math.min(INITIAL_BACKOFF shl (attempt - 1), MAX_BACKOFF)
+                    LOG.debug("Installed rank allocation attempt $attempt in $rankTableName lost to a concurrent writer, retrying in up to ${backoff}ms")
+                    FutureUtils.delay(backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1), executor) {
+                        allocateAsync(count, seed, attempt + 1)
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the highest installed rank allocated so far.
+     *
+     * @return The future highest allocated installed rank, or `null` if no rank has been allocated yet.
+     */
+    fun findAllocatedRankAsync(): ListenableFuture<Int?> {
+        val query = findRankQuery.bind(RANK_NAME)
+        query.consistencyLevel = this.serialConsistencyLevel
+
+        return FutureUtils.map(session.executeAsync(query), executor) { result -> extractRank(result.one()) }
+    }
+
+    /**
+     * Attempts to allocate the block of ranks following the expected current rank.
+     *
+     * @param expected The expected current rank, or `null` if the rank row is not expected to exist.
+     * @param count The number of ranks to allocate.
+     * @param seed Provides the highest installed rank already recorded, used if the rank row does not exist.
+     * @return The future highest allocated rank, or `null` if the attempt lost to a concurrent writer.
+     */
+    private fun tryAllocateAsync(expected: Int?, count: Int, seed: () -> ListenableFuture<Int>): ListenableFuture<Int?> {
+        val current = if (expected != null) Futures.immediateFuture(expected) else seed()
+
+        return FutureUtils.then(current, executor) { currentRank ->
+            val next = currentRank + count
+            val owner = UUIDs.random()
+            val statement = when (expected) {
+                null -> insertRankStmt.bind(RANK_NAME, next, owner)
+                else -> updateRankStmt.bind(next, owner, RANK_NAME, expected)
+            }
+            statement.consistencyLevel = this.consistencyLevel
+            statement.serialConsistencyLevel = this.serialConsistencyLevel
+
+            val allocated = FutureUtils.map(session.executeAsync(statement), executor) { result ->
+                if (result.wasApplied()) {
+                    next
+                } else {
+                    // NOTE: A failed lightweight transaction returns the current values of the conditional columns
+                    lastKnownRank = extractRank(result.one())
+                    null
+                }
+            }
+
+            Futures.catchingAsync(
+                    allocated,
+                    WriteTimeoutException::class.java,
+                    AsyncFunction<WriteTimeoutException, Int?> { e -> resolveTimedOutAsync(owner, e!!) },
+                    executor
+            )
+        }
+    }
+
+    /**
+     * Resolves a timed-out allocation attempt with a serial read.
+     *
+     * @param owner The owner of the timed-out attempt.
+     * @param e The attempt timeout.
+     * @return The future allocated rank, or `null` if the attempt was not applied.
+     */
+    private fun resolveTimedOutAsync(owner: UUID, e: WriteTimeoutException): ListenableFuture<Int?> {
+        LOG.debug("Installed rank allocation in $rankTableName timed out (${e.writeType}), resolving with a serial read")
+
+        // NOTE: A serial read completes any in-progress lightweight transaction before returning
+        val query = findRankQuery.bind(RANK_NAME)
+        query.consistencyLevel = this.serialConsistencyLevel
+
+        return FutureUtils.map(session.executeAsync(query), executor) { result ->
+            val row = result.one()
+            if (row != null && owner == row.getUUID("owner")) {
+                row.getInt("max_rank")
+            } else {
+                lastKnownRank = extractRank(row)
+                null
+            }
+        }
+    }
+
+    /**
+     * Extracts the current rank from the given installed rank row.
+     *
+     * @param row The installed rank row.
+     * @return The current rank, or `null` if not present.
+     */
+    private fun extractRank(row: Row?): Int? {
+        return when {
+            row == null                                   -> null
+            !row.columnDefinitions.contains("max_rank")   -> null
+            row.isNull("max_rank")                        -> null
+            else                                          -> row.getInt("max_rank")
+        }
+    }
+
+    /**
+     * Installed rank table CQL statement builder.
+     *
+     * @return Installed rank table create statement.
+     */
+    private fun buildCreateRankTableStmt(): SimpleStatement {
+        val stmt = SimpleStatement(
+                """
+                 | CREATE TABLE IF NOT EXISTS "${keyspaceName}"."${rankTableName}"
+                 | (
+                 |   name     TEXT,
+                 |   max_rank INT,
+                 |   owner    UUID,
+                 |   PRIMARY KEY (name)
+                 | ) WITH ${tableOptions.joinToString(" AND ")};
+                """.trimMargin()
+        )
+        stmt.consistencyLevel = this.consistencyLevel
+        return stmt
+    }
+
+    /**
+     * Insert initial installed rank CQL statement builder.
+     *
+     * @return Installed rank conditional insert statement.
+     */
+    private fun buildInsertRankStmt(): PreparedStatement {
+        return this.cachePs.prepare(
+                """
+                 | INSERT INTO "${keyspaceName}"."${rankTableName}" (name, max_rank, owner)
+                 | VALUES (?, ?, ?)
+                 | IF NOT EXISTS;
+                """.trimMargin()
+        )
+    }
+
+    /**
+     * Update installed rank CQL statement builder.
+     *
+     * @return Installed rank conditional update statement.
+     */
+    private fun buildUpdateRankStmt(): PreparedStatement {
+        return this.cachePs.prepare(
+                """
+                 | UPDATE "${keyspaceName}"."${rankTableName}"
+                 |    SET max_rank = ?, owner = ?
+                 |  WHERE name = ?
+                 |     IF max_rank = ?;
+                """.trimMargin()
+        )
+    }
+
+    /**
+     * Find installed rank CQL query.
+     *
+     * @return Installed rank select query.
+     */
+    private fun buildFindRankQuery(): PreparedStatement {
+        val query = QueryBuilder
+                .select()
+                .column("max_rank")
+                .column("owner")
+                .from(keyspaceName, rankTableName)
+        query.where(eq("name", bindMarker()))
+
+        return this.cachePs.prepare(query)
+    }
+
+    /**
+     * InstalledRankAllocator companion object.
+     */
+    companion object {
+        private val LOG = LogFactory.getLog(InstalledRankAllocator::class.java)
+        private val RANKS_TABLE_NAME_SUFFIX = "_ranks"
+        private val RANK_NAME = "installed_rank"
+        private val MAX_ATTEMPTS = 10
+        private val INITIAL_BACKOFF = 10L
+        private val MAX_BACKOFF = 1000L
+    }
+
+}
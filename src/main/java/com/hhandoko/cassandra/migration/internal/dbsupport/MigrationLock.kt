@@ -0,0 +1,399 @@
+/**
+ * File     : MigrationLock.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.dbsupport
+
+import com.datastax.driver.core.*
+import com.datastax.driver.core.exceptions.WriteTimeoutException
+import com.datastax.driver.core.querybuilder.QueryBuilder
+import com.datastax.driver.core.querybuilder.QueryBuilder.bindMarker
+import com.datastax.driver.core.querybuilder.QueryBuilder.eq
+import com.datastax.driver.core.utils.UUIDs
+import com.google.common.util.concurrent.ThreadFactoryBuilder
+import com.google.common.util.concurrent.Uninterruptibles
+import com.hhandoko.cassandra.migration.api.CassandraMigrationException
+import com.hhandoko.cassandra.migration.api.migration.CancellationToken
+import com.hhandoko.cassandra.migration.internal.util.CachePrepareStatement
+import com.hhandoko.cassandra.migration.internal.util.logging.LogFactory
+import java.net.InetAddress
+import java.util.*
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.ThreadLocalRandom
+import java.util.concurrent.TimeUnit
+
+/**
+ * Cluster-wide migration lock, held as a lease row written through lightweight transactions.
+ *
+ * The lease row is inserted with `IF NOT EXISTS` and a TTL, so that the lock is released by Cassandra should its owner
+ * die. The lease is renewed in the background every third of its duration for as long as the lock is held. Should the
+ * lease be lost (taken over by another owner, or expired while failing to renew it), the lock cancellation token is
+ * cancelled, so that the migrations run under the lock stop early.
+ *
+ * @param session The Cassandra session connection to use to hold the lock.
+ * @param keyspaceName The Cassandra keyspace name.
+ * @param tableName The Cassandra migration version table name.
+ * @param tableOptions The options of the lock table, as `WITH` clause options.
+ * @param consistencyLevel The consistency level for the lightweight transactions commit phase.
+ * @param serialConsistencyLevel The serial consistency level for the lightweight transactions Paxos phase, and for
+ *                               resolving timed-out attempts.
+ * @param leaseDuration The duration of the lease, in seconds.
+ */
+class MigrationLock(
+    private val session: Session,
+    private val keyspaceName: String,
+    tableName: String,
+    private val tableOptions: List<String>,
+    private val consistencyLevel: ConsistencyLevel,
+    private val serialConsistencyLevel: ConsistencyLevel,
+    private val leaseDuration: Int
+) {
+
+    /**
+     * The Cassandra migration lock table name.
+     */
+    val lockTableName = tableName + LOCK_TABLE_NAME_SUFFIX
+
+    /**
+     * The unique owner of this lock instance.
+     */
+    private val owner = UUIDs.random()
+
+    /**
+     * Flag indicating whether the lock is currently held by this instance.
+     */
+    @Volatile var isHeld = false
+        private set
+
+    /**
+     * Cancellation token of the migrations run under this lock, cancelled once the lease has been lost.
+     */
+    val cancellationToken: CancellationToken = CancellationToken.withDeadline(0L)
+
+    /**
+     * The expiry of the lease as of its last successful renewal, as per `System.nanoTime()`.
+     */
+    @Volatile private var leaseExpiry = 0L
+
+    /**
+     * The lease renewal scheduler, `null` if the lock is not held.
+     */
+    private var renewalScheduler: ScheduledExecutorService? = null
+
+    private val cachePs = CachePrepareStatement.forSession(session)
+    private val createLockTableStmt: SimpleStatement by lazy { buildCreateLockTableStmt() }
+    private val insertLockStmt: PreparedStatement by lazy { buildInsertLockStmt() }
+    private val renewLockStmt: PreparedStatement by lazy { buildRenewLockStmt() }
+    private val deleteLockStmt: PreparedStatement by lazy { buildDeleteLockStmt() }
+    private val findLockQuery: PreparedStatement by lazy { buildFindLockQuery() }
+
+    init {
+        if (leaseDuration < 1) {
+            throw CassandraMigrationException("Invalid migration lock lease duration $leaseDuration, expected at least 1 second")
+        }
+    }
+
+    /**
+     * Create the lock table if it does not exists, and wait for the schema to be in agreement before it is used.
+     * The table is looked up in the driver's schema metadata first, so that no schema change is issued once created.
+     *
+     * Instances started together on a first deployment all issue the table creation, and the concurrent schema changes
+     * may take a while to converge. The lightweight transactions taking the lock are only run once the schema is in
+     * agreement, so that they are not rejected by replicas unaware of the table. For large fleets, the lock table is
+     * best created ahead of the first deployment, so that no instance issues a schema change at all.
+     *
+     * @param schemaAgreement The schema agreement wait after the table creation.
+     */
+    fun createTableIfNotExists(schemaAgreement: SchemaAgreement = SchemaAgreement.DEFAULT) {
+        // GUARD: Skip table creation if already exists
+        val keyspaceMetadata = session.cluster.metadata.getKeyspace(Metadata.quote(keyspaceName))
+        if (keyspaceMetadata?.getTable(Metadata.quote(lockTableName)) != null) return
+
+        val resultSet = session.execute(createLockTableStmt)
+        schemaAgreement.await(session, resultSet.executionInfo)
+    }
+
+    /**
+     * Attempts to acquire the lock, once.
+     *
+     * @return `true` if the lock has been acquired, `false` if it is held by another owner.
+     */
+    fun tryAcquire(): Boolean {
+        // GUARD: Already held by this instance
+        if (isHeld) return true
+
+        val statement = insertLockStmt.bind(LOCK_NAME, owner, HOST_NAME, Date(), leaseDuration)
+        val attempted = System.nanoTime()
+        if (!executeConditional(statement)) return false
+
+        LOG.debug("Migration lock in $lockTableName acquired by $owner ($HOST_NAME)")
+        leaseExpiry = attempted + TimeUnit.SECONDS.toNanos(leaseDuration.toLong())
+        isHeld = true
+        scheduleRenewal()
+        return true
+    }
+
+    /**
+     * Acquires the lock, waiting with exponential backoff while it is held by another owner.
+     * Waiting is abandoned as soon as the given check reports that there is nothing left to do, e.g. because the owner
+     * of the lock has applied all pending migrations.
+     *
+     * @param timeout The maximum time to wait for the lock, in milliseconds.
+     * @param initialBackoff The initial wait between attempts, in milliseconds.
+     * @param maxBackoff The maximum wait between attempts, in milliseconds.
+     * @param isDone Checks whether waiting for the lock is no longer necessary.
+     * @return `true` if the lock has been acquired, `false` if waiting has been abandoned.
+     * @throws CassandraMigrationException when the lock could not be acquired within the timeout.
+     */
+    @Throws(CassandraMigrationException::class)
+    fun acquire(timeout: Long, initialBackoff: Long, maxBackoff: Long, isDone: () -> Boolean): Boolean {
+        val deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout)
+        var backoff = Math.max(initialBackoff, 1L)
+
+        while (!tryAcquire()) {
+            if (System.nanoTime() - deadline >= 0) {
+                throw CassandraMigrationException("Unable to acquire the migration lock in $lockTableName within ${timeout}ms")
+            }
+
+            // NOTE: The backoff is jittered, so that instances started together do not keep polling in lockstep
+            LOG.debug("Migration lock in $lockTableName is held by another owner, retrying in up to ${backoff}ms")
+            Uninterruptibles.sleepUninterruptibly(backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1), TimeUnit.MILLISECONDS)
+            if (isDone()) return false
+
+            backoff = Math.min(backoff * 2, Math.max(maxBackoff, 1L))
+        }
+        return true
+    }
+
+    /**
+     * Releases the lock, if held. Failing to release the lock is not fatal, as its lease eventually expires.
+     */
+    fun release() {
+        synchronized(this) {
+            renewalScheduler?.shutdownNow()
+            renewalScheduler = null
+        }
+
+        // GUARD: Not held, or lost
+        if (!isHeld) return
+
+        isHeld = false
+        try {
+            session.execute(bindConditional(deleteLockStmt.bind(LOCK_NAME, owner)))
+            LOG.debug("Migration lock in $lockTableName released by $owner")
+        } catch (e: Exception) {
+            LOG.warn("Unable to release the migration lock in $lockTableName, it will expire in ${leaseDuration}s: ${e.message}")
+        }
+    }
+
+    /**
+     * Schedule the renewal of the lease, every third of its duration.
+     */
+    private fun scheduleRenewal() {
+        val interval = TimeUnit.SECONDS.toMillis(leaseDuration.toLong()) / 3
+        val scheduler = Executors.newSingleThreadScheduledExecutor(
+                ThreadFactoryBuilder()
+                        .setDaemon(true)
+                        .setNameFormat("cassandra-migration-lock-%d")
+                        .build()
+        )
+        scheduler.scheduleWithFixedDelay({ renew() }, interval, interval, TimeUnit.MILLISECONDS)
+
+        synchronized(this) {
+            renewalScheduler = scheduler
+        }
+    }
+
+    /**
+     * Renews the lease, provided it is still owned by this instance.
+     * A failed renewal attempt is retried on the next schedule, as long as the lease has not expired.
+     */
+    private fun renew() {
+        // GUARD: Released in the meantime
+        if (!isHeld) return
+
+        val attempted = System.nanoTime()
+        try {
+            if (executeConditional(renewLockStmt.bind(leaseDuration, owner, HOST_NAME, Date(), LOCK_NAME, owner))) {
+                LOG.debug("Migration lock lease in $lockTableName renewed by $owner")
+                leaseExpiry = attempted + TimeUnit.SECONDS.toNanos(leaseDuration.toLong())
+            } else {
+                lose("has been taken over")
+            }
+        } catch (e: Exception) {
+            LOG.warn("Unable to renew the migration lock lease in $lockTableName: ${e.message}")
+            if (System.nanoTime() - leaseExpiry >= 0) lose("has expired")
+        }
+    }
+
+    /**
+     * Gives up the lost lease, and cancels the migrations run under the lock.
+     *
+     * @param reason The reason the lease has been lost, for logging.
+     */
+    private fun lose(reason: String) {
+        LOG.error("Migration lock lease in $lockTableName held by $owner $reason, stopping the migrations run under the lock")
+        isHeld = false
+        cancellationToken.cancel()
+        synchronized(this) {
+            renewalScheduler?.shutdown()
+            renewalScheduler = null
+        }
+    }
+
+    /**
+     * Sets the consistency levels of the given lightweight transaction.
+     *
+     * @param statement The lightweight transaction statement.
+     * @return The lightweight transaction statement.
+     */
+    private fun bindConditional(statement: BoundStatement): BoundStatement {
+        statement.consistencyLevel = this.consistencyLevel
+        statement.serialConsistencyLevel = this.serialConsistencyLevel
+        return statement
+    }
+
+    /**
+     * Executes the given lightweight transaction taking or keeping the lease, resolving timed-out attempts with a
+     * serial read.
+     *
+     * @param statement The lightweight transaction statement.
+     * @return `true` if the lease is owned by this instance once the lightweight transaction has completed.
+     */
+    private fun executeConditional(statement: BoundStatement): Boolean {
+        try {
+            return session.execute(bindConditional(statement)).wasApplied()
+        } catch (e: WriteTimeoutException) {
+            LOG.debug("Migration lock in $lockTableName timed out (${e.writeType}), resolving with a serial read")
+
+            // NOTE: A serial read completes any in-progress lightweight transaction before returning
+            val query = findLockQuery.bind(LOCK_NAME)
+            query.consistencyLevel = this.serialConsistencyLevel
+
+            val row = session.execute(query).one()
+            return row != null && owner == row.getUUID("owner")
+        }
+    }
+
+    /**
+     * Lock table CQL statement builder.
+     *
+     * @return Lock table create statement.
+     */
+    private fun buildCreateLockTableStmt(): SimpleStatement {
+        val stmt = SimpleStatement(
+                """
+                 | CREATE TABLE IF NOT EXISTS "${keyspaceName}"."${lockTableName}"
+                 | (
+                 |   name        TEXT,
+                 |   owner       UUID,
+                 |   host        TEXT,
+                 |   acquired_on TIMESTAMP,
+                 |   renewed_on  TIMESTAMP,
+                 |   PRIMARY KEY (name)
+                 | ) WITH ${tableOptions.joinToString(" AND ")};
+                """.trimMargin()
+        )
+        stmt.consistencyLevel = this.consistencyLevel
+        return stmt
+    }
+
+    /**
+     * Insert lock lease CQL statement builder.
+     *
+     * @return Lock lease conditional insert statement.
+     */
+    private fun buildInsertLockStmt(): PreparedStatement {
+        return this.cachePs.prepare(
+                """
+                 | INSERT INTO "${keyspaceName}"."${lockTableName}" (name, owner, host, acquired_on)
+                 | VALUES (?, ?, ?, ?)
+                 | IF NOT EXISTS
+                 | USING TTL ?;
+                """.trimMargin()
+        )
+    }
+
+    /**
+     * Renew lock lease CQL statement builder.
+     * The owner is re-written along with the new TTL, which keeps the row alive past the TTL of its initial insert.
+     *
+     * @return Lock lease conditional update statement.
+     */
+    private fun buildRenewLockStmt(): PreparedStatement {
+        return this.cachePs.prepare(
+                """
+                 | UPDATE "${keyspaceName}"."${lockTableName}"
+                 |  USING TTL ?
+                 |    SET owner = ?, host = ?, renewed_on = ?
+                 |  WHERE name = ?
+                 |     IF owner = ?;
+                """.trimMargin()
+        )
+    }
+
+    /**
+     * Delete lock lease CQL statement builder.
+     *
+     * @return Lock lease conditional delete statement.
+     */
+    private fun buildDeleteLockStmt(): PreparedStatement {
+        return this.cachePs.prepare(
+                """
+                 | DELETE FROM "${keyspaceName}"."${lockTableName}"
+                 |  WHERE name = ?
+                 |     IF owner = ?;
+                """.trimMargin()
+        )
+    }
+
+    /**
+     * Find lock lease CQL query.
+     *
+     * @return Lock lease select query.
+     */
+    private fun buildFindLockQuery(): PreparedStatement {
+        val query = QueryBuilder
+                .select()
+                .column("owner")
+                .from(keyspaceName, lockTableName)
+        query.where(eq("name", bindMarker()))
+
+        return this.cachePs.prepare(query)
+    }
+
+    /**
+     * MigrationLock companion object.
+     */
+    companion object {
+        private val LOG = LogFactory.getLog(MigrationLock::class.java)
+        private val LOCK_TABLE_NAME_SUFFIX = "_lock"
+        private val LOCK_NAME = "migration"
+
+        /**
+         * The local host name, recorded against the lease for diagnostics.
+         */
+        private val HOST_NAME: String by lazy {
+            try {
+                InetAddress.getLocalHost().hostName
+            } catch (e: Exception) {
+                "unknown"
+            }
+        }
+    }
+
+}
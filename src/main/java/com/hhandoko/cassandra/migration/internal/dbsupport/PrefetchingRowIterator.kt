@@ -0,0 +1,55 @@
+/**
+ * File     : PrefetchingRowIterator.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.dbsupport
+
+import com.datastax.driver.core.ResultSet
+import com.datastax.driver.core.Row
+import java.util.*
+
+/**
+ * Iterates over the rows of a paged result set, optionally fetching the next page in the background once half of the
+ * current page has been consumed.
+ *
+ * @param resultSet The paged result set to iterate over.
+ * @param prefetch True to fetch the next page asynchronously, before the current page is exhausted.
+ */
+class PrefetchingRowIterator(private val resultSet: ResultSet, private val prefetch: Boolean) : Iterator<Row> {
+
+    /**
+     * The number of rows in the first page, used to decide when to prefetch the next page.
+     */
+    private val pageSize = resultSet.availableWithoutFetching
+
+    /**
+     * @return `true` if there are more rows, blocking on the next page if it has not been fetched yet.
+     */
+    override fun hasNext(): Boolean {
+        return !resultSet.isExhausted
+    }
+
+    /**
+     * @return The next row.
+     */
+    override fun next(): Row {
+        if (prefetch && !resultSet.isFullyFetched && resultSet.availableWithoutFetching == pageSize / 2) {
+            resultSet.fetchMoreResults()
+        }
+        return resultSet.one() ?: throw NoSuchElementException()
+    }
+
+}
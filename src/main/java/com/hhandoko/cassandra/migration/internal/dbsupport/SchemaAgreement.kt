@@ -0,0 +1,74 @@
+/**
+ * File     : SchemaAgreement.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.dbsupport
+
+import com.datastax.driver.core.ExecutionInfo
+import com.datastax.driver.core.Session
+import com.google.common.util.concurrent.Uninterruptibles
+import com.hhandoko.cassandra.migration.internal.util.logging.LogFactory
+import java.util.concurrent.TimeUnit
+
+/**
+ * Waits for the schema to be in agreement across the cluster, e.g. after a schema change.
+ *
+ * @param timeout The maximum time to wait for schema agreement, in milliseconds, `0` not to wait.
+ * @param pollInterval The interval between schema agreement checks, in milliseconds.
+ */
+class SchemaAgreement(val timeout: Long, val pollInterval: Long) {
+
+    /**
+     * Waits for the schema to be in agreement across the cluster, for up to the timeout.
+     * Carries on regardless once the wait is over, as the schema eventually converges.
+     *
+     * @param session The Cassandra session connection to check the schema agreement with.
+     * @param executionInfo The execution info of the schema change, if any.
+     * @return `true` if the schema is in agreement, `false` if the wait timed out.
+     */
+    fun await(session: Session, executionInfo: ExecutionInfo? = null): Boolean {
+        // GUARD: The driver already waited for the schema change to be in agreement before completing it
+        if (executionInfo?.isSchemaInAgreement ?: false) return true
+
+        // GUARD: Schema agreement wait is disabled
+        if (timeout <= 0) return true
+
+        val metadata = session.cluster.metadata
+        val deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout)
+        while (!metadata.checkSchemaAgreement()) {
+            if (System.nanoTime() - deadline >= 0) {
+                LOG.warn("Schema is not in agreement after ${timeout}ms, carrying on")
+                return false
+            }
+            Uninterruptibles.sleepUninterruptibly(pollInterval, TimeUnit.MILLISECONDS)
+        }
+
+        return true
+    }
+
+    /**
+     * SchemaAgreement companion object.
+     */
+    companion object {
+        private val LOG = LogFactory.getLog(SchemaAgreement::class.java)
+
+        /**
+         * The default schema agreement wait, up to 10 seconds, checked every 200 milliseconds.
+         */
+        val DEFAULT = SchemaAgreement(10000L, 200L)
+    }
+
+}
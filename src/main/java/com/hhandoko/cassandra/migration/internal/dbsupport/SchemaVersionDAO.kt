@@ -21,15 +21,28 @@ package com.hhandoko.cassandra.migration.internal.dbsupport
 import com.datastax.driver.core.*
 import com.datastax.driver.core.exceptions.InvalidQueryException
 import com.datastax.driver.core.querybuilder.QueryBuilder
+import com.datastax.driver.core.querybuilder.QueryBuilder.bindMarker
 import com.datastax.driver.core.querybuilder.QueryBuilder.eq
+import com.datastax.driver.core.querybuilder.QueryBuilder.gt
 import com.datastax.driver.core.querybuilder.Select
+import com.google.common.base.Function
+import com.google.common.util.concurrent.Futures
+import com.google.common.util.concurrent.ListenableFuture
+import com.hhandoko.cassandra.migration.api.CassandraMigrationException
 import com.hhandoko.cassandra.migration.api.MigrationType
 import com.hhandoko.cassandra.migration.api.MigrationVersion
 import com.hhandoko.cassandra.migration.api.configuration.KeyspaceConfiguration
+import com.hhandoko.cassandra.migration.api.configuration.RankAllocation
+import com.hhandoko.cassandra.migration.api.configuration.TableLayout
 import com.hhandoko.cassandra.migration.internal.metadatatable.AppliedMigration
+import com.hhandoko.cassandra.migration.internal.metadatatable.MigrationProgress
+import com.hhandoko.cassandra.migration.internal.metadatatable.SchemaVersionSnapshot
+import com.hhandoko.cassandra.migration.internal.metadatatable.SchemaVersionSummary
 import com.hhandoko.cassandra.migration.internal.util.CachePrepareStatement
+import com.hhandoko.cassandra.migration.internal.util.FutureUtils
 import com.hhandoko.cassandra.migration.internal.util.logging.LogFactory
 import java.util.*
+import java.util.concurrent.Executor
 
 /**
  * Schema migrations table Data Access Object.
@@ -37,11 +50,102 @@ import java.util.*
  * @param session The Cassandra session connection to use to execute the migration.
  * @param keyspaceConfig The Cassandra keyspace to connect to.
  * @param tableName The Cassandra migration version table name.
+ *                  With the V2 table layout, the migration history is stored in the table with a `_v2` suffix.
+ * @param executor The executor to run the asynchronous operations' steps on, rather than the driver's I/O threads.
+ *                 The synchronous operations wait for their asynchronous counterpart, while the asynchronous operations
+ *                 never block, including their table existence checks. The cached checks and reads are volatile, as
+ *                 they are updated from the executor threads.
  */
-open class SchemaVersionDAO(private val session: Session, val keyspaceConfig: KeyspaceConfiguration, val tableName: String) {
+open class SchemaVersionDAO(
+    private val session: Session,
+    val keyspaceConfig: KeyspaceConfiguration,
+    val tableName: String,
+    private val executor: Executor = FutureUtils.DEFAULT_EXECUTOR
+) {
 
     private val cachePs: CachePrepareStatement
-    private val consistencyLevel: ConsistencyLevel
+    private val readConsistencyLevel: ConsistencyLevel
+    private val writeConsistencyLevel: ConsistencyLevel
+    private val serialConsistencyLevel: ConsistencyLevel
+
+    /**
+     * Cached result of the migration tables existence check, `null` if it has not been checked yet, or the tables
+     * were not found.
+     */
+    @Volatile private var tablesExistCache: Boolean? = null
+
+    /**
+     * The Cassandra migration version table name, as per the configured table layout.
+     */
+    private val versionTableName = when (keyspaceConfig.tableLayout) {
+        TableLayout.V1 -> tableName
+        TableLayout.V2 -> tableName + V2_TABLE_NAME_SUFFIX
+    }
+
+    /**
+     * The version rank index of the recorded migrations, used to calculate the version rank of new migrations.
+     * Seeded from the migration history read and kept up-to-date on every insert, `null` if it has not been seeded yet.
+     */
+    @Volatile private var versionRankIndex: VersionRankIndex? = null
+
+    /**
+     * Maps the schema migration version table rows into applied migrations.
+     */
+    private val rowMapper = AppliedMigrationRowMapper()
+
+    /**
+     * The Cassandra migration summary table name.
+     */
+    private val summaryTableName = tableName + SUMMARY_TABLE_NAME_SUFFIX
+
+    /**
+     * Cached summary of the recorded migrations, `null` if it has not been read yet.
+     */
+    @Volatile private var summaryCache: SchemaVersionSummary? = null
+
+    /**
+     * Flag indicating whether the summary table is known to exist.
+     */
+    @Volatile private var summaryTableExists = false
+
+    /**
+     * Cached result of the V1 migration history copy check, `null` if it has not been checked yet.
+     * The copy is pending while the V1 layout table exists and the copy has not been marked as completed.
+     */
+    @Volatile private var v1CopyPendingCache: Boolean? = null
+
+    /**
+     * The Cassandra migration archive table name.
+     */
+    private val archiveTableName = tableName + ARCHIVE_TABLE_NAME_SUFFIX
+
+    /**
+     * Cached snapshot of the archived migrations, `null` if it has not been read yet.
+     */
+    @Volatile private var snapshotCache: SchemaVersionSnapshot? = null
+
+    /**
+     * The Cassandra migration progress table name.
+     */
+    private val progressTableName = tableName + PROGRESS_TABLE_NAME_SUFFIX
+
+    /**
+     * Flag indicating whether the progress table is known to exist.
+     */
+    @Volatile private var progressTableExists = false
+
+    /**
+     * The options of the migration tables, as `WITH` clause options, applied when the tables are created.
+     */
+    private val tableOptions = buildTableOptions()
+
+    /**
+     * The partition key bind values for the migration history queries, as per the configured table layout.
+     */
+    private val partitionKeyValues: Array<Any?> = when (keyspaceConfig.tableLayout) {
+        TableLayout.V1 -> emptyArray()
+        TableLayout.V2 -> arrayOf(tableName)
+    }
 
     // TODO: Break SchemaVersionDAO into service and table-specific mappings.
     // NOTE: SchemaVersionDAO might be able to be broken down further into service (i.e. logic) and actual data access /
@@ -50,87 +154,445 @@ open class SchemaVersionDAO(private val session: Session, val keyspaceConfig: Ke
     //       than separate private methods.
     private val createSchemaMigrationTableStmt: SimpleStatement by lazy { buildCreateSchemaMigrationTableStmt() }
     private val createSchemaMigrationCounterTableStmt: SimpleStatement by lazy { buildCreateSchemaMigrationCounterTableStmt() }
-    private val countSchemaMigrationTableQuery: Select by lazy { buildCountSchemaMigrationTableQuery() }
-    private val countSchemaMigrationCounterTableQuery: Select by lazy { buildCountSchemaMigrationCounterTableQuery() }
     private val insertSchemaMigrationTableStmt: PreparedStatement by lazy { buildInsertSchemaMigrationRecordStmt() }
-    private val findAppliedMigrationsQuery: Select by lazy { buildFindAppliedMigrationsQuery() }
-    private val incrementInstalledRankStmt: SimpleStatement by lazy { buildIncrementInstalledRankStmt() }
-    private val findInstalledRankCountColQuery: Select by lazy { buildFindInstalledRankCountColQuery() }
-    private val findVersionRankQuery: Select by lazy { buildFindVersionRankQuery() }
+    private val findAppliedMigrationsQuery: PreparedStatement by lazy { buildFindAppliedMigrationsQuery() }
+    private val incrementInstalledRankStmt: PreparedStatement by lazy { buildIncrementInstalledRankStmt() }
+    private val findInstalledRankCountColQuery: PreparedStatement by lazy { buildFindInstalledRankCountColQuery() }
+    private val findVersionRankQuery: PreparedStatement by lazy { buildFindVersionRankQuery() }
     private val updateVersionRankStmt: PreparedStatement by lazy { buildUpdateVersionRankStmt() }
+    private val findV1AppliedMigrationsQuery: PreparedStatement by lazy { buildFindV1AppliedMigrationsQuery() }
+    private val copySchemaMigrationRecordStmt: PreparedStatement by lazy { buildCopySchemaMigrationRecordStmt() }
+    private val findV1CopyMarkerQuery: PreparedStatement by lazy { buildFindV1CopyMarkerQuery() }
+    private val updateV1CopyMarkerStmt: PreparedStatement by lazy { buildUpdateV1CopyMarkerStmt() }
+    private val findAppliedMigrationByKeyQuery: PreparedStatement by lazy { buildFindAppliedMigrationByKeyQuery() }
+    private val findRecordedAfterRankQuery: PreparedStatement by lazy { buildFindRecordedAfterRankQuery() }
+    private val createSummaryTableStmt: SimpleStatement by lazy { buildCreateSummaryTableStmt() }
+    private val findSummaryQuery: PreparedStatement by lazy { buildFindSummaryQuery() }
+    private val updateSummaryStmt: PreparedStatement by lazy { buildUpdateSummaryStmt() }
+    private val updateSummaryFingerprintStmt: PreparedStatement by lazy { buildUpdateSummaryFingerprintStmt() }
+    private val createArchiveTableStmt: SimpleStatement by lazy { buildCreateArchiveTableStmt() }
+    private val findSnapshotQuery: PreparedStatement by lazy { buildFindSnapshotQuery() }
+    private val insertSnapshotStmt: PreparedStatement by lazy { buildInsertSnapshotStmt() }
+    private val deleteAppliedMigrationStmt: PreparedStatement by lazy { buildDeleteAppliedMigrationStmt() }
+    private val createProgressTableStmt: SimpleStatement by lazy { buildCreateProgressTableStmt() }
+    private val findProgressQuery: PreparedStatement by lazy { buildFindProgressQuery() }
+    private val insertProgressStmt: PreparedStatement by lazy { buildInsertProgressStmt() }
+    private val deleteProgressStmt: PreparedStatement by lazy { buildDeleteProgressStmt() }
+    private val installedRankAllocator: InstalledRankAllocator by lazy {
+        InstalledRankAllocator(
+                session,
+                keyspaceConfig.name!!,
+                tableName,
+                tableOptions,
+                writeConsistencyLevel,
+                serialConsistencyLevel,
+                executor
+        )
+    }
 
     init {
-        this.cachePs = CachePrepareStatement(session)
+        this.cachePs = CachePrepareStatement.forSession(session)
 
         // If running on a single host, don't force ConsistencyLevel.ALL
         val isClustered = session.cluster.metadata.allHosts.size > 1
         // Use configuration consistency if provided, otherwise default to `ALL` on cluster or `ONE` on single host
         val consistencyDefined = keyspaceConfig.consistency != null
 
-        this.consistencyLevel = when {
+        val consistencyLevel = when {
             consistencyDefined -> keyspaceConfig.consistency!!
             isClustered        -> ConsistencyLevel.ALL
             else               -> ConsistencyLevel.ONE
         }
+
+        // Reads and writes can each override the keyspace consistency, e.g. with `LOCAL_QUORUM` on multi-DC clusters
+        this.readConsistencyLevel = keyspaceConfig.readConsistency ?: consistencyLevel
+        this.writeConsistencyLevel = keyspaceConfig.writeConsistency ?: consistencyLevel
+        this.serialConsistencyLevel = keyspaceConfig.serialConsistency
+
+        if (!serialConsistencyLevel.isSerial) {
+            throw CassandraMigrationException("Invalid serial consistency level $serialConsistencyLevel, expected SERIAL or LOCAL_SERIAL")
+        }
     }
 
     /**
      * Create schema migration version table if it does not exists.
+     * With the V2 table layout, any existing V1 migration history is copied into the table, until the copy completes.
      */
     fun createTablesIfNotExist() {
-        // GUARD: Skip table creation if already exists
-        if (tablesExist()) return
+        FutureUtils.getUninterruptibly(createTablesIfNotExistAsync())
+    }
 
-        session.execute(createSchemaMigrationTableStmt)
-        session.execute(createSchemaMigrationCounterTableStmt)
+    /**
+     * Create schema migration version table if it does not exists, asynchronously.
+     * With the V2 table layout, any existing V1 migration history is copied into the table, until the copy completes.
+     *
+     * @return The future completion of the tables creation.
+     */
+    fun createTablesIfNotExistAsync(): ListenableFuture<Unit> {
+        // NOTE: An interrupted V1 migration history copy is re-run, as the tables might already exist
+        val checked = then(isV1CopyPendingAsync()) { upgradeFromV1 ->
+            map(tablesExistAsync()) { exists -> if (exists && !upgradeFromV1) null else upgradeFromV1 }
+        }
+
+        return then(checked) { upgradeFromV1 ->
+            // GUARD: Skip table creation if already exists
+            if (upgradeFromV1 == null) {
+                Futures.immediateFuture(Unit)
+            } else {
+                createTablesAsync(upgradeFromV1)
+            }
+        }
+    }
+
+    /**
+     * Create the schema migration version tables, asynchronously.
+     *
+     * @param upgradeFromV1 True to copy the V1 migration history into the V2 layout table once created.
+     * @return The future completion of the tables creation.
+     */
+    private fun createTablesAsync(upgradeFromV1: Boolean): ListenableFuture<Unit> {
+        val versionTableCreated = session.executeAsync(createSchemaMigrationTableStmt)
+        val rankTableCreated = then(versionTableCreated) {
+            when (keyspaceConfig.rankAllocation) {
+                RankAllocation.COUNTER -> session.executeAsync(createSchemaMigrationCounterTableStmt)
+                RankAllocation.LWT     -> installedRankAllocator.createTableIfNotExistsAsync()
+            }
+        }
+        val summaryTableCreated = then(rankTableCreated) { session.executeAsync(createSummaryTableStmt) }
+        val copied = then(summaryTableCreated) {
+            if (upgradeFromV1) copyV1AppliedMigrationsAsync() else Futures.immediateFuture(Unit)
+        }
+
+        return map(copied) {
+            // NOTE: The tables are expected to exist from this point onwards
+            tablesExistCache = true
+            summaryTableExists = true
+        }
     }
 
     /**
      * Check if schema migration version table has already been created.
+     * Once found, the tables are known to exist for the lifetime of this DAO. Missing tables are checked again, as
+     * they might be created by another instance in the meantime (e.g. while waiting for the migration lock).
      *
      * @return `true` if schema migration version table exists in the keyspace.
      */
     open fun tablesExist(): Boolean {
-        var schemaVersionTableExists = false
-        var schemaVersionCountsTableExists = false
+        return FutureUtils.getUninterruptibly(tablesExistAsync())
+    }
+
+    /**
+     * Check if schema migration version table has already been created, asynchronously.
+     * Once found, the tables are known to exist for the lifetime of this DAO.
+     *
+     * @return The future flag indicating whether the schema migration version table exists in the keyspace.
+     */
+    fun tablesExistAsync(): ListenableFuture<Boolean> {
+        val cached = tablesExistCache
+        if (cached != null) return Futures.immediateFuture(cached)
+
+        val rankTableName = when (keyspaceConfig.rankAllocation) {
+            RankAllocation.COUNTER -> tableName + COUNTS_TABLE_NAME_SUFFIX
+            RankAllocation.LWT     -> installedRankAllocator.rankTableName
+        }
+        val exists = then(tableExistsAsync(versionTableName)) { versionTableExists ->
+            if (versionTableExists) tableExistsAsync(rankTableName) else Futures.immediateFuture(false)
+        }
+
+        return map(exists) { found ->
+            if (found) tablesExistCache = true
+            found
+        }
+    }
+
+    /**
+     * Check if the migration history can be read, either from the schema migration version table or, while the V1
+     * migration history has not been copied yet, from the V1 layout table.
+     *
+     * @return The future flag indicating whether the migration history can be read.
+     */
+    private fun historyExistsAsync(): ListenableFuture<Boolean> {
+        return then(tablesExistAsync()) { exists ->
+            if (exists) Futures.immediateFuture(true) else isV1CopyPendingAsync()
+        }
+    }
+
+    /**
+     * Check if the V1 migration history still has to be copied into the V2 layout table, i.e. the V1 layout table
+     * exists and the copy has not been marked as completed.
+     * The result is cached for the lifetime of this DAO, and only invalidated when the copy completes.
+     *
+     * @return `true` if the V1 migration history copy is pending.
+     */
+    private fun isV1CopyPending(): Boolean {
+        return FutureUtils.getUninterruptibly(isV1CopyPendingAsync())
+    }
+
+    /**
+     * Check if the V1 migration history still has to be copied into the V2 layout table, asynchronously.
+     *
+     * @return The future flag indicating whether the V1 migration history copy is pending.
+     */
+    private fun isV1CopyPendingAsync(): ListenableFuture<Boolean> {
+        // GUARD: Nothing to copy with the V1 table layout
+        if (keyspaceConfig.tableLayout == TableLayout.V1) return Futures.immediateFuture(false)
+
+        val cached = v1CopyPendingCache
+        if (cached != null) return Futures.immediateFuture(cached)
+
+        val pending = then(tableExistsAsync(tableName)) { v1TableExists ->
+            if (v1TableExists) map(hasV1CopyMarkerAsync()) { !it } else Futures.immediateFuture(false)
+        }
+
+        return map(pending) { found ->
+            v1CopyPendingCache = found
+            found
+        }
+    }
 
-        try {
-            val resultsSchemaVersion = session.execute(countSchemaMigrationTableQuery)
-            if (resultsSchemaVersion.one() != null) {
-                schemaVersionTableExists = true
+    /**
+     * Check if the V1 migration history copy has been marked as completed in the summary table, asynchronously.
+     *
+     * @return The future flag indicating whether the V1 migration history copy has completed.
+     */
+    private fun hasV1CopyMarkerAsync(): ListenableFuture<Boolean> {
+        return then(summaryTableExistsAsync()) { exists ->
+            // GUARD: No marker if the summary table does not exists
+            if (!exists) {
+                Futures.immediateFuture(false)
+            } else {
+                map(session.executeAsync(bindRead(findV1CopyMarkerQuery, tableName))) { rows ->
+                    val row = rows.one()
+                    row != null && !row.isNull("v1_copied_on")
+                }
             }
-        } catch (e: InvalidQueryException) {
-            LOG.debug("No schema version table found with a name of " + tableName)
         }
+    }
+
+    /**
+     * Check if the given table has already been created.
+     *
+     * @param table The table name to check.
+     * @return `true` if the table exists in the keyspace.
+     */
+    private fun tableExists(table: String): Boolean {
+        return FutureUtils.getUninterruptibly(tableExistsAsync(table))
+    }
+
+    /**
+     * Check if the given table has already been created, asynchronously.
+     *
+     * @param table The table name to check.
+     * @return The future flag indicating whether the table exists in the keyspace.
+     */
+    private fun tableExistsAsync(table: String): ListenableFuture<Boolean> {
+        val exists = if (keyspaceConfig.queryTableCheck) tableExistsByQueryAsync(table) else tableExistsByMetadataAsync(table)
 
-        try {
-            val resultsSchemaVersionCounts = session.execute(countSchemaMigrationCounterTableQuery)
-            if (resultsSchemaVersionCounts.one() != null) {
-                schemaVersionCountsTableExists = true
+        return map(exists) { found ->
+            if (!found) {
+                LOG.debug("No schema version table found with a name of " + table)
             }
-        } catch (e: InvalidQueryException) {
-            LOG.debug("No schema version counts table found with a name of " + tableName + COUNTS_TABLE_NAME_SUFFIX)
+            found
         }
+    }
 
-        return schemaVersionTableExists && schemaVersionCountsTableExists
+    /**
+     * Check if the given table has already been created, using the driver's schema metadata.
+     * Falls back to a query-based check if the schema metadata for the keyspace is not available (e.g. disabled).
+     *
+     * @param table The table name to check.
+     * @return The future flag indicating whether the table exists in the keyspace.
+     */
+    private fun tableExistsByMetadataAsync(table: String): ListenableFuture<Boolean> {
+        val keyspaceMetadata = session.cluster.metadata.getKeyspace(Metadata.quote(keyspaceConfig.name))
+        if (keyspaceMetadata == null) {
+            LOG.debug("No schema metadata found for keyspace ${keyspaceConfig.name}, falling back to query-based table check")
+            return tableExistsByQueryAsync(table)
+        }
+
+        return Futures.immediateFuture(keyspaceMetadata.getTable(Metadata.quote(table)) != null)
+    }
+
+    /**
+     * Check if the given table has already been created, by querying the table directly.
+     * Used for embedded or older Cassandra versions where the driver's schema metadata cannot be relied upon.
+     *
+     * @param table The table name to check.
+     * @return The future flag indicating whether the table exists in the keyspace.
+     */
+    private fun tableExistsByQueryAsync(table: String): ListenableFuture<Boolean> {
+        val found = map(session.executeAsync(buildTableExistsQuery(table))) { rows -> rows.one() != null }
+
+        return Futures.catching(
+                found,
+                InvalidQueryException::class.java,
+                Function<InvalidQueryException, Boolean> { false },
+                executor
+        )
+    }
+
+    /**
+     * Copy the applied migrations from the V1 layout schema migration version table into the V2 layout table.
+     * The copy is idempotent, as the records are keyed by their installed rank, and is marked as completed in the
+     * summary table once all the records have been copied. Until then, the migration history is read from the V1
+     * layout table, and the copy is re-run by the next tables creation.
+     *
+     * @return The future completion of the copy.
+     */
+    private fun copyV1AppliedMigrationsAsync(): ListenableFuture<Unit> {
+        LOG.info("Upgrading schema version table $tableName to $versionTableName (single partition layout)")
+
+        val v1Rows = then(session.executeAsync(bindRead(findV1AppliedMigrationsQuery))) { collectAsync(it, ArrayList<Row>()) { row -> row } }
+        val copied = then(v1Rows) { rows ->
+            Futures.allAsList(rows.map { row ->
+                session.executeAsync(bindWrite(
+                        copySchemaMigrationRecordStmt,
+                        tableName,
+                        row.getInt("installed_rank"),
+                        row.getInt("version_rank"),
+                        row.getString("version"),
+                        row.getString("description"),
+                        row.getString("type"),
+                        row.getString("script"),
+                        if (row.isNull("checksum")) null else row.getInt("checksum"),
+                        row.getTimestamp("installed_on"),
+                        row.getString("installed_by"),
+                        row.getInt("execution_time"),
+                        row.getBool("success")
+                ))
+            })
+        }
+
+        val marked = then(copied) { results ->
+            map(session.executeAsync(bindWrite(updateV1CopyMarkerStmt, Date(), tableName))) { results.size }
+        }
+
+        return map(marked) { count ->
+            v1CopyPendingCache = false
+            LOG.info("Copied $count applied migration(s) from $tableName to $versionTableName")
+        }
     }
 
     /**
      * Add applied migration record into the schema migration version table.
      *
      * @param appliedMigration The applied migration.
+     * @return The applied migration as recorded, including its version and installed ranks.
      */
-    fun addAppliedMigration(appliedMigration: AppliedMigration) {
-        createTablesIfNotExist()
+    fun addAppliedMigration(appliedMigration: AppliedMigration): AppliedMigration {
+        return FutureUtils.getUninterruptibly(addAppliedMigrationAsync(appliedMigration))
+    }
 
-        val versionRank = calculateVersionRank(appliedMigration.version!!)
-        val installedRank = calculateInstalledRank()
+    /**
+     * Add applied migration record into the schema migration version table, asynchronously.
+     *
+     * @param appliedMigration The applied migration.
+     * @return The future applied migration as recorded, including its version and installed ranks.
+     */
+    fun addAppliedMigrationAsync(appliedMigration: AppliedMigration): ListenableFuture<AppliedMigration> {
+        val version = appliedMigration.version!!
+        val summary = then(createTablesIfNotExistAsync()) { findSummaryAsync() }
+
+        return then(summary) { current ->
+            val previous = current ?: SchemaVersionSummary.EMPTY
 
-        val statement = boundInsertSchemaMigrationRecordStmt(versionRank, installedRank, appliedMigration)
+            then(calculateVersionRankAsync(version)) { versionRank ->
+                then(calculateInstalledRankAsync()) { installedRank ->
+                    val statement = boundInsertSchemaMigrationRecordStmt(versionRank, installedRank, appliedMigration)
+
+                    then(session.executeAsync(statement)) {
+                        addToVersionRankIndex(version, installedRank)
+
+                        val recordedMigration = AppliedMigration(
+                                versionRank,
+                                installedRank,
+                                version,
+                                appliedMigration.description!!,
+                                appliedMigration.type!!,
+                                appliedMigration.script ?: "",
+                                appliedMigration.checksum,
+                                Date(),
+                                appliedMigration.installedBy ?: "",
+                                appliedMigration.executionTime,
+                                appliedMigration.isSuccess
+                        )
 
-        session.execute(statement)
+                        map(recordSummaryOrDeferAsync(previous, listOf(recordedMigration))) {
+                            LOG.debug("Schema version table $tableName successfully updated to reflect changes")
+                            recordedMigration
+                        }
+                    }
+                }
+            }
+        }
+    }
 
-        LOG.debug("Schema version table $tableName successfully updated to reflect changes")
+    /**
+     * Add applied migration records into the schema migration version table, as a single logged batch.
+     *
+     * @param appliedMigrations The applied migrations, in the order they have been applied.
+     * @return The applied migrations as recorded, including their version and installed ranks.
+     */
+    fun addAppliedMigrations(appliedMigrations: List<AppliedMigration>): List<AppliedMigration> {
+        return FutureUtils.getUninterruptibly(addAppliedMigrationsAsync(appliedMigrations))
+    }
+
+    /**
+     * Add applied migration records into the schema migration version table, as a single logged batch, asynchronously.
+     * The installed ranks are allocated as a contiguous block, and the summary is updated once the batch is applied.
+     *
+     * @param appliedMigrations The applied migrations, in the order they have been applied.
+     * @return The future applied migrations as recorded, including their version and installed ranks.
+     */
+    fun addAppliedMigrationsAsync(appliedMigrations: List<AppliedMigration>): ListenableFuture<List<AppliedMigration>> {
+        // GUARD: Nothing to record
+        if (appliedMigrations.isEmpty()) return Futures.immediateFuture<List<AppliedMigration>>(emptyList())
+
+        val summary = then(createTablesIfNotExistAsync()) { findSummaryAsync() }
+
+        return then(summary) { current ->
+            val previous = current ?: SchemaVersionSummary.EMPTY
+
+            then(versionRankIndexAsync()) { index ->
+                then(calculateInstalledRankAsync(appliedMigrations.size)) { highestInstalledRank ->
+                    val batch = BatchStatement(BatchStatement.Type.LOGGED)
+                    batch.consistencyLevel = this.writeConsistencyLevel
+
+                    // NOTE: Each recorded version is added to the (shared) version rank index before ranking the next one
+                    val firstInstalledRank = highestInstalledRank - appliedMigrations.size + 1
+                    val recordedMigrations = appliedMigrations.mapIndexed { i, appliedMigration ->
+                        val version = appliedMigration.version!!
+                        val versionRank = index.rankOf(version)
+                        val installedRank = firstInstalledRank + i
+
+                        batch.add(boundInsertSchemaMigrationRecordStmt(versionRank, installedRank, appliedMigration))
+                        addToVersionRankIndex(version, installedRank)
+
+                        AppliedMigration(
+                                versionRank,
+                                installedRank,
+                                version,
+                                appliedMigration.description!!,
+                                appliedMigration.type!!,
+                                appliedMigration.script ?: "",
+                                appliedMigration.checksum,
+                                Date(),
+                                appliedMigration.installedBy ?: "",
+                                appliedMigration.executionTime,
+                                appliedMigration.isSuccess
+                        )
+                    }
+
+                    // NOTE: The summary is updated with a lightweight transaction, which cannot span tables in a batch
+                    then(session.executeAsync(batch)) {
+                        map(recordSummaryOrDeferAsync(previous, recordedMigrations)) {
+                            LOG.debug("Schema version table $tableName successfully updated with ${recordedMigrations.size} migration(s)")
+                            recordedMigrations
+                        }
+                    }
+                }
+            }
+        }
     }
 
     /**
@@ -139,73 +601,116 @@ open class SchemaVersionDAO(private val session: Session, val keyspaceConfig: Ke
      * @return The applied migrations.
      */
     open fun findAppliedMigrations(): List<AppliedMigration> {
-        // GUARD: Return empty array if tables does not exists
-        if (!tablesExist()) return ArrayList()
-
-        val results = session.execute(findAppliedMigrationsQuery)
-        // TODO: Refactor to idiomatic Kotlin collections method
-        val resultsList = ArrayList<AppliedMigration>()
-        for (row in results) {
-            resultsList.add(
-                    AppliedMigration(
-                            row.getInt("version_rank"),
-                            row.getInt("installed_rank"),
-                            MigrationVersion.fromVersion(row.getString("version")),
-                            row.getString("description"),
-                            MigrationType.valueOf(row.getString("type")),
-                            row.getString("script"),
-                            if (row.isNull("checksum")) null else row.getInt("checksum"),
-                            row.getTimestamp("installed_on"),
-                            row.getString("installed_by"),
-                            row.getInt("execution_time"),
-                            row.getBool("success")
-                    )
-            )
+        return FutureUtils.getUninterruptibly(findAppliedMigrationsAsync())
+    }
+
+    /**
+     * Retrieve the applied migrations from the schema migration version table, asynchronously.
+     * Subsequent pages are fetched as the previous ones are consumed, without blocking.
+     * The archived migrations are read from their snapshot, ahead of the recorded ones.
+     *
+     * @return The future applied migrations.
+     */
+    fun findAppliedMigrationsAsync(): ListenableFuture<List<AppliedMigration>> {
+        val appliedMigrations = then(historyExistsAsync()) { exists ->
+            // GUARD: Return empty list if tables does not exists
+            if (!exists) {
+                Futures.immediateFuture<List<AppliedMigration>>(emptyList())
+            } else {
+                // NOTE: Records left behind by an interrupted archival are read from the snapshot only
+                then(findSnapshotAsync()) { snapshot ->
+                    map(findRecordedMigrationsAsync()) { recorded -> snapshot.appliedMigrations + recorded.filterNot { snapshot.isArchived(it) } }
+                }
+            }
         }
 
         // NOTE: Order by `version_rank` not necessary here, as it eventually gets saved in TreeMap
         //       that uses natural ordering
-        return resultsList
+        return map(appliedMigrations) { results ->
+            seedVersionRankIndex(results.map { it.version!! }, results.map { it.installedRank!! }.max() ?: 0)
+            results
+        }
     }
 
     /**
-     * Retrieve the applied migrations from the metadata table.
+     * Retrieve the migrations recorded in the schema migration version table (i.e. excluding the archived ones),
+     * asynchronously.
      *
-     * @param migrationTypes The migration types to find.
-     * @return The applied migrations.
+     * @return The future recorded migrations.
      */
-    open fun findAppliedMigrations(vararg migrationTypes: MigrationType): List<AppliedMigration> {
-        // GUARD: Return empty array if tables does not exists
-        if (!tablesExist()) return ArrayList()
-
-        val results = session.execute(findAppliedMigrationsQuery)
-        // TODO: Refactor to idiomatic Kotlin collections method
-        val resultsList = ArrayList<AppliedMigration>()
-        val migTypeList = Arrays.asList(*migrationTypes)
-        for (row in results) {
-            val migType = MigrationType.valueOf(row.getString("type"))
-            if (migTypeList.contains(migType)) {
-                resultsList.add(
-                        AppliedMigration(
-                                row.getInt("version_rank"),
-                                row.getInt("installed_rank"),
-                                MigrationVersion.fromVersion(row.getString("version")),
-                                row.getString("description"),
-                                migType,
-                                row.getString("script"),
-                                row.getInt("checksum"),
-                                row.getTimestamp("installed_on"),
-                                row.getString("installed_by"),
-                                row.getInt("execution_time"),
-                                row.getBool("success")
-                        )
-                )
+    private fun findRecordedMigrationsAsync(): ListenableFuture<List<AppliedMigration>> {
+        return then(isV1CopyPendingAsync()) { upgradingFromV1 ->
+            val statement = bindFindRecordedMigrationsQuery(upgradingFromV1)
+            statement.fetchSize = keyspaceConfig.fetchSize
+
+            then(session.executeAsync(statement)) {
+                collectAsync(it, ArrayList<AppliedMigration>()) { row -> rowMapper.map(row) }
             }
         }
+    }
+
+    /**
+     * Stream the applied migrations from the schema migration version table, page by page.
+     * The archived migrations are read from their snapshot, ahead of the recorded ones.
+     * The version rank index is seeded once the stream has been fully consumed.
+     *
+     * @return The applied migrations, lazily read as the sequence is consumed.
+     */
+    open fun streamAppliedMigrations(): Sequence<AppliedMigration> {
+        // GUARD: Return empty sequence if tables does not exists
+        if (!FutureUtils.getUninterruptibly(historyExistsAsync())) return emptySequence()
+
+        val snapshot = FutureUtils.getUninterruptibly(findSnapshotAsync())
+        val archived = snapshot.appliedMigrations
+
+        val statement = bindFindRecordedMigrationsQuery(isV1CopyPending())
+        statement.fetchSize = keyspaceConfig.fetchSize
+        val rows = PrefetchingRowIterator(session.execute(statement), keyspaceConfig.prefetch)
+
+        val versions = ArrayList<MigrationVersion>(archived.map { it.version!! })
+        var maxRank = archived.map { it.installedRank!! }.max() ?: 0
 
         // NOTE: Order by `version_rank` not necessary here, as it eventually gets saved in TreeMap
         //       that uses natural ordering
-        return resultsList
+        return object : Iterator<AppliedMigration> {
+            override fun hasNext(): Boolean {
+                val hasNext = rows.hasNext()
+                if (!hasNext) {
+                    seedVersionRankIndex(versions, maxRank)
+                }
+                return hasNext
+            }
+
+            override fun next(): AppliedMigration {
+                val appliedMigration = rowMapper.map(rows.next())
+                versions.add(appliedMigration.version!!)
+                maxRank = Math.max(maxRank, appliedMigration.installedRank!!)
+                return appliedMigration
+            }
+        }.asSequence().let { recorded ->
+            // NOTE: Records left behind by an interrupted archival are read from the snapshot only
+            archived.asSequence() + recorded.filterNot { snapshot.isArchived(it) }
+        }
+    }
+
+    /**
+     * Bind the recorded migrations query, reading from the V1 layout table until its migration history has been copied.
+     *
+     * @param upgradingFromV1 True if the V1 migration history copy is pending.
+     * @return Bound recorded migrations query.
+     */
+    private fun bindFindRecordedMigrationsQuery(upgradingFromV1: Boolean): BoundStatement {
+        return if (upgradingFromV1) bindRead(findV1AppliedMigrationsQuery) else bindRead(findAppliedMigrationsQuery, *partitionKeyValues)
+    }
+
+    /**
+     * Retrieve the applied migrations from the metadata table.
+     *
+     * @param migrationTypes The migration types to find.
+     * @return The applied migrations.
+     */
+    open fun findAppliedMigrations(vararg migrationTypes: MigrationType): List<AppliedMigration> {
+        return streamAppliedMigrations().filter { migrationTypes.contains(it.type) }.toList()
     }
 
     /**
@@ -214,20 +719,8 @@ open class SchemaVersionDAO(private val session: Session, val keyspaceConfig: Ke
      * @return `true` if the keyspace has applied migrations.
      */
     open fun hasAppliedMigrations(): Boolean {
-        // GUARD: Mark as no migrations if tables don't exists
-        if (!tablesExist()) return false
-
-        createTablesIfNotExist()
-
-        // TODO: Refactor to idiomatic Kotlin collections method
-        val filteredMigrations = ArrayList<AppliedMigration>()
-        val appliedMigrations = findAppliedMigrations()
-        for (appliedMigration in appliedMigrations) {
-            if (appliedMigration.type != MigrationType.BASELINE) {
-                filteredMigrations.add(appliedMigration)
-            }
-        }
-        return filteredMigrations.isNotEmpty()
+        val summary = findSummary() ?: return false
+        return summary.appliedCount > 0
     }
 
     /**
@@ -238,7 +731,19 @@ open class SchemaVersionDAO(private val session: Session, val keyspaceConfig: Ke
      * @param user The user's username executing the baselining.
      */
     fun addBaselineMarker(baselineVersion: MigrationVersion, baselineDescription: String, user: String) {
-        addAppliedMigration(
+        FutureUtils.getUninterruptibly(addBaselineMarkerAsync(baselineVersion, baselineDescription, user))
+    }
+
+    /**
+     * Add a baseline version marker, asynchronously.
+     *
+     * @param baselineVersion The baseline version.
+     * @param baselineDescription the baseline version description.
+     * @param user The user's username executing the baselining.
+     * @return The future baseline marker as recorded.
+     */
+    fun addBaselineMarkerAsync(baselineVersion: MigrationVersion, baselineDescription: String, user: String): ListenableFuture<AppliedMigration> {
+        return addAppliedMigrationAsync(
                 AppliedMigration(
                         baselineVersion,
                         baselineDescription,
@@ -259,70 +764,639 @@ open class SchemaVersionDAO(private val session: Session, val keyspaceConfig: Ke
      */
     val baselineMarker: AppliedMigration?
         get() {
-            val appliedMigrations = findAppliedMigrations(MigrationType.BASELINE)
-            return if (appliedMigrations.isEmpty()) null else appliedMigrations[0]
+            val summary = findSummary()
+            // GUARD: No baseline marker if not baselined
+            if (summary == null || !summary.hasBaselineMarker) return null
+
+            // NOTE: The baseline marker is read from the V1 layout table until its migration history has been copied
+            if (isV1CopyPending()) {
+                return streamAppliedMigrations().firstOrNull {
+                    it.type == MigrationType.BASELINE && it.version == summary.baselineVersion
+                }
+            }
+
+            val statement = when (keyspaceConfig.tableLayout) {
+                TableLayout.V1 -> bindRead(findAppliedMigrationByKeyQuery, summary.baselineVersion.toString())
+                TableLayout.V2 -> bindRead(findAppliedMigrationByKeyQuery, tableName, summary.baselineInstalledRank)
+            }
+            // NOTE: The baseline marker might have been archived
+            return session.execute(statement).one()?.let { rowMapper.map(it) }
+                    ?: FutureUtils.getUninterruptibly(findSnapshotAsync())
+                        .appliedMigrations
+                        .firstOrNull { it.type == MigrationType.BASELINE && it.version == summary.baselineVersion }
         }
 
     /**
      * Check if schema migration version table has a baseline marker.
      *
-     * @return `true` if the schema migration version table has a baseline marker.
+     * @return `true` if the schema migration version table has a baseline marker.
+     */
+    open fun hasBaselineMarker(): Boolean {
+        val summary = findSummary() ?: return false
+        return summary.hasBaselineMarker
+    }
+
+    /**
+     * Creates a cluster-wide migration lock, stored alongside the schema migration version table.
+     *
+     * @param leaseDuration The duration of the lock lease, in seconds.
+     * @return The migration lock, not acquired yet.
+     */
+    fun createMigrationLock(leaseDuration: Int): MigrationLock {
+        return MigrationLock(
+                session,
+                keyspaceConfig.name!!,
+                tableName,
+                tableOptions,
+                writeConsistencyLevel,
+                serialConsistencyLevel,
+                leaseDuration
+        )
+    }
+
+    /**
+     * Archive the recorded migrations older than the given version into the snapshot record, so that they are read as
+     * a single blob rather than row by row. Only the latest record of each archived version is kept.
+     * The snapshot is written before the archived rows are deleted, so an interrupted archival is safe to re-run, and
+     * the rows it left behind are read from the snapshot only.
+     *
+     * @param archiveVersion The version before which the recorded migrations are archived.
+     * @return The number of archived schema migration version table rows.
+     * @throws CassandraMigrationException when the latest record of an archived version is a failed migration.
+     */
+    fun archiveAppliedMigrations(archiveVersion: MigrationVersion): Int {
+        // NOTE: Complete any pending V1 migration history copy, so that the archived records are deleted from the
+        //       table they are read from
+        if (isV1CopyPending()) createTablesIfNotExist()
+
+        // GUARD: Nothing to archive if tables don't exists
+        if (!tablesExist()) return 0
+
+        val archived = FutureUtils.getUninterruptibly(findRecordedMigrationsAsync()).filter { it.version!! < archiveVersion }
+
+        // GUARD: Nothing to archive if all the recorded migrations are newer
+        if (archived.isEmpty()) return 0
+
+        val snapshot = FutureUtils.getUninterruptibly(findSnapshotAsync()).archive(archiveVersion, archived)
+
+        session.execute(createArchiveTableStmt)
+        session.execute(bindWrite(
+                insertSnapshotStmt,
+                tableName,
+                snapshot.archivedBefore.version,
+                snapshot.appliedMigrations.size,
+                snapshot.encode()
+        ))
+        snapshotCache = snapshot
+
+        val deleted = archived.map { appliedMigration ->
+            val statement = when (keyspaceConfig.tableLayout) {
+                TableLayout.V1 -> bindWrite(deleteAppliedMigrationStmt, appliedMigration.version.toString())
+                TableLayout.V2 -> bindWrite(deleteAppliedMigrationStmt, tableName, appliedMigration.installedRank)
+            }
+            session.executeAsync(statement)
+        }
+        FutureUtils.getUninterruptibly(Futures.allAsList(deleted))
+
+        LOG.info("Archived ${archived.size} applied migration(s) before version $archiveVersion from $versionTableName into $archiveTableName")
+        return archived.size
+    }
+
+    /**
+     * Retrieve the statement-level progress recorded for the given failed migration.
+     *
+     * @param version The version of the failed migration.
+     * @return The progress of the failed migration, or `null` if none has been recorded.
+     */
+    fun findMigrationProgress(version: MigrationVersion): MigrationProgress? {
+        // GUARD: No progress has been recorded if the progress table does not exists
+        if (!progressTableExists && !tableExists(progressTableName)) return null
+        progressTableExists = true
+
+        val row = session.execute(bindRead(findProgressQuery, tableName, version.toString())).one() ?: return null
+        return MigrationProgress(
+                version,
+                if (row.isNull("checksum")) null else row.getInt("checksum"),
+                row.getInt("completed_statements")
+        )
+    }
+
+    /**
+     * Record the statement-level progress of a failed migration, so that it can be resumed from the statement it
+     * failed on.
+     *
+     * @param progress The progress of the failed migration.
+     */
+    fun recordMigrationProgress(progress: MigrationProgress) {
+        if (!progressTableExists) {
+            session.execute(createProgressTableStmt)
+            progressTableExists = true
+        }
+
+        session.execute(bindWrite(
+                insertProgressStmt,
+                tableName,
+                progress.version.toString(),
+                progress.checksum,
+                progress.completedStatements,
+                Date()
+        ))
+    }
+
+    /**
+     * Clear the statement-level progress of a migration, once it has been resumed successfully.
+     *
+     * @param version The version of the resumed migration.
+     */
+    fun clearMigrationProgress(version: MigrationVersion) {
+        // GUARD: No progress to clear if the progress table does not exists
+        if (!progressTableExists && !tableExists(progressTableName)) return
+        progressTableExists = true
+
+        session.execute(bindWrite(deleteProgressStmt, tableName, version.toString()))
+    }
+
+    /**
+     * Retrieve the snapshot of the archived migrations, with a single row read.
+     *
+     * @return The future snapshot of the archived migrations, empty if none has been archived.
+     */
+    private fun findSnapshotAsync(): ListenableFuture<SchemaVersionSnapshot> {
+        val cached = snapshotCache
+        if (cached != null) return Futures.immediateFuture(cached)
+
+        val snapshot = then(tableExistsAsync(archiveTableName)) { exists ->
+            // GUARD: Nothing has been archived if the archive table does not exists
+            if (!exists) {
+                Futures.immediateFuture(SchemaVersionSnapshot.EMPTY)
+            } else {
+                map(session.executeAsync(bindRead(findSnapshotQuery, tableName))) { rows ->
+                    val row = rows.one()
+                    when (row) {
+                        null -> SchemaVersionSnapshot.EMPTY
+                        else -> SchemaVersionSnapshot.decode(MigrationVersion.fromVersion(row.getString("archived_before")), row.getBytes("snapshot"))
+                    }
+                }
+            }
+        }
+
+        return map(snapshot) { found ->
+            snapshotCache = found
+            found
+        }
+    }
+
+    /**
+     * Retrieve the summary of the recorded migrations, with a single row read.
+     * The summary is rebuilt from the schema migration version table if it has not been recorded yet (e.g. for
+     * migrations recorded by earlier versions), or if it is behind the migration history (e.g. the process recording a
+     * migration stopped before updating the summary).
+     *
+     * @return The summary of the recorded migrations, or `null` if the schema migration version table does not exist.
+     */
+    fun findSummary(): SchemaVersionSummary? {
+        return FutureUtils.getUninterruptibly(findSummaryAsync())
+    }
+
+    /**
+     * Retrieve the summary of the recorded migrations, asynchronously.
+     *
+     * @return The future summary of the recorded migrations, or `null` if the schema migration version table does not
+     *         exist.
+     */
+    private fun findSummaryAsync(): ListenableFuture<SchemaVersionSummary?> {
+        val cached = summaryCache
+        if (cached != null) return Futures.immediateFuture<SchemaVersionSummary?>(cached)
+
+        return then(historyExistsAsync()) { exists ->
+            // GUARD: No summary if tables don't exists
+            if (!exists) {
+                Futures.immediateFuture<SchemaVersionSummary?>(null)
+            } else {
+                val result = then(createSummaryTableIfNotExistsAsync()) { readSummaryAsync(readConsistencyLevel) }
+                then(result) { recorded ->
+                    val summary = if (recorded == null) {
+                        rebuildSummaryAsync(null)
+                    } else {
+                        then(isSummaryBehindAsync(recorded)) { behind ->
+                            if (behind) rebuildSummaryAsync(recorded) else Futures.immediateFuture(recorded)
+                        }
+                    }
+
+                    map<SchemaVersionSummary, SchemaVersionSummary?>(summary) { found ->
+                        summaryCache = found
+                        found
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Read the recorded summary row, at the given consistency level.
+     *
+     * @param consistencyLevel The read consistency level, serial to read the outcome of the summary transactions.
+     * @return The future recorded summary, or `null` if it has not been recorded yet.
+     */
+    private fun readSummaryAsync(consistencyLevel: ConsistencyLevel): ListenableFuture<SchemaVersionSummary?> {
+        val query = findSummaryQuery.bind(tableName)
+        query.consistencyLevel = consistencyLevel
+
+        return map(session.executeAsync(query)) { rows ->
+            // NOTE: The summary row might only hold the V1 migration history copy marker
+            val row = rows.one()
+            if (row == null || row.isNull("applied_count")) {
+                null
+            } else {
+                SchemaVersionSummary(
+                        row.getInt("applied_count"),
+                        row.getString("highest_version")?.let { rowMapper.toVersion(it) },
+                        row.getInt("highest_installed_rank"),
+                        row.getString("baseline_version")?.let { rowMapper.toVersion(it) },
+                        row.getString("baseline_description"),
+                        if (row.isNull("baseline_installed_rank")) null else row.getInt("baseline_installed_rank"),
+                        if (row.isNull("resolved_fingerprint")) null else row.getLong("resolved_fingerprint"),
+                        if (row.isNull("fingerprint_installed_rank")) null else row.getInt("fingerprint_installed_rank")
+                )
+            }
+        }
+    }
+
+    /**
+     * Check that the highest migration of the given summary is still recorded in the migration history, i.e. the
+     * summary has not outlived the history it summarises (e.g. when the schema migration version table is dropped).
+     * The migration is looked up by its installed rank with the V2 table layout, or by its version with the V1 table
+     * layout.
+     *
+     * @param summary The summary of the recorded migrations.
+     * @return `true` if the highest migration of the summary is recorded.
+     */
+    fun hasHighestRecordedMigration(summary: SchemaVersionSummary): Boolean {
+        // GUARD: Not recorded if the tables don't exists, or are still being upgraded from the V1 table layout
+        if (!tablesExist() || isV1CopyPending()) return false
+
+        val statement = when (keyspaceConfig.tableLayout) {
+            TableLayout.V1 -> bindRead(findAppliedMigrationByKeyQuery, summary.highestVersion?.toString() ?: return false)
+            TableLayout.V2 -> bindRead(findAppliedMigrationByKeyQuery, tableName, summary.highestInstalledRank)
+        }
+        return session.execute(statement).one() != null
+    }
+
+    /**
+     * Check whether migrations have been recorded after the highest migration of the given summary, i.e. the summary
+     * has not been updated along with the migration history.
+     * With the V2 table layout, the migration history is looked up for installed ranks after the summary highest
+     * installed rank. With the V1 table layout, keyed by version, the summary highest installed rank is compared with
+     * the highest allocated installed rank instead, which could also be ahead when a migration failed to be recorded.
+     *
+     * @param summary The recorded summary of the recorded migrations.
+     * @return The future flag indicating whether the summary is behind the migration history.
+     */
+    private fun isSummaryBehindAsync(summary: SchemaVersionSummary): ListenableFuture<Boolean> {
+        return then(isV1CopyPendingAsync()) { copyPending ->
+            if (keyspaceConfig.tableLayout == TableLayout.V2 && !copyPending) {
+                val query = bindRead(findRecordedAfterRankQuery, tableName, summary.highestInstalledRank)
+                map(session.executeAsync(query)) { rows -> rows.one() != null }
+            } else {
+                map(findAllocatedRankAsync()) { allocated -> allocated > summary.highestInstalledRank }
+            }
+        }
+    }
+
+    /**
+     * Find the highest installed rank allocated so far, as per the configured rank allocation.
+     *
+     * @return The future highest allocated installed rank, or `0` if none has been allocated yet.
+     */
+    private fun findAllocatedRankAsync(): ListenableFuture<Int> {
+        val allocated = when (keyspaceConfig.rankAllocation) {
+            RankAllocation.COUNTER ->
+                map(session.executeAsync(bindRead(findInstalledRankCountColQuery))) { rows ->
+                    rows.one()?.getLong("count")?.toInt() ?: 0
+                }
+            RankAllocation.LWT ->
+                map(installedRankAllocator.findAllocatedRankAsync()) { rank -> rank ?: 0 }
+        }
+
+        // NOTE: The rank table might not exist yet, e.g. when switching rank allocation
+        return Futures.catching(
+                allocated,
+                InvalidQueryException::class.java,
+                Function<InvalidQueryException, Int> { 0 },
+                executor
+        )
+    }
+
+    /**
+     * Record the fingerprint of the resolved migrations that have just been migrated up to date, along with the
+     * summary of the recorded migrations.
+     *
+     * @param fingerprint The fingerprint of the resolved migrations.
+     * @param installedRank The highest installed rank once migrated up to date.
+     */
+    fun recordFingerprint(fingerprint: Long, installedRank: Int) {
+        // GUARD: No summary if tables don't exists
+        if (!tablesExist()) return
+
+        val recorded = then(createSummaryTableIfNotExistsAsync()) {
+            session.executeAsync(bindWrite(updateSummaryFingerprintStmt, fingerprint, installedRank, tableName))
+        }
+        FutureUtils.getUninterruptibly(recorded)
+
+        summaryCache = summaryCache?.copy(resolvedFingerprint = fingerprint, fingerprintInstalledRank = installedRank)
+    }
+
+    /**
+     * Create the summary table if it does not exists (e.g. for migrations recorded by earlier versions).
+     *
+     * @return The future completion of the table creation.
+     */
+    private fun createSummaryTableIfNotExistsAsync(): ListenableFuture<Unit> {
+        return then(summaryTableExistsAsync()) { exists ->
+            // GUARD: Skip table creation if already exists
+            if (exists) {
+                Futures.immediateFuture(Unit)
+            } else {
+                map(session.executeAsync(createSummaryTableStmt)) { summaryTableExists = true }
+            }
+        }
+    }
+
+    /**
+     * Check if the summary table has already been created, asynchronously.
+     * Once found, the summary table is known to exist for the lifetime of this DAO.
+     *
+     * @return The future flag indicating whether the summary table exists in the keyspace.
+     */
+    private fun summaryTableExistsAsync(): ListenableFuture<Boolean> {
+        // GUARD: Known to exist
+        if (summaryTableExists) return Futures.immediateFuture(true)
+
+        return map(tableExistsAsync(summaryTableName)) { exists ->
+            if (exists) summaryTableExists = true
+            exists
+        }
+    }
+
+    /**
+     * Rebuild the summary of the recorded migrations from the schema migration version table, and record it.
+     *
+     * @param stale The recorded summary being replaced, `null` if none has been recorded.
+     * @return The future summary of the recorded migrations.
+     */
+    private fun rebuildSummaryAsync(stale: SchemaVersionSummary?): ListenableFuture<SchemaVersionSummary> {
+        return then(findAppliedMigrationsAsync()) { appliedMigrations ->
+            // NOTE: Summarise in installed order, so that the first recorded baseline marker is kept
+            val summary = appliedMigrations
+                    .sortedBy { it.installedRank ?: 0 }
+                    .fold(SchemaVersionSummary.EMPTY) { acc, appliedMigration -> acc.record(appliedMigration) }
+
+            if (summary == SchemaVersionSummary.EMPTY) {
+                Futures.immediateFuture(summary)
+            } else {
+                LOG.info("Rebuilding schema version summary $summaryTableName from $versionTableName")
+
+                // NOTE: A summary recorded concurrently (e.g. rebuilt by another instance) is kept instead
+                then(updateSummaryAsync(stale?.highestInstalledRank, summary)) { applied ->
+                    if (applied) Futures.immediateFuture(summary) else map(readSummaryAsync(serialConsistencyLevel)) { it ?: summary }
+                }
+            }
+        }
+    }
+
+    /**
+     * Record the summary of the given newly recorded migrations, on top of the given summary.
+     * Failing to record the summary is not fatal, as the migrations themselves have been recorded: the summary is
+     * rebuilt once found behind the migration history.
+     *
+     * @param previous The summary the migrations have been recorded on top of.
+     * @param recordedMigrations The newly recorded migrations, including their installed ranks.
+     * @return The future completion of the summary update.
+     */
+    private fun recordSummaryOrDeferAsync(
+        previous: SchemaVersionSummary,
+        recordedMigrations: List<AppliedMigration>
+    ): ListenableFuture<Unit> {
+        val recorded = map(recordSummaryAsync(previous, recordedMigrations)) { Unit }
+
+        return Futures.catching(
+                recorded,
+                Exception::class.java,
+                Function<Exception, Unit> { e ->
+                    LOG.warn("Unable to update schema version summary $summaryTableName, it will be rebuilt on the next read: ${e?.message}")
+                    summaryCache = null
+                    Unit
+                },
+                executor
+        )
+    }
+
+    /**
+     * Record the summary of the given newly recorded migrations, on top of the given summary.
+     * Attempts lost to concurrent writers are retried on top of the summary they recorded, so that no recorded
+     * migration is left out of the summary.
+     *
+     * @param previous The summary the migrations have been recorded on top of.
+     * @param recordedMigrations The newly recorded migrations, including their installed ranks.
+     * @param attempt The current attempt number.
+     * @return The future updated summary.
+     */
+    private fun recordSummaryAsync(
+        previous: SchemaVersionSummary,
+        recordedMigrations: List<AppliedMigration>,
+        attempt: Int = 1
+    ): ListenableFuture<SchemaVersionSummary> {
+        val summary = recordedMigrations.fold(previous) { acc, recorded -> acc.record(recorded) }
+
+        // NOTE: The empty summary is never recorded, i.e. the summary row is not expected to exist yet
+        val expectedRank = if (previous == SchemaVersionSummary.EMPTY) null else previous.highestInstalledRank
+
+        return then(updateSummaryAsync(expectedRank, summary)) { applied ->
+            when {
+                applied -> {
+                    summaryCache = summary
+                    Futures.immediateFuture(summary)
+                }
+                attempt >= SUMMARY_MAX_ATTEMPTS -> {
+                    val msg = "Unable to update schema version summary $summaryTableName after $SUMMARY_MAX_ATTEMPTS attempts"
+                    Futures.immediateFailedFuture<SchemaVersionSummary>(CassandraMigrationException(msg))
+                }
+                else -> {
+                    LOG.debug("Schema version summary update attempt $attempt in $summaryTableName lost to a concurrent writer")
+                    then(readSummaryAsync(serialConsistencyLevel)) { current ->
+                        recordSummaryAsync(current ?: SchemaVersionSummary.EMPTY, recordedMigrations, attempt + 1)
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Record the given summary of the recorded migrations, with a lightweight transaction conditional on the highest
+     * installed rank of the summary it replaces.
+     *
+     * @param expectedRank The highest installed rank of the recorded summary, or `null` if none has been recorded.
+     * @param summary The updated summary.
+     * @return The future flag indicating whether the summary has been recorded.
+     */
+    private fun updateSummaryAsync(expectedRank: Int?, summary: SchemaVersionSummary): ListenableFuture<Boolean> {
+        val statement = bindWrite(
+                updateSummaryStmt,
+                summary.appliedCount,
+                summary.highestVersion?.toString(),
+                summary.highestInstalledRank,
+                summary.baselineVersion?.toString(),
+                summary.baselineDescription,
+                summary.baselineInstalledRank,
+                tableName,
+                expectedRank
+        )
+        statement.serialConsistencyLevel = this.serialConsistencyLevel
+
+        return map(session.executeAsync(statement)) { it.wasApplied() }
+    }
+
+    /**
+     * Calculates the installed ranks for the new migrations to be inserted, as a contiguous block.
+     *
+     * @param count The number of new migrations.
+     * @return The future highest installed rank of the block.
+     */
+    private fun calculateInstalledRankAsync(count: Int = 1): ListenableFuture<Int> {
+        if (keyspaceConfig.rankAllocation == RankAllocation.LWT) {
+            // NOTE: The highest recorded installed rank seeds the allocator, e.g. when switching from counters
+            return installedRankAllocator.allocateAsync(count) {
+                map(versionRankIndexAsync()) { index -> index.maxInstalledRank }
+            }
+        }
+
+        val incremented = session.executeAsync(bindWrite(incrementInstalledRankStmt, count.toLong()))
+        val result = then(incremented) { session.executeAsync(bindRead(findInstalledRankCountColQuery)) }
+
+        return map(result) { rows -> rows.one().getLong("count").toInt() }
+    }
+
+    /**
+     * Calculate the rank for this new version about to be inserted.
+     * The rank is looked up from the in-memory version rank index, which is loaded from the schema migration version
+     * table if it has not been seeded by a previous read.
+     *
+     * @param version The version to calculated for.
+     * @return The future rank.
+     */
+    private fun calculateVersionRankAsync(version: MigrationVersion): ListenableFuture<Int> {
+        return map(versionRankIndexAsync()) { index -> index.rankOf(version) }
+    }
+
+    /**
+     * Retrieve the version rank index, loading it from the schema migration version table if it has not been seeded
+     * by a previous read.
+     *
+     * @return The future version rank index.
+     */
+    private fun versionRankIndexAsync(): ListenableFuture<VersionRankIndex> {
+        val seeded = versionRankIndex
+        return if (seeded != null) Futures.immediateFuture(seeded) else loadVersionRankIndexAsync()
+    }
+
+    /**
+     * Seed the version rank index with the given recorded versions.
+     *
+     * @param versions The recorded versions.
+     * @param maxRank The highest installed rank of the recorded versions.
+     */
+    private fun seedVersionRankIndex(versions: Collection<MigrationVersion>, maxRank: Int) {
+        versionRankIndex = VersionRankIndex(versions, maxRank)
+    }
+
+    /**
+     * Load the version rank index from the schema migration version table.
+     *
+     * @return The future version rank index.
+     */
+    private fun loadVersionRankIndexAsync(): ListenableFuture<VersionRankIndex> {
+        val statement = bindRead(findVersionRankQuery, *partitionKeyValues)
+        val versionRows = then(session.executeAsync(statement)) { collectAsync(it, ArrayList<Row>()) { row -> row } }
+
+        return then(findSnapshotAsync()) { snapshot ->
+            map<List<Row>, VersionRankIndex>(versionRows) { rows ->
+                val archived = snapshot.appliedMigrations
+                seedVersionRankIndex(
+                        archived.map { it.version!! } + rows.map { rowMapper.toVersion(it.getString("version")) },
+                        (archived.map { it.installedRank!! } + rows.map { it.getInt("installed_rank") }).max() ?: 0
+                )
+                versionRankIndex!!
+            }
+        }
+    }
+
+    /**
+     * Add a newly recorded version into the version rank index, if seeded.
+     *
+     * @param version The recorded version.
+     * @param installedRank The installed rank of the recorded version.
+     */
+    private fun addToVersionRankIndex(version: MigrationVersion, installedRank: Int) {
+        versionRankIndex?.add(version, installedRank)
+    }
+
+    /**
+     * Collect the rows of the given result set, fetching the subsequent pages asynchronously.
+     *
+     * @param resultSet The result set to collect.
+     * @param results The collected results so far.
+     * @param mapper The row mapper.
+     * @return The future collected results.
      */
-    open fun hasBaselineMarker(): Boolean {
-        // GUARD: Mark as no baseline marker if tables don't exists
-        if (!tablesExist()) return false
+    private fun <T> collectAsync(resultSet: ResultSet, results: MutableList<T>, mapper: (Row) -> T): ListenableFuture<List<T>> {
+        for (i in 1..resultSet.availableWithoutFetching) {
+            results.add(mapper(resultSet.one()))
+        }
 
-        createTablesIfNotExist()
+        // GUARD: All pages have been collected
+        if (resultSet.isFullyFetched) return Futures.immediateFuture<List<T>>(results)
 
-        return findAppliedMigrations(MigrationType.BASELINE).isNotEmpty()
+        return then(resultSet.fetchMoreResults()) { collectAsync(it, results, mapper) }
     }
 
     /**
-     * Calculates the installed rank for the new migration to be inserted.
+     * Chain the given asynchronous function once the given future completes, on the DAO executor.
      *
-     * @return The installed rank.
+     * @param future The future to chain from.
+     * @param function The asynchronous function to apply to the future result.
+     * @return The future result of the function.
      */
-    private fun calculateInstalledRank(): Int {
-        session.execute(incrementInstalledRankStmt)
-        val result = session.execute(findInstalledRankCountColQuery)
-
-        return result.one().getLong("count").toInt()
+    private fun <I, O> then(future: ListenableFuture<I>, function: (I) -> ListenableFuture<O>): ListenableFuture<O> {
+        return FutureUtils.then(future, executor, function)
     }
 
     /**
-     * Calculate the rank for this new version about to be inserted.
+     * Transform the given future result once it completes, on the DAO executor.
      *
-     * @param version The version to calculated for.
-     * @return The rank.
+     * @param future The future to transform.
+     * @param function The function to apply to the future result.
+     * @return The future transformed result.
      */
-    private fun calculateVersionRank(version: MigrationVersion): Int {
-        val versionRows = session.execute(findVersionRankQuery)
-
-        // TODO: Refactor to idiomatic Kotlin collections method
-        val migrationVersions = ArrayList<MigrationVersion>()
-        val migrationMetaHolders = HashMap<String, MigrationMetaHolder>()
-        for (versionRow in versionRows) {
-            migrationVersions.add(MigrationVersion.fromVersion(versionRow.getString("version")))
-            migrationMetaHolders.put(
-                    versionRow.getString("version"),
-                    MigrationMetaHolder(versionRow.getInt("version_rank"))
-            )
-        }
-
-        if (migrationVersions.size == 0) {
-            return 1;
-        }
-
-        Collections.sort(migrationVersions)
+    private fun <I, O> map(future: ListenableFuture<I>, function: (I) -> O): ListenableFuture<O> {
+        return FutureUtils.map(future, executor, function)
+    }
 
-        // TODO: Refactor for loop with idiomatic Kotlin collection methods
-        for (i in migrationVersions.indices) {
-            if (version.compareTo(migrationVersions[i]) < 0) {
-                return i + 1
-            }
-        }
+    /**
+     * Migration tables options builder.
+     * The tables are tiny and read far more than they are written, so the defaults favour reads (leveled compaction,
+     * and caching all keys and rows, provided the row cache is enabled on the nodes).
+     *
+     * @return Migration tables options, as `WITH` clause options.
+     */
+    private fun buildTableOptions(): List<String> {
+        val options = arrayListOf(
+                "compaction = {'class': '${keyspaceConfig.tableCompaction}'}",
+                "caching = {'keys': 'ALL', 'rows_per_partition': '${keyspaceConfig.tableCaching}'}"
+        )
+        keyspaceConfig.tableGcGraceSeconds?.let { options.add("gc_grace_seconds = $it") }
+        keyspaceConfig.tableSpeculativeRetry?.let { options.add("speculative_retry = '$it'") }
 
-        return migrationVersions.size + 1
+        return options
     }
 
     /**
@@ -331,9 +1405,10 @@ open class SchemaVersionDAO(private val session: Session, val keyspaceConfig: Ke
      * @return Schema Migration table create statement.
      */
     private fun buildCreateSchemaMigrationTableStmt(): SimpleStatement {
-        val stmt = SimpleStatement(
+        val cql = when (keyspaceConfig.tableLayout) {
+            TableLayout.V1 ->
                 """
-                 | CREATE TABLE IF NOT EXISTS "${keyspaceConfig.name}"."${tableName}"
+                 | CREATE TABLE IF NOT EXISTS "${keyspaceConfig.name}"."${versionTableName}"
                  | (
                  |   version_rank   INT,
                  |   installed_rank INT,
@@ -347,10 +1422,30 @@ open class SchemaVersionDAO(private val session: Session, val keyspaceConfig: Ke
                  |   execution_time INT,
                  |   success        BOOLEAN,
                  |   PRIMARY KEY (version)
-                 | );
+                 | ) WITH ${tableOptions.joinToString(" AND ")};
                 """.trimMargin()
-        )
-        stmt.consistencyLevel = this.consistencyLevel
+            TableLayout.V2 ->
+                """
+                 | CREATE TABLE IF NOT EXISTS "${keyspaceConfig.name}"."${versionTableName}"
+                 | (
+                 |   partition_key  TEXT,
+                 |   installed_rank INT,
+                 |   version_rank   INT,
+                 |   version        TEXT,
+                 |   description    TEXT,
+                 |   script         TEXT,
+                 |   checksum       INT,
+                 |   type           TEXT,
+                 |   installed_by   TEXT,
+                 |   installed_on   TIMESTAMP,
+                 |   execution_time INT,
+                 |   success        BOOLEAN,
+                 |   PRIMARY KEY ((partition_key), installed_rank)
+                 | ) WITH CLUSTERING ORDER BY (installed_rank ASC) AND ${tableOptions.joinToString(" AND ")};
+                """.trimMargin()
+        }
+        val stmt = SimpleStatement(cql)
+        stmt.consistencyLevel = this.writeConsistencyLevel
         return stmt
     }
 
@@ -367,10 +1462,10 @@ open class SchemaVersionDAO(private val session: Session, val keyspaceConfig: Ke
                  |   name  TEXT,
                  |   count COUNTER,
                  |   PRIMARY KEY (name)
-                 | );
+                 | ) WITH ${tableOptions.joinToString(" AND ")};
                 """.trimMargin()
         )
-        stmt.consistencyLevel = this.consistencyLevel
+        stmt.consistencyLevel = this.writeConsistencyLevel
         return stmt
     }
 
@@ -382,36 +1477,25 @@ open class SchemaVersionDAO(private val session: Session, val keyspaceConfig: Ke
     //   Cassandra 3.7 and earlier.
     // Fix    :
     //   Use `SELECT *` rather than `SELECT count(*)` as a workaround, less efficient but universal.
+    //   The query is limited to a single row, as only the table existence is of interest.
     // Notes  :
     //   Can be reverted (to use count) once the affected Cassandra version has been superseded by another major
     //   version (e.g. 4.x).
     // ~~~~~~
 
     /**
-     * Schema Migration table count / exist CQL query builder.
-     *
-     * @return Schema Migration table count query.
-     */
-    private fun buildCountSchemaMigrationTableQuery(): Select {
-        val query = QueryBuilder
-                .select()
-                //.countAll()
-                .from(keyspaceConfig.name, tableName)
-        query.consistencyLevel = this.consistencyLevel
-        return query
-    }
-
-    /**
-     * Schema Migration Counter table count / exist CQL query builder.
+     * Table exist CQL query builder.
      *
-     * @return Schema Migration Counter table count query.
+     * @param table The table name to check.
+     * @return Table exist query.
      */
-    private fun buildCountSchemaMigrationCounterTableQuery(): Select {
+    private fun buildTableExistsQuery(table: String): Select {
         val query = QueryBuilder
                 .select()
                 //.countAll()
-                .from(keyspaceConfig.name, tableName + COUNTS_TABLE_NAME_SUFFIX)
-        query.consistencyLevel = this.consistencyLevel
+                .from(keyspaceConfig.name, table)
+                .limit(1)
+        query.consistencyLevel = this.readConsistencyLevel
         return query
     }
 
@@ -421,9 +1505,10 @@ open class SchemaVersionDAO(private val session: Session, val keyspaceConfig: Ke
      * @return Schema Migration record insert statement.
      */
     private fun buildInsertSchemaMigrationRecordStmt(): PreparedStatement {
-        val stmt = this.cachePs.prepare(
+        val cql = when (keyspaceConfig.tableLayout) {
+            TableLayout.V1 ->
                 """
-                 | INSERT INTO "${keyspaceConfig.name}"."${tableName}"
+                 | INSERT INTO "${keyspaceConfig.name}"."${versionTableName}"
                  | (
                  |   version_rank, installed_rank, version,
                  |   description, type, script,
@@ -436,9 +1521,25 @@ open class SchemaVersionDAO(private val session: Session, val keyspaceConfig: Ke
                  |   ?, ?
                  | );
                 """.trimMargin()
-        )
-        stmt.consistencyLevel = this.consistencyLevel
-        return stmt
+            TableLayout.V2 ->
+                """
+                 | INSERT INTO "${keyspaceConfig.name}"."${versionTableName}"
+                 | (
+                 |   partition_key,
+                 |   version_rank, installed_rank, version,
+                 |   description, type, script,
+                 |   checksum, installed_on, installed_by,
+                 |   execution_time, success
+                 | ) VALUES (
+                 |   ?,
+                 |   ?, ?, ?,
+                 |   ?, ?, ?,
+                 |   ?, dateOf(now()), ?,
+                 |   ?, ?
+                 | );
+                """.trimMargin()
+        }
+        return this.cachePs.prepare(cql)
     }
 
     /**
@@ -450,7 +1551,7 @@ open class SchemaVersionDAO(private val session: Session, val keyspaceConfig: Ke
      * @return Bound Schema Migration record insert statement.
      */
     private fun boundInsertSchemaMigrationRecordStmt(versionRank: Int, installedRank: Int, appliedMigration: AppliedMigration): BoundStatement {
-        return insertSchemaMigrationTableStmt.bind(
+        val values = arrayListOf<Any?>(
                 versionRank,
                 installedRank,
                 appliedMigration.version.toString(),
@@ -462,6 +1563,11 @@ open class SchemaVersionDAO(private val session: Session, val keyspaceConfig: Ke
                 appliedMigration.executionTime,
                 appliedMigration.isSuccess
         )
+        if (keyspaceConfig.tableLayout == TableLayout.V2) {
+            values.add(0, tableName)
+        }
+
+        return bindWrite(insertSchemaMigrationTableStmt, *values.toTypedArray())
     }
 
     /**
@@ -469,7 +1575,24 @@ open class SchemaVersionDAO(private val session: Session, val keyspaceConfig: Ke
      *
      * @return Schema Migration table applied migrations select query.
      */
-    private fun buildFindAppliedMigrationsQuery(): Select {
+    private fun buildFindAppliedMigrationsQuery(): PreparedStatement {
+        val query = QueryBuilder
+                .select(*AppliedMigrationRowMapper.COLUMNS)
+                .from(keyspaceConfig.name, versionTableName)
+
+        if (keyspaceConfig.tableLayout == TableLayout.V2) {
+            query.where(eq("partition_key", bindMarker()))
+        }
+
+        return this.cachePs.prepare(query)
+    }
+
+    /**
+     * Find V1 layout Schema Migration table applied migrations CQL query, used to upgrade to the V2 layout.
+     *
+     * @return V1 layout Schema Migration table applied migrations select query.
+     */
+    private fun buildFindV1AppliedMigrationsQuery(): PreparedStatement {
         val query = QueryBuilder
                 .select()
                 .column("version_rank")
@@ -485,8 +1608,61 @@ open class SchemaVersionDAO(private val session: Session, val keyspaceConfig: Ke
                 .column("success")
                 .from(keyspaceConfig.name, tableName)
 
-        query.consistencyLevel = this.consistencyLevel
-        return query
+        return this.cachePs.prepare(query)
+    }
+
+    /**
+     * Copy Schema Migration record into the V2 layout table CQL statement builder.
+     *
+     * @return Schema Migration V2 layout record copy statement.
+     */
+    private fun buildCopySchemaMigrationRecordStmt(): PreparedStatement {
+        return this.cachePs.prepare(
+                """
+                 | INSERT INTO "${keyspaceConfig.name}"."${versionTableName}"
+                 | (
+                 |   partition_key, installed_rank, version_rank,
+                 |   version, description, type,
+                 |   script, checksum, installed_on,
+                 |   installed_by, execution_time, success
+                 | ) VALUES (
+                 |   ?, ?, ?,
+                 |   ?, ?, ?,
+                 |   ?, ?, ?,
+                 |   ?, ?, ?
+                 | );
+                """.trimMargin()
+        )
+    }
+
+    /**
+     * Find Schema Migration Summary V1 migration history copy marker CQL query.
+     *
+     * @return Schema Migration Summary V1 migration history copy marker select query.
+     */
+    private fun buildFindV1CopyMarkerQuery(): PreparedStatement {
+        val query = QueryBuilder
+                .select()
+                .column("v1_copied_on")
+                .from(keyspaceConfig.name, summaryTableName)
+        query.where(eq("name", bindMarker()))
+
+        return this.cachePs.prepare(query)
+    }
+
+    /**
+     * Update Schema Migration Summary V1 migration history copy marker CQL statement builder.
+     *
+     * @return Schema Migration Summary V1 migration history copy marker update statement.
+     */
+    private fun buildUpdateV1CopyMarkerStmt(): PreparedStatement {
+        return this.cachePs.prepare(
+                """
+                 | UPDATE "${keyspaceConfig.name}"."${summaryTableName}"
+                 |    SET v1_copied_on = ?
+                 |  WHERE name = ?;
+                """.trimMargin()
+        )
     }
 
     /**
@@ -494,16 +1670,14 @@ open class SchemaVersionDAO(private val session: Session, val keyspaceConfig: Ke
      *
      * @return Schema Migration table increment installed rank update statement.
      */
-    private fun buildIncrementInstalledRankStmt(): SimpleStatement {
-        val stmt = SimpleStatement(
+    private fun buildIncrementInstalledRankStmt(): PreparedStatement {
+        return this.cachePs.prepare(
                 """
                  | UPDATE "${keyspaceConfig.name}"."${tableName}${COUNTS_TABLE_NAME_SUFFIX}"
-                 |    SET count = count + 1
+                 |    SET count = count + ?
                  |  WHERE name = 'installed_rank';
                 """.trimMargin()
         )
-        stmt.consistencyLevel = this.consistencyLevel
-        return stmt
     }
 
     /**
@@ -511,14 +1685,13 @@ open class SchemaVersionDAO(private val session: Session, val keyspaceConfig: Ke
      *
      * @return Schema Migration table installed rank count select query.
      */
-    private fun buildFindInstalledRankCountColQuery(): Select {
+    private fun buildFindInstalledRankCountColQuery(): PreparedStatement {
         val query = QueryBuilder
                 .select("count")
                 .from(keyspaceConfig.name, tableName + COUNTS_TABLE_NAME_SUFFIX)
         query.where(eq("name", "installed_rank"))
 
-        query.consistencyLevel = this.consistencyLevel
-        return query
+        return this.cachePs.prepare(query)
     }
 
     /**
@@ -526,15 +1699,19 @@ open class SchemaVersionDAO(private val session: Session, val keyspaceConfig: Ke
      *
      * @return Schema Migration table version rank select query.
      */
-    private fun buildFindVersionRankQuery(): Select {
+    private fun buildFindVersionRankQuery(): PreparedStatement {
         val query = QueryBuilder
                 .select()
                 .column("version")
                 .column("version_rank")
-                .from(keyspaceConfig.name, tableName)
+                .column("installed_rank")
+                .from(keyspaceConfig.name, versionTableName)
 
-        query.consistencyLevel = this.consistencyLevel
-        return query
+        if (keyspaceConfig.tableLayout == TableLayout.V2) {
+            query.where(eq("partition_key", bindMarker()))
+        }
+
+        return this.cachePs.prepare(query)
     }
 
     /**
@@ -543,15 +1720,13 @@ open class SchemaVersionDAO(private val session: Session, val keyspaceConfig: Ke
      * @return Schema Migration table version rank update query.
      */
     private fun buildUpdateVersionRankStmt(): PreparedStatement {
-        val stmt = this.cachePs.prepare(
+        return this.cachePs.prepare(
                 """
                  | UPDATE "${keyspaceConfig.name}"."${tableName}"
                  |    SET version_rank = ?
                  |  WHERE version = ?;
                 """.trimMargin()
         )
-        stmt.consistencyLevel = this.consistencyLevel
-        return stmt
     }
 
     /**
@@ -562,15 +1737,304 @@ open class SchemaVersionDAO(private val session: Session, val keyspaceConfig: Ke
      * @return Bound Schema Migration version record update statement.
      */
     private fun boundUpdateVersionRankStmt(versionRank: Int, version: String?): BoundStatement {
-        return updateVersionRankStmt.bind(versionRank, version)
+        return bindWrite(updateVersionRankStmt, versionRank, version)
+    }
+
+    /**
+     * Find Schema Migration table applied migration by its primary key CQL query.
+     * The key is the version with the V1 table layout, or the installed rank with the V2 table layout.
+     *
+     * @return Schema Migration table applied migration select query.
+     */
+    private fun buildFindAppliedMigrationByKeyQuery(): PreparedStatement {
+        val query = QueryBuilder
+                .select(*AppliedMigrationRowMapper.COLUMNS)
+                .from(keyspaceConfig.name, versionTableName)
+
+        when (keyspaceConfig.tableLayout) {
+            TableLayout.V1 -> query.where(eq("version", bindMarker()))
+            TableLayout.V2 -> query.where(eq("partition_key", bindMarker())).and(eq("installed_rank", bindMarker()))
+        }
+
+        return this.cachePs.prepare(query)
+    }
+
+    /**
+     * Find Schema Migration table applied migration recorded after an installed rank CQL query, with the V2 table
+     * layout.
+     *
+     * @return Schema Migration table installed rank select query.
+     */
+    private fun buildFindRecordedAfterRankQuery(): PreparedStatement {
+        val query = QueryBuilder
+                .select()
+                .column("installed_rank")
+                .from(keyspaceConfig.name, versionTableName)
+        query.where(eq("partition_key", bindMarker())).and(gt("installed_rank", bindMarker()))
+        query.limit(1)
+
+        return this.cachePs.prepare(query)
+    }
+
+    /**
+     * Schema Migration Summary table CQL statement builder.
+     *
+     * @return Schema Migration Summary table create statement.
+     */
+    private fun buildCreateSummaryTableStmt(): SimpleStatement {
+        val stmt = SimpleStatement(
+                """
+                 | CREATE TABLE IF NOT EXISTS "${keyspaceConfig.name}"."${summaryTableName}"
+                 | (
+                 |   name                       TEXT,
+                 |   applied_count              INT,
+                 |   highest_version            TEXT,
+                 |   highest_installed_rank     INT,
+                 |   baseline_version           TEXT,
+                 |   baseline_description       TEXT,
+                 |   baseline_installed_rank    INT,
+                 |   resolved_fingerprint       BIGINT,
+                 |   fingerprint_installed_rank INT,
+                 |   v1_copied_on               TIMESTAMP,
+                 |   PRIMARY KEY (name)
+                 | ) WITH ${tableOptions.joinToString(" AND ")};
+                """.trimMargin()
+        )
+        stmt.consistencyLevel = this.writeConsistencyLevel
+        return stmt
+    }
+
+    /**
+     * Find Schema Migration Summary CQL query.
+     *
+     * @return Schema Migration Summary select query.
+     */
+    private fun buildFindSummaryQuery(): PreparedStatement {
+        val query = QueryBuilder
+                .select()
+                .column("applied_count")
+                .column("highest_version")
+                .column("highest_installed_rank")
+                .column("baseline_version")
+                .column("baseline_description")
+                .column("baseline_installed_rank")
+                .column("resolved_fingerprint")
+                .column("fingerprint_installed_rank")
+                .from(keyspaceConfig.name, summaryTableName)
+        query.where(eq("name", bindMarker()))
+
+        return this.cachePs.prepare(query)
+    }
+
+    /**
+     * Update Schema Migration Summary CQL statement builder.
+     * The update is conditional on the highest installed rank of the summary it replaces.
+     *
+     * @return Schema Migration Summary conditional update statement.
+     */
+    private fun buildUpdateSummaryStmt(): PreparedStatement {
+        return this.cachePs.prepare(
+                """
+                 | UPDATE "${keyspaceConfig.name}"."${summaryTableName}"
+                 |    SET applied_count = ?, highest_version = ?, highest_installed_rank = ?,
+                 |        baseline_version = ?, baseline_description = ?, baseline_installed_rank = ?
+                 |  WHERE name = ?
+                 |     IF highest_installed_rank = ?;
+                """.trimMargin()
+        )
+    }
+
+    /**
+     * Update Schema Migration Summary resolved migrations fingerprint CQL statement builder.
+     *
+     * @return Schema Migration Summary resolved migrations fingerprint update statement.
+     */
+    private fun buildUpdateSummaryFingerprintStmt(): PreparedStatement {
+        return this.cachePs.prepare(
+                """
+                 | UPDATE "${keyspaceConfig.name}"."${summaryTableName}"
+                 |    SET resolved_fingerprint = ?, fingerprint_installed_rank = ?
+                 |  WHERE name = ?;
+                """.trimMargin()
+        )
+    }
+
+    /**
+     * Schema Migration Archive table CQL statement builder.
+     *
+     * @return Schema Migration Archive table create statement.
+     */
+    private fun buildCreateArchiveTableStmt(): SimpleStatement {
+        val stmt = SimpleStatement(
+                """
+                 | CREATE TABLE IF NOT EXISTS "${keyspaceConfig.name}"."${archiveTableName}"
+                 | (
+                 |   name            TEXT,
+                 |   archived_before TEXT,
+                 |   archived_count  INT,
+                 |   snapshot        BLOB,
+                 |   PRIMARY KEY (name)
+                 | ) WITH ${tableOptions.joinToString(" AND ")};
+                """.trimMargin()
+        )
+        stmt.consistencyLevel = this.writeConsistencyLevel
+        return stmt
+    }
+
+    /**
+     * Find Schema Migration Archive snapshot CQL query.
+     *
+     * @return Schema Migration Archive snapshot select query.
+     */
+    private fun buildFindSnapshotQuery(): PreparedStatement {
+        val query = QueryBuilder
+                .select()
+                .column("archived_before")
+                .column("snapshot")
+                .from(keyspaceConfig.name, archiveTableName)
+        query.where(eq("name", bindMarker()))
+
+        return this.cachePs.prepare(query)
+    }
+
+    /**
+     * Insert Schema Migration Archive snapshot CQL statement builder.
+     *
+     * @return Schema Migration Archive snapshot insert statement.
+     */
+    private fun buildInsertSnapshotStmt(): PreparedStatement {
+        return this.cachePs.prepare(
+                """
+                 | INSERT INTO "${keyspaceConfig.name}"."${archiveTableName}"
+                 | (
+                 |   name, archived_before, archived_count, snapshot
+                 | ) VALUES (
+                 |   ?, ?, ?, ?
+                 | );
+                """.trimMargin()
+        )
+    }
+
+    /**
+     * Delete Schema Migration record by its primary key CQL statement builder.
+     * The key is the version with the V1 table layout, or the installed rank with the V2 table layout.
+     *
+     * @return Schema Migration record delete statement.
+     */
+    private fun buildDeleteAppliedMigrationStmt(): PreparedStatement {
+        val cql = when (keyspaceConfig.tableLayout) {
+            TableLayout.V1 ->
+                """
+                 | DELETE FROM "${keyspaceConfig.name}"."${versionTableName}"
+                 |  WHERE version = ?;
+                """.trimMargin()
+            TableLayout.V2 ->
+                """
+                 | DELETE FROM "${keyspaceConfig.name}"."${versionTableName}"
+                 |  WHERE partition_key = ? AND installed_rank = ?;
+                """.trimMargin()
+        }
+        return this.cachePs.prepare(cql)
+    }
+
+    /**
+     * Schema Migration Progress table CQL statement builder.
+     *
+     * @return Schema Migration Progress table create statement.
+     */
+    private fun buildCreateProgressTableStmt(): SimpleStatement {
+        val stmt = SimpleStatement(
+                """
+                 | CREATE TABLE IF NOT EXISTS "${keyspaceConfig.name}"."${progressTableName}"
+                 | (
+                 |   name                 TEXT,
+                 |   version              TEXT,
+                 |   checksum             INT,
+                 |   completed_statements INT,
+                 |   updated_on           TIMESTAMP,
+                 |   PRIMARY KEY (name, version)
+                 | ) WITH ${tableOptions.joinToString(" AND ")};
+                """.trimMargin()
+        )
+        stmt.consistencyLevel = this.writeConsistencyLevel
+        return stmt
+    }
+
+    /**
+     * Find Schema Migration Progress CQL query.
+     *
+     * @return Schema Migration Progress select query.
+     */
+    private fun buildFindProgressQuery(): PreparedStatement {
+        val query = QueryBuilder
+                .select()
+                .column("checksum")
+                .column("completed_statements")
+                .from(keyspaceConfig.name, progressTableName)
+        query.where(eq("name", bindMarker())).and(eq("version", bindMarker()))
+
+        return this.cachePs.prepare(query)
+    }
+
+    /**
+     * Insert Schema Migration Progress CQL statement builder.
+     *
+     * @return Schema Migration Progress insert statement.
+     */
+    private fun buildInsertProgressStmt(): PreparedStatement {
+        return this.cachePs.prepare(
+                """
+                 | INSERT INTO "${keyspaceConfig.name}"."${progressTableName}"
+                 | (
+                 |   name, version, checksum, completed_statements, updated_on
+                 | ) VALUES (
+                 |   ?, ?, ?, ?, ?
+                 | );
+                """.trimMargin()
+        )
+    }
+
+    /**
+     * Delete Schema Migration Progress CQL statement builder.
+     *
+     * @return Schema Migration Progress delete statement.
+     */
+    private fun buildDeleteProgressStmt(): PreparedStatement {
+        return this.cachePs.prepare(
+                """
+                 | DELETE FROM "${keyspaceConfig.name}"."${progressTableName}"
+                 |  WHERE name = ? AND version = ?;
+                """.trimMargin()
+        )
+    }
+
+    /**
+     * Bind the given prepared query with the given params, at the DAO read consistency level.
+     * The consistency level is set on the bound statement, as the prepared statements are shared for the session.
+     *
+     * @param statement The prepared query.
+     * @param values The params to bind.
+     * @return Bound query.
+     */
+    private fun bindRead(statement: PreparedStatement, vararg values: Any?): BoundStatement {
+        val bound = statement.bind(*values)
+        bound.consistencyLevel = this.readConsistencyLevel
+        return bound
     }
 
     /**
-     * Schema migration (transient) metadata.
+     * Bind the given prepared statement with the given params, at the DAO write consistency level.
+     * The consistency level is set on the bound statement, as the prepared statements are shared for the session.
      *
-     * @param versionRank The applied migrations version rank.
+     * @param statement The prepared statement.
+     * @param values The params to bind.
+     * @return Bound statement.
      */
-    internal inner class MigrationMetaHolder(val versionRank: Int)
+    private fun bindWrite(statement: PreparedStatement, vararg values: Any?): BoundStatement {
+        val bound = statement.bind(*values)
+        bound.consistencyLevel = this.writeConsistencyLevel
+        return bound
+    }
 
     /**
      * SchemaVersionDAO companion object.
@@ -578,6 +2042,11 @@ open class SchemaVersionDAO(private val session: Session, val keyspaceConfig: Ke
     companion object {
         private val LOG = LogFactory.getLog(SchemaVersionDAO::class.java)
         private val COUNTS_TABLE_NAME_SUFFIX = "_counts"
+        private val V2_TABLE_NAME_SUFFIX = "_v2"
+        private val SUMMARY_TABLE_NAME_SUFFIX = "_summary"
+        private val ARCHIVE_TABLE_NAME_SUFFIX = "_archive"
+        private val PROGRESS_TABLE_NAME_SUFFIX = "_progress"
+        private val SUMMARY_MAX_ATTEMPTS = 10
     }
 
 }
@@ -0,0 +1,70 @@
+/**
+ * File     : VersionRankIndex.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.dbsupport
+
+import com.hhandoko.cassandra.migration.api.MigrationVersion
+import java.util.*
+
+/**
+ * Sorted, distinct versions of the recorded migrations, used to calculate the version rank of new migrations without
+ * reading every version row back from the schema migration version table.
+ *
+ * @param versions The recorded versions, in any order and possibly repeated.
+ * @param maxInstalledRank The highest installed rank of the recorded versions.
+ */
+class VersionRankIndex(versions: Collection<MigrationVersion>, maxInstalledRank: Int) {
+
+    /**
+     * The recorded versions, sorted and distinct.
+     */
+    private val versions = ArrayList(TreeSet(versions))
+
+    /**
+     * The highest installed rank of the recorded versions.
+     */
+    var maxInstalledRank = maxInstalledRank
+        private set
+
+    /**
+     * Calculate the rank for the given version about to be recorded.
+     *
+     * @param version The version to calculate for.
+     * @return The rank.
+     */
+    fun rankOf(version: MigrationVersion): Int {
+        // NOTE: The rank is the number of recorded versions less than or equal to the given version, plus one
+        val position = Collections.binarySearch(versions, version)
+        return if (position >= 0) position + 2 else -position
+    }
+
+    /**
+     * Add a newly recorded version, keeping the versions sorted.
+     *
+     * @param version The recorded version.
+     * @param installedRank The installed rank of the recorded version.
+     */
+    fun add(version: MigrationVersion, installedRank: Int) {
+        maxInstalledRank = Math.max(maxInstalledRank, installedRank)
+
+        val position = Collections.binarySearch(versions, version)
+        if (position < 0) {
+            versions.add(-(position + 1), version)
+        }
+    }
+
+}
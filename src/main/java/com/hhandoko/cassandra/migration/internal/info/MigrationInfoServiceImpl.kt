@@ -50,12 +50,32 @@ class MigrationInfoServiceImpl(
      */
     private var migrationInfos: List<MigrationInfoImpl> = emptyList()
 
+    /**
+     * The available migrations read at the last refresh.
+     */
+    private var availableMigrations: Collection<ResolvedMigration> = emptyList()
+
+    /**
+     * The applied migrations (by version) read at the last refresh, plus any recorded in-memory since then.
+     */
+    private var appliedMigrations = TreeMap<MigrationVersion, AppliedMigration>()
+
+    /**
+     * The highest installed rank amongst the known applied migrations, or `0` if none has been applied yet.
+     */
+    var lastInstalledRank: Int = 0
+        private set
+
     /**
      * Refreshes the info about all known migrations from both the classpath and the DB.
+     * The applied migrations are streamed from the DB, and indexed by version as they are read.
+     * Archived migrations are read from their snapshot as a single record, rather than row by row.
      */
     override fun refresh() {
-        val availableMigrations = migrationResolver.resolveMigrations()
-        val appliedMigrations = schemaVersionDAO.findAppliedMigrations()
+        availableMigrations = migrationResolver.resolveMigrations()
+        appliedMigrations = TreeMap()
+        lastInstalledRank = 0
+        schemaVersionDAO.streamAppliedMigrations().forEach { indexAppliedMigration(it) }
 
         migrationInfos = mergeAvailableAndAppliedMigrations(availableMigrations, appliedMigrations)
 
@@ -64,6 +84,27 @@ class MigrationInfoServiceImpl(
         }
     }
 
+    /**
+     * Records a newly applied migration into the in-memory view of the history, without re-reading the classpath or
+     * the schema version table.
+     *
+     * @param appliedMigration The migration that has just been applied (as persisted, including its ranks).
+     */
+    fun addAppliedMigration(appliedMigration: AppliedMigration) {
+        indexAppliedMigration(appliedMigration)
+        migrationInfos = mergeAvailableAndAppliedMigrations(availableMigrations, appliedMigrations)
+    }
+
+    /**
+     * Index the given applied migration by version. A later record of the same version supersedes the earlier one.
+     *
+     * @param appliedMigration The applied migration.
+     */
+    private fun indexAppliedMigration(appliedMigration: AppliedMigration) {
+        appliedMigrations.put(appliedMigration.version!!, appliedMigration)
+        lastInstalledRank = Math.max(lastInstalledRank, appliedMigration.installedRank ?: 0)
+    }
+
     /**
      * Validate all migrations for consistency.
      *
@@ -148,10 +189,10 @@ class MigrationInfoServiceImpl(
      * Merges the available and the applied migrations to produce one fully aggregated and consolidated list.
      *
      * @param resolvedMigrations The available migrations.
-     * @param appliedMigrations The applied migrations.
+     * @param appliedMigrationsMap The applied migrations, by version.
      * @return The complete list of migrations.
      */
-    fun mergeAvailableAndAppliedMigrations(resolvedMigrations: Collection<ResolvedMigration>, appliedMigrations: List<AppliedMigration>): List<MigrationInfoImpl> {
+    fun mergeAvailableAndAppliedMigrations(resolvedMigrations: Collection<ResolvedMigration>, appliedMigrationsMap: SortedMap<MigrationVersion, AppliedMigration>): List<MigrationInfoImpl> {
         val context = MigrationInfoContext()
         context.outOfOrder = outOfOrder
         context.pendingOrFuture = pendingOrFuture
@@ -166,10 +207,8 @@ class MigrationInfoServiceImpl(
             resolvedMigrationsMap.put(version, resolvedMigration)
         }
 
-        val appliedMigrationsMap = TreeMap<MigrationVersion, AppliedMigration>()
-        for (appliedMigration in appliedMigrations) {
-            val version = appliedMigration.version
-            if (version!!.compareTo(context.lastApplied) > 0) {
+        for ((version, appliedMigration) in appliedMigrationsMap) {
+            if (version.compareTo(context.lastApplied) > 0) {
                 context.lastApplied = version
             }
             if (appliedMigration.type === MigrationType.SCHEMA) {
@@ -178,7 +217,6 @@ class MigrationInfoServiceImpl(
             if (appliedMigration.type === MigrationType.BASELINE) {
                 context.baseline = version
             }
-            appliedMigrationsMap.put(version, appliedMigration)
         }
 
         val allVersions = HashSet<MigrationVersion>()
@@ -0,0 +1,73 @@
+/**
+ * File     : MigrationWavePlanner.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.info
+
+import com.hhandoko.cassandra.migration.api.CassandraMigrationException
+import com.hhandoko.cassandra.migration.api.MigrationVersion
+import com.hhandoko.cassandra.migration.internal.resolver.ResolvedMigrationImpl
+import java.util.*
+
+/**
+ * Plans pending migrations into waves of migrations that can be applied concurrently, as per their dependencies.
+ *
+ * A migration declaring its dependencies is planned in the wave following the last of its pending dependencies.
+ * A migration not declaring any dependencies depends on all the pending migrations with a lower version, as when
+ * migrating one migration at a time.
+ */
+object MigrationWavePlanner {
+
+    /**
+     * Plans the given pending migrations into waves.
+     * Dependencies must have a lower version than their dependent migration, so the dependency graph has no cycles.
+     *
+     * @param pending The pending migrations, in version order.
+     * @param isApplied Checks whether the given version has already been applied.
+     * @return The waves of migrations, each in version order.
+     * @throws CassandraMigrationException when a dependency is neither applied nor pending, or has a higher version.
+     */
+    @Throws(CassandraMigrationException::class)
+    fun plan(pending: List<MigrationInfoImpl>, isApplied: (MigrationVersion) -> Boolean): List<List<MigrationInfoImpl>> {
+        val waveByVersion = HashMap<MigrationVersion, Int>()
+        val waves = ArrayList<MutableList<MigrationInfoImpl>>()
+
+        for (migration in pending) {
+            val version = migration.version
+            val dependencies = (migration.resolvedMigration as? ResolvedMigrationImpl)?.dependencies
+
+            // NOTE: Waves are 0-based, and already applied dependencies are satisfied before the first wave
+            val wave = when (dependencies) {
+                null -> waves.size
+                else -> 1 + (dependencies.map { dependency ->
+                    when {
+                        dependency >= version                 -> throw CassandraMigrationException("Migration $version cannot depend on later migration $dependency")
+                        waveByVersion.containsKey(dependency) -> waveByVersion[dependency]!!
+                        isApplied(dependency)                 -> -1
+                        else                                  -> throw CassandraMigrationException("Migration $version depends on migration $dependency, which is neither applied nor pending")
+                    }
+                }.max() ?: -1)
+            }
+
+            waveByVersion.put(version, wave)
+            if (wave == waves.size) waves.add(ArrayList())
+            waves[wave].add(migration)
+        }
+
+        return waves
+    }
+
+}
@@ -0,0 +1,34 @@
+/**
+ * File     : MigrationProgress.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.metadatatable
+
+import com.hhandoko.cassandra.migration.api.MigrationVersion
+
+/**
+ * Statement-level progress of a failed migration (maps to a row in the progress table), to resume it from the
+ * statement it failed on.
+ *
+ * @param version The version of the failed migration.
+ * @param checksum The checksum of the failed migration, to make sure it has not changed since.
+ * @param completedStatements The number of leading statements completed before the failure.
+ */
+data class MigrationProgress(
+    val version: MigrationVersion,
+    val checksum: Int?,
+    val completedStatements: Int
+)
@@ -0,0 +1,179 @@
+/**
+ * File     : SchemaVersionSnapshot.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.metadatatable
+
+import com.hhandoko.cassandra.migration.api.CassandraMigrationException
+import com.hhandoko.cassandra.migration.api.MigrationType
+import com.hhandoko.cassandra.migration.api.MigrationVersion
+import java.io.ByteArrayOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.nio.ByteBuffer
+import java.util.*
+import java.util.zip.DeflaterOutputStream
+import java.util.zip.InflaterInputStream
+
+/**
+ * Snapshot of the migrations archived from the metadata table (maps to the row in the archive table).
+ * Only the latest record of each archived version is kept, superseded (e.g. failed) attempts are discarded.
+ *
+ * @param archivedBefore The version before which the migrations have been archived.
+ * @param appliedMigrations The archived migrations, in version order.
+ */
+data class SchemaVersionSnapshot(
+    val archivedBefore: MigrationVersion,
+    val appliedMigrations: List<AppliedMigration>
+) {
+
+    /**
+     * The highest installed rank of the archived migrations, `0` if none.
+     */
+    private val highestArchivedRank: Int by lazy { appliedMigrations.map { it.installedRank!! }.max() ?: 0 }
+
+    /**
+     * Checks whether the given recorded migration has been archived into this snapshot, e.g. a record left behind in
+     * the metadata table by an interrupted archival, whether kept in the snapshot or superseded by a later attempt.
+     * Migrations recorded once archived (e.g. out of order) have a higher installed rank, and are not archived.
+     *
+     * @param recordedMigration The recorded migration, including its installed rank.
+     * @return `true` if the recorded migration has been archived.
+     */
+    fun isArchived(recordedMigration: AppliedMigration): Boolean {
+        return recordedMigration.version!! < archivedBefore && recordedMigration.installedRank!! <= highestArchivedRank
+    }
+
+    /**
+     * Archive the given recorded migrations, on top of this snapshot.
+     *
+     * @param archiveVersion The version before which the recorded migrations are archived.
+     * @param recordedMigrations The recorded migrations to archive, including their installed ranks.
+     * @return The updated snapshot.
+     * @throws CassandraMigrationException when the latest record of an archived version is a failed migration.
+     */
+    fun archive(archiveVersion: MigrationVersion, recordedMigrations: Collection<AppliedMigration>): SchemaVersionSnapshot {
+        val latest = TreeMap<MigrationVersion, AppliedMigration>()
+        (appliedMigrations + recordedMigrations).forEach { appliedMigration ->
+            val recorded = latest[appliedMigration.version!!]
+            if (recorded == null || appliedMigration.installedRank!! > recorded.installedRank!!) {
+                latest.put(appliedMigration.version!!, appliedMigration)
+            }
+        }
+
+        latest.values.firstOrNull { !it.isSuccess }?.let {
+            throw CassandraMigrationException("Unable to archive failed migration to version ${it.version} (${it.description})")
+        }
+
+        return SchemaVersionSnapshot(
+                if (archiveVersion > archivedBefore) archiveVersion else archivedBefore,
+                latest.values.toList()
+        )
+    }
+
+    /**
+     * Encode this snapshot's migrations into a compressed blob.
+     *
+     * @return The encoded migrations.
+     */
+    fun encode(): ByteBuffer {
+        val bytes = ByteArrayOutputStream()
+        DataOutputStream(DeflaterOutputStream(bytes)).use { out ->
+            out.writeByte(FORMAT_VERSION)
+            out.writeInt(appliedMigrations.size)
+            for (appliedMigration in appliedMigrations) {
+                out.writeInt(appliedMigration.versionRank!!)
+                out.writeInt(appliedMigration.installedRank!!)
+                out.writeUTF(appliedMigration.version.toString())
+                out.writeUTF(appliedMigration.description!!)
+                out.writeUTF(appliedMigration.type!!.name)
+                out.writeUTF(appliedMigration.script!!)
+                out.writeBoolean(appliedMigration.checksum != null)
+                out.writeInt(appliedMigration.checksum ?: 0)
+                out.writeLong(appliedMigration.installedOn!!.time)
+                out.writeUTF(appliedMigration.installedBy!!)
+                out.writeInt(appliedMigration.executionTime)
+                out.writeBoolean(appliedMigration.isSuccess)
+            }
+        }
+
+        return ByteBuffer.wrap(bytes.toByteArray())
+    }
+
+    /**
+     * SchemaVersionSnapshot companion object.
+     */
+    companion object {
+
+        /**
+         * The encoded snapshot format version.
+         */
+        private val FORMAT_VERSION = 1
+
+        /**
+         * The snapshot of a metadata table without archived migrations.
+         */
+        val EMPTY = SchemaVersionSnapshot(MigrationVersion.EMPTY, emptyList())
+
+        /**
+         * Decode the snapshot's migrations from the given compressed blob.
+         *
+         * @param archivedBefore The version before which the migrations have been archived.
+         * @param blob The encoded migrations.
+         * @return The decoded snapshot.
+         * @throws CassandraMigrationException when the blob has been encoded in an unknown format.
+         */
+        fun decode(archivedBefore: MigrationVersion, blob: ByteBuffer): SchemaVersionSnapshot {
+            val bytes = ByteArray(blob.remaining())
+            blob.duplicate().get(bytes)
+
+            DataInputStream(InflaterInputStream(bytes.inputStream())).use { input ->
+                val format = input.readByte().toInt()
+                if (format != FORMAT_VERSION) {
+                    throw CassandraMigrationException("Unable to decode migrations snapshot with unknown format $format")
+                }
+
+                val appliedMigrations = (1..input.readInt()).map {
+                    val versionRank = input.readInt()
+                    val installedRank = input.readInt()
+                    val version = MigrationVersion.fromVersion(input.readUTF())
+                    val description = input.readUTF()
+                    val type = MigrationType.valueOf(input.readUTF())
+                    val script = input.readUTF()
+                    val hasChecksum = input.readBoolean()
+                    val checksum = input.readInt()
+
+                    AppliedMigration(
+                            versionRank,
+                            installedRank,
+                            version,
+                            description,
+                            type,
+                            script,
+                            if (hasChecksum) checksum else null,
+                            Date(input.readLong()),
+                            input.readUTF(),
+                            input.readInt(),
+                            input.readBoolean()
+                    )
+                }
+
+                return SchemaVersionSnapshot(archivedBefore, appliedMigrations)
+            }
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+/**
+ * File     : SchemaVersionSummary.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.metadatatable
+
+import com.hhandoko.cassandra.migration.api.MigrationType
+import com.hhandoko.cassandra.migration.api.MigrationVersion
+
+/**
+ * Summary of the migrations recorded in the metadata table (maps to the row in the summary table).
+ *
+ * @param appliedCount The number of recorded migrations, excluding the baseline marker.
+ * @param highestVersion The highest recorded version, `null` if none.
+ * @param highestInstalledRank The highest recorded installed rank, `0` if none.
+ * @param baselineVersion The baseline marker version, `null` if not baselined.
+ * @param baselineDescription The baseline marker description, `null` if not baselined.
+ * @param baselineInstalledRank The baseline marker installed rank, `null` if not baselined.
+ * @param resolvedFingerprint The fingerprint of the resolved migrations last migrated up to date, `null` if none.
+ * @param fingerprintInstalledRank The highest installed rank when the fingerprint was recorded, `null` if none.
+ */
+data class SchemaVersionSummary(
+    val appliedCount: Int,
+    val highestVersion: MigrationVersion?,
+    val highestInstalledRank: Int,
+    val baselineVersion: MigrationVersion?,
+    val baselineDescription: String?,
+    val baselineInstalledRank: Int?,
+    val resolvedFingerprint: Long? = null,
+    val fingerprintInstalledRank: Int? = null
+) {
+
+    /**
+     * Flag indicating whether a baseline marker has been recorded.
+     */
+    val hasBaselineMarker: Boolean
+        get() = baselineVersion != null
+
+    /**
+     * Summarise the given newly recorded migration, on top of this summary.
+     * Only the first recorded baseline marker is kept.
+     *
+     * @param appliedMigration The recorded migration, including its installed rank.
+     * @return The updated summary.
+     */
+    fun record(appliedMigration: AppliedMigration): SchemaVersionSummary {
+        val version = appliedMigration.version!!
+        val isBaseline = appliedMigration.type == MigrationType.BASELINE
+        val isFirstBaseline = isBaseline && !hasBaselineMarker
+
+        return SchemaVersionSummary(
+                if (isBaseline) appliedCount else appliedCount + 1,
+                if (highestVersion == null || version > highestVersion) version else highestVersion,
+                Math.max(highestInstalledRank, appliedMigration.installedRank ?: 0),
+                if (isFirstBaseline) version else baselineVersion,
+                if (isFirstBaseline) appliedMigration.description else baselineDescription,
+                if (isFirstBaseline) appliedMigration.installedRank else baselineInstalledRank,
+                resolvedFingerprint,
+                fingerprintInstalledRank
+        )
+    }
+
+    /**
+     * Checks whether the given resolved migrations fingerprint has been migrated up to date, with nothing recorded
+     * since then (e.g. by another instance, or a baseline).
+     *
+     * @param fingerprint The fingerprint of the resolved migrations.
+     * @return `true` if there is nothing to migrate for this fingerprint.
+     */
+    fun isUpToDate(fingerprint: Long): Boolean {
+        return resolvedFingerprint == fingerprint && fingerprintInstalledRank == highestInstalledRank
+    }
+
+    /**
+     * SchemaVersionSummary companion object.
+     */
+    companion object {
+
+        /**
+         * The summary of an empty metadata table.
+         */
+        val EMPTY = SchemaVersionSummary(0, null, 0, null, null, null)
+    }
+
+}
@@ -19,9 +19,13 @@
 package com.hhandoko.cassandra.migration.internal.resolver
 
 import com.hhandoko.cassandra.migration.api.CassandraMigrationException
+import com.hhandoko.cassandra.migration.api.resolver.ChecksumAlgorithm
 import com.hhandoko.cassandra.migration.api.resolver.MigrationResolver
 import com.hhandoko.cassandra.migration.api.resolver.ResolvedMigration
+import com.hhandoko.cassandra.migration.internal.dbsupport.SchemaAgreement
+import com.hhandoko.cassandra.migration.internal.resolver.checksum.ChecksumAlgorithms
 import com.hhandoko.cassandra.migration.internal.resolver.cql.CqlMigrationResolver
+import com.hhandoko.cassandra.migration.internal.resolver.cql.ResourceContentCache
 import com.hhandoko.cassandra.migration.internal.resolver.java.JavaMigrationResolver
 import com.hhandoko.cassandra.migration.internal.util.Locations
 import java.util.*
@@ -34,6 +38,12 @@ import java.util.*
  * @param locations The locations where migrations are located.
  * @param encoding The CQL migrations encoding.
  * @param timeout The CQL migrations read timeout duration in seconds.
+ * @param schemaAgreement The schema agreement wait following the schema changes of CQL migrations.
+ * @param streaming Stream the statements of CQL migrations while executing them, rather than loading them upfront.
+ * @param contentCache The cache of the CQL migrations content, shared between their resolution and execution.
+ * @param checksumAlgorithm The checksum algorithm of CQL migrations.
+ * @param resolverParallelism The number of CQL migrations to resolve concurrently, `0` or `1` to resolve them one at a
+ *                            time.
  * @param customMigrationResolvers Custom Migration Resolvers.
  */
 class CompositeMigrationResolver(
@@ -41,6 +51,11 @@ class CompositeMigrationResolver(
     locations: Locations,
     encoding: String,
     timeout: Int,
+    schemaAgreement: SchemaAgreement = SchemaAgreement.DEFAULT,
+    streaming: Boolean = false,
+    contentCache: ResourceContentCache = ResourceContentCache.NONE,
+    checksumAlgorithm: ChecksumAlgorithm = ChecksumAlgorithms.CRC32,
+    resolverParallelism: Int = 1,
     vararg customMigrationResolvers: MigrationResolver
 ) : MigrationResolver {
 
@@ -60,7 +75,7 @@ class CompositeMigrationResolver(
      */
     init {
         locations.getLocations().forEach {
-            migrationResolvers.add(CqlMigrationResolver(classLoader, it, encoding, timeout))
+            migrationResolvers.add(CqlMigrationResolver(classLoader, it, encoding, timeout, schemaAgreement, streaming, contentCache, checksumAlgorithm, resolverParallelism))
             migrationResolvers.add(JavaMigrationResolver(classLoader, it))
         }
 
@@ -0,0 +1,67 @@
+/**
+ * File     : ResolvedMigrationFingerprint.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.resolver
+
+import com.google.common.base.Charsets
+import com.google.common.hash.Hashing
+import com.hhandoko.cassandra.migration.api.MigrationVersion
+import com.hhandoko.cassandra.migration.api.resolver.ResolvedMigration
+
+/**
+ * Fingerprint of a set of resolved migrations, used to tell whether the same set has already been migrated.
+ */
+object ResolvedMigrationFingerprint {
+
+    /**
+     * Calculates the fingerprint of the given resolved migrations, as migrated with the given settings.
+     * Any change to the version, description, type, script or checksum of a migration changes the fingerprint.
+     *
+     * @param migrations The resolved migrations.
+     * @param target The target version of the migration.
+     * @param allowOutOfOrder True to allow migration to be run "out of order".
+     * @return The fingerprint.
+     */
+    fun calculate(migrations: Collection<ResolvedMigration>, target: MigrationVersion, allowOutOfOrder: Boolean): Long {
+        val hasher = Hashing.murmur3_128().newHasher()
+
+        /**
+         * Hash the given field, length-prefixed so that adjacent fields cannot be confused.
+         *
+         * @param field The field value.
+         */
+        fun putField(field: String?) {
+            val value = field.orEmpty()
+            hasher.putInt(value.length)
+            hasher.putString(value, Charsets.UTF_8)
+        }
+
+        putField(target.toString())
+        hasher.putBoolean(allowOutOfOrder)
+
+        migrations.sortedWith(ResolvedMigrationComparator()).forEach {
+            putField(it.version.toString())
+            putField(it.description)
+            putField(it.type?.name)
+            putField(it.script)
+            hasher.putInt(it.checksum ?: 0)
+        }
+
+        return hasher.hash().asLong()
+    }
+
+}
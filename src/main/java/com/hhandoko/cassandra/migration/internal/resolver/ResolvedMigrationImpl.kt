@@ -70,6 +70,13 @@ class ResolvedMigrationImpl : ResolvedMigration {
     override var executor: MigrationExecutor? = null
         get set
 
+    /**
+     * The versions of the migrations this migration depends on, or `null` if not declared (in which case it depends on
+     * all the migrations with a lower version).
+     */
+    var dependencies: List<MigrationVersion>? = null
+        get set
+
     /**
      * @return The computed migration instance hash value.
      */
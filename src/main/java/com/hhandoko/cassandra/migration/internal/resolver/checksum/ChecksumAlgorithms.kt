@@ -0,0 +1,77 @@
+/**
+ * File     : ChecksumAlgorithms.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.resolver.checksum
+
+import com.hhandoko.cassandra.migration.api.CassandraMigrationException
+import com.hhandoko.cassandra.migration.api.resolver.ChecksumAlgorithm
+import com.hhandoko.cassandra.migration.internal.util.ClassUtils
+import java.util.zip.CRC32
+import java.util.zip.Checksum
+
+/**
+ * The standard checksum algorithms of CQL migration scripts.
+ */
+enum class ChecksumAlgorithms : ChecksumAlgorithm {
+
+    /**
+     * CRC-32, compatible with the checksums recorded by earlier versions.
+     */
+    CRC32 {
+        override fun newChecksum(): Checksum = CRC32()
+    },
+
+    /**
+     * CRC-32C (Castagnoli), with a better error detection than CRC-32.
+     */
+    CRC32C {
+        override fun newChecksum(): Checksum = Crc32cChecksum()
+    },
+
+    /**
+     * xxHash64, a fast non-cryptographic hash (truncated to 32 bits when recorded).
+     */
+    XXHASH64 {
+        override fun newChecksum(): Checksum = XxHash64Checksum()
+    };
+
+    /**
+     * ChecksumAlgorithms companion object.
+     */
+    companion object {
+
+        /**
+         * Resolves the checksum algorithm with this name, either a standard algorithm (e.g. `CRC32`) or the fully
+         * qualified class name of a custom algorithm.
+         *
+         * @param name The name of the algorithm.
+         * @param classLoader The ClassLoader to load a custom algorithm with.
+         * @return The checksum algorithm.
+         * @throws CassandraMigrationException when the algorithm cannot be resolved.
+         */
+        fun fromName(name: String, classLoader: ClassLoader): ChecksumAlgorithm {
+            values().firstOrNull { it.name.equals(name, ignoreCase = true) }?.let { return it }
+
+            try {
+                return ClassUtils.instantiate<ChecksumAlgorithm>(name, classLoader)
+            } catch (e: Exception) {
+                throw CassandraMigrationException("Unable to resolve checksum algorithm: $name", e)
+            }
+        }
+    }
+
+}
@@ -0,0 +1,126 @@
+/**
+ * File     : Crc32cChecksum.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.resolver.checksum
+
+import java.util.zip.Checksum
+
+/**
+ * CRC-32C (Castagnoli) checksum, as per RFC 3720.
+ * Bytes are processed 8 at a time through slicing-by-8 lookup tables.
+ */
+class Crc32cChecksum : Checksum {
+
+    /**
+     * The running (inverted) checksum.
+     */
+    private var crc = INITIAL
+
+    /**
+     * Updates the checksum with this byte.
+     *
+     * @param b The byte to update the checksum with.
+     */
+    override fun update(b: Int) {
+        crc = TABLES[(crc xor b) and 0xFF] xor (crc ushr 8)
+    }
+
+    /**
+     * Updates the checksum with these bytes.
+     *
+     * @param b The bytes to update the checksum with.
+     * @param off The offset of the first byte.
+     * @param len The number of bytes.
+     */
+    override fun update(b: ByteArray, off: Int, len: Int) {
+        var c = crc
+        var i = off
+        val end = off + len
+
+        while (end - i >= 8) {
+            val one = ((b[i].toInt() and 0xFF) or
+                    ((b[i + 1].toInt() and 0xFF) shl 8) or
+                    ((b[i + 2].toInt() and 0xFF) shl 16) or
+                    ((b[i + 3].toInt() and 0xFF) shl 24)) xor c
+            val two = (b[i + 4].toInt() and 0xFF) or
+                    ((b[i + 5].toInt() and 0xFF) shl 8) or
+                    ((b[i + 6].toInt() and 0xFF) shl 16) or
+                    ((b[i + 7].toInt() and 0xFF) shl 24)
+
+            c = TABLES[7 * 256 + (one and 0xFF)] xor
+                    TABLES[6 * 256 + ((one ushr 8) and 0xFF)] xor
+                    TABLES[5 * 256 + ((one ushr 16) and 0xFF)] xor
+                    TABLES[4 * 256 + (one ushr 24)] xor
+                    TABLES[3 * 256 + (two and 0xFF)] xor
+                    TABLES[2 * 256 + ((two ushr 8) and 0xFF)] xor
+                    TABLES[1 * 256 + ((two ushr 16) and 0xFF)] xor
+                    TABLES[two ushr 24]
+            i += 8
+        }
+
+        while (i < end) {
+            c = TABLES[(c xor b[i].toInt()) and 0xFF] xor (c ushr 8)
+            i++
+        }
+
+        crc = c
+    }
+
+    /**
+     * @return The checksum value (unsigned 32 bits).
+     */
+    override fun getValue(): Long {
+        return crc.inv().toLong() and 0xFFFFFFFFL
+    }
+
+    /**
+     * Resets the checksum to its initial value.
+     */
+    override fun reset() {
+        crc = INITIAL
+    }
+
+    /**
+     * Crc32cChecksum companion object.
+     */
+    companion object {
+
+        /** The reflected Castagnoli polynomial. */
+        private val POLYNOMIAL = 0x82F63B78.toInt()
+
+        /** The initial (inverted) checksum. */
+        private val INITIAL = -1
+
+        /** The 8 slicing lookup tables of 256 entries each, the first being the byte-wise lookup table. */
+        private val TABLES = IntArray(8 * 256)
+
+        init {
+            for (i in 0..255) {
+                var c = i
+                for (bit in 0..7) {
+                    c = if (c and 1 != 0) (c ushr 1) xor POLYNOMIAL else c ushr 1
+                }
+                TABLES[i] = c
+            }
+            for (i in 256..TABLES.size - 1) {
+                val previous = TABLES[i - 256]
+                TABLES[i] = (previous ushr 8) xor TABLES[previous and 0xFF]
+            }
+        }
+    }
+
+}
@@ -0,0 +1,266 @@
+/**
+ * File     : ScriptChecksums.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.resolver.checksum
+
+import com.hhandoko.cassandra.migration.api.resolver.ChecksumAlgorithm
+import com.hhandoko.cassandra.migration.internal.util.scanner.Resource
+import java.io.InputStream
+import java.io.PushbackInputStream
+import java.io.Reader
+import java.nio.ByteBuffer
+import java.nio.CharBuffer
+import java.nio.charset.Charset
+import java.nio.charset.CodingErrorAction
+import java.util.*
+import java.util.zip.Checksum
+
+/**
+ * Calculates the checksum of CQL migration scripts over their bytes, streamed in blocks and excluding line terminators,
+ * so that the checksum does not depend on the platform line endings.
+ *
+ * The bytes are those of the script encoded in UTF-8, without a leading BOM. A script already in UTF-8 is checksummed
+ * as is, without being decoded. Since UTF-8 never encodes other characters with the \r or \n bytes, skipping those
+ * bytes gives the same CRC-32 as the one calculated line by line by earlier versions.
+ *
+ * CRC-32 checksums are calculated over the same bytes as earlier versions, which always decoded the script as UTF-8
+ * whatever its encoding: the raw bytes if they are well-formed UTF-8, or the bytes decoded as UTF-8 with the malformed
+ * ones replaced otherwise (e.g. Latin-1 scripts with accented characters).
+ */
+object ScriptChecksums {
+
+    /** The number of bytes (or chars) read from a script at a time. */
+    private val BUFFER_SIZE = 8192
+
+    /** The line feed byte. */
+    private val LF = '\n'.toByte()
+
+    /** The carriage return byte. */
+    private val CR = '\r'.toByte()
+
+    /** The UTF-8 encoded BOM. */
+    private val BOM = byteArrayOf(0xEF.toByte(), 0xBB.toByte(), 0xBF.toByte())
+
+    /**
+     * Calculates the checksum of this script.
+     *
+     * @param resource The resource of the script.
+     * @param encoding The encoding of the script.
+     * @param algorithm The checksum algorithm.
+     * @return The checksum (lower 32 bits).
+     */
+    fun calculate(resource: Resource, encoding: String, algorithm: ChecksumAlgorithm): Int {
+        // GUARD: Keep the CRC-32 checksums compatible with the ones recorded by earlier versions
+        if (algorithm == ChecksumAlgorithms.CRC32) return calculateAsUtf8(resource, algorithm)
+
+        val checksum = algorithm.newChecksum()
+        val charset = Charset.forName(encoding)
+
+        // NOTE: The reader already skips the BOM, as when the script was loaded as a string by earlier versions
+        if (charset == Charsets.UTF_8) {
+            skipBom(resource.openInputStream()).use { update(checksum, it) }
+        } else {
+            resource.openReader(encoding).use { update(checksum, it) }
+        }
+
+        return checksum.value.toInt()
+    }
+
+    /**
+     * Calculates the checksum of this script decoded as UTF-8, whatever its encoding, as earlier versions did.
+     * The raw bytes are checksummed as is, unless they turn out not to be well-formed UTF-8, in which case the script is
+     * read again and decoded, so that the malformed bytes are replaced as they were by earlier versions.
+     *
+     * @param resource The resource of the script.
+     * @param algorithm The checksum algorithm.
+     * @return The checksum (lower 32 bits).
+     */
+    private fun calculateAsUtf8(resource: Resource, algorithm: ChecksumAlgorithm): Int {
+        val checksum = algorithm.newChecksum()
+        val validator = Utf8Validator()
+        skipBom(resource.openInputStream()).use { input ->
+            val bytes = ByteArray(BUFFER_SIZE)
+            while (true) {
+                val count = input.read(bytes)
+                if (count < 0) break
+
+                validator.update(bytes, 0, count)
+                update(checksum, bytes, 0, count)
+            }
+        }
+
+        // GUARD: Well-formed UTF-8 decodes to the same bytes
+        if (validator.isWellFormed) return checksum.value.toInt()
+
+        val decoded = algorithm.newChecksum()
+        resource.openReader("UTF-8").use { update(decoded, it) }
+        return decoded.value.toInt()
+    }
+
+    /**
+     * Skips the UTF-8 BOM at the start of this stream, if any.
+     *
+     * @param input The UTF-8 stream.
+     * @return The stream positioned after the BOM.
+     */
+    fun skipBom(input: InputStream): InputStream {
+        val stream = PushbackInputStream(input, BOM.size)
+        val head = ByteArray(BOM.size)
+        var count = 0
+        while (count < head.size) {
+            val read = stream.read(head, count, head.size - count)
+            if (read < 0) break
+            count += read
+        }
+
+        if (count < BOM.size || !Arrays.equals(head, BOM)) {
+            stream.unread(head, 0, count)
+        }
+        return stream
+    }
+
+    /**
+     * Updates the checksum with the bytes of this UTF-8 stream, excluding line terminators.
+     *
+     * @param checksum The checksum to update.
+     * @param input The UTF-8 stream.
+     */
+    fun update(checksum: Checksum, input: InputStream) {
+        val bytes = ByteArray(BUFFER_SIZE)
+        while (true) {
+            val count = input.read(bytes)
+            if (count < 0) break
+
+            update(checksum, bytes, 0, count)
+        }
+    }
+
+    /**
+     * Updates the checksum with the UTF-8 bytes of this character stream, excluding line terminators.
+     * Malformed characters are replaced as per `String.getBytes()`.
+     *
+     * @param checksum The checksum to update.
+     * @param reader The character stream.
+     */
+    fun update(checksum: Checksum, reader: Reader) {
+        val encoder = Charsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE)
+        val chars = CharBuffer.allocate(BUFFER_SIZE)
+
+        // NOTE: A UTF-8 encoded char takes at most 3 bytes, so that the bytes never overflow
+        val bytes = ByteBuffer.allocate(BUFFER_SIZE * 3)
+
+        var isEndOfInput = false
+        while (!isEndOfInput) {
+            isEndOfInput = reader.read(chars) < 0
+            chars.flip()
+            encoder.encode(chars, bytes, isEndOfInput)
+            if (isEndOfInput) encoder.flush(bytes)
+
+            // GUARD: The high surrogate of a pair split across reads is kept for the next read
+            chars.compact()
+
+            update(checksum, bytes.array(), 0, bytes.position())
+            bytes.clear()
+        }
+    }
+
+    /**
+     * Updates the checksum with these bytes, excluding line terminators.
+     *
+     * @param checksum The checksum to update.
+     * @param bytes The bytes to update the checksum with.
+     * @param offset The offset of the first byte.
+     * @param length The number of bytes.
+     */
+    fun update(checksum: Checksum, bytes: ByteArray, offset: Int, length: Int) {
+        val end = offset + length
+        var start = offset
+        for (i in offset..end - 1) {
+            val b = bytes[i]
+            if (b == LF || b == CR) {
+                if (i > start) checksum.update(bytes, start, i - start)
+                start = i + 1
+            }
+        }
+        if (end > start) checksum.update(bytes, start, end - start)
+    }
+
+    /**
+     * Checks whether a byte stream is well-formed UTF-8, as per the Unicode table of well-formed byte sequences, i.e.
+     * whether decoding it would not replace any byte.
+     */
+    private class Utf8Validator {
+
+        /** The number of continuation bytes still expected. */
+        private var pending = 0
+
+        /** The lowest valid value of the next continuation byte. */
+        private var lower = 0x80
+
+        /** The highest valid value of the next continuation byte. */
+        private var upper = 0xBF
+
+        /** Flag indicating whether a malformed byte has been found. */
+        private var isMalformed = false
+
+        /**
+         * Flag indicating whether the bytes so far are well-formed UTF-8, without any truncated sequence.
+         */
+        val isWellFormed: Boolean
+            get() = !isMalformed && pending == 0
+
+        /**
+         * Checks these bytes, following the previous ones.
+         *
+         * @param bytes The bytes to check.
+         * @param offset The offset of the first byte.
+         * @param length The number of bytes.
+         */
+        fun update(bytes: ByteArray, offset: Int, length: Int) {
+            for (i in offset..offset + length - 1) {
+                // GUARD: No need to check any further
+                if (isMalformed) return
+
+                val b = bytes[i].toInt() and 0xFF
+                if (pending > 0) {
+                    if (b < lower || b > upper) isMalformed = true
+                    pending--
+                    lower = 0x80
+                    upper = 0xBF
+                    continue
+                }
+
+                // NOTE: The bounds of the second byte exclude overlong encodings, surrogates and code points past U+10FFFF
+                when {
+                    b < 0x80        -> Unit
+                    b in 0xC2..0xDF -> pending = 1
+                    b == 0xE0       -> { pending = 2; lower = 0xA0 }
+                    b == 0xED       -> { pending = 2; upper = 0x9F }
+                    b in 0xE1..0xEF -> pending = 2
+                    b == 0xF0       -> { pending = 3; lower = 0x90 }
+                    b in 0xF1..0xF3 -> pending = 3
+                    b == 0xF4       -> { pending = 3; upper = 0x8F }
+                    else            -> isMalformed = true
+                }
+            }
+        }
+
+    }
+
+}
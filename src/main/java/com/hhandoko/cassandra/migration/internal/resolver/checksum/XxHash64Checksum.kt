@@ -0,0 +1,229 @@
+/**
+ * File     : XxHash64Checksum.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.resolver.checksum
+
+import java.util.zip.Checksum
+
+/**
+ * xxHash64 hash (seed `0`), calculated incrementally so that it can be updated like any other checksum.
+ * Bytes are processed in stripes of 32, any remainder being buffered until the next update.
+ */
+class XxHash64Checksum : Checksum {
+
+    /**
+     * The 4 stripe accumulators.
+     */
+    private var v1 = 0L
+    private var v2 = 0L
+    private var v3 = 0L
+    private var v4 = 0L
+
+    /**
+     * The bytes not processed yet, less than a stripe.
+     */
+    private val buffer = ByteArray(STRIPE_SIZE)
+
+    /**
+     * The number of bytes not processed yet.
+     */
+    private var bufferSize = 0
+
+    /**
+     * The total number of bytes the checksum has been updated with.
+     */
+    private var totalLength = 0L
+
+    /**
+     * XxHash64Checksum initialization.
+     */
+    init {
+        reset()
+    }
+
+    /**
+     * Updates the checksum with this byte.
+     *
+     * @param b The byte to update the checksum with.
+     */
+    override fun update(b: Int) {
+        update(byteArrayOf(b.toByte()), 0, 1)
+    }
+
+    /**
+     * Updates the checksum with these bytes.
+     *
+     * @param b The bytes to update the checksum with.
+     * @param off The offset of the first byte.
+     * @param len The number of bytes.
+     */
+    override fun update(b: ByteArray, off: Int, len: Int) {
+        totalLength += len
+        var i = off
+        val end = off + len
+
+        // GUARD: Complete the buffered stripe first
+        if (bufferSize > 0) {
+            val count = Math.min(STRIPE_SIZE - bufferSize, len)
+            System.arraycopy(b, i, buffer, bufferSize, count)
+            bufferSize += count
+            i += count
+            if (bufferSize < STRIPE_SIZE) return
+
+            processStripe(buffer, 0)
+            bufferSize = 0
+        }
+
+        while (end - i >= STRIPE_SIZE) {
+            processStripe(b, i)
+            i += STRIPE_SIZE
+        }
+
+        System.arraycopy(b, i, buffer, 0, end - i)
+        bufferSize = end - i
+    }
+
+    /**
+     * @return The hash value (64 bits).
+     */
+    override fun getValue(): Long {
+        var h = if (totalLength >= STRIPE_SIZE) {
+            var acc = java.lang.Long.rotateLeft(v1, 1) +
+                    java.lang.Long.rotateLeft(v2, 7) +
+                    java.lang.Long.rotateLeft(v3, 12) +
+                    java.lang.Long.rotateLeft(v4, 18)
+            acc = mergeRound(acc, v1)
+            acc = mergeRound(acc, v2)
+            acc = mergeRound(acc, v3)
+            mergeRound(acc, v4)
+        } else {
+            PRIME64_5
+        }
+        h += totalLength
+
+        var i = 0
+        while (bufferSize - i >= 8) {
+            h = h xor round(0L, readLong(buffer, i))
+            h = java.lang.Long.rotateLeft(h, 27) * PRIME64_1 + PRIME64_4
+            i += 8
+        }
+        if (bufferSize - i >= 4) {
+            h = h xor ((readInt(buffer, i).toLong() and 0xFFFFFFFFL) * PRIME64_1)
+            h = java.lang.Long.rotateLeft(h, 23) * PRIME64_2 + PRIME64_3
+            i += 4
+        }
+        while (i < bufferSize) {
+            h = h xor ((buffer[i].toLong() and 0xFFL) * PRIME64_5)
+            h = java.lang.Long.rotateLeft(h, 11) * PRIME64_1
+            i++
+        }
+
+        h = h xor (h ushr 33)
+        h *= PRIME64_2
+        h = h xor (h ushr 29)
+        h *= PRIME64_3
+        return h xor (h ushr 32)
+    }
+
+    /**
+     * Resets the checksum to its initial value.
+     */
+    override fun reset() {
+        v1 = PRIME64_1 + PRIME64_2
+        v2 = PRIME64_2
+        v3 = 0L
+        v4 = -PRIME64_1
+        bufferSize = 0
+        totalLength = 0L
+    }
+
+    /**
+     * Processes a stripe of 32 bytes into the accumulators.
+     *
+     * @param b The bytes containing the stripe.
+     * @param off The offset of the stripe.
+     */
+    private fun processStripe(b: ByteArray, off: Int) {
+        v1 = round(v1, readLong(b, off))
+        v2 = round(v2, readLong(b, off + 8))
+        v3 = round(v3, readLong(b, off + 16))
+        v4 = round(v4, readLong(b, off + 24))
+    }
+
+    /**
+     * XxHash64Checksum companion object.
+     */
+    companion object {
+
+        /** The number of bytes processed at a time. */
+        private val STRIPE_SIZE = 32
+
+        private val PRIME64_1 = -7046029288634856825L // 0x9E3779B185EBCA87
+        private val PRIME64_2 = -4417276706812531889L // 0xC2B2AE3D27D4EB4F
+        private val PRIME64_3 = 1609587929392839161L  // 0x165667B19E3779F9
+        private val PRIME64_4 = -8796714831421723037L // 0x85EBCA77C2B2AE63
+        private val PRIME64_5 = 2870177450012600261L  // 0x27D4EB2F165667C5
+
+        /**
+         * Mixes an 8 bytes lane into an accumulator.
+         *
+         * @param acc The accumulator.
+         * @param input The lane.
+         * @return The updated accumulator.
+         */
+        private fun round(acc: Long, input: Long): Long {
+            return java.lang.Long.rotateLeft(acc + input * PRIME64_2, 31) * PRIME64_1
+        }
+
+        /**
+         * Merges a stripe accumulator into the hash.
+         *
+         * @param acc The hash.
+         * @param value The stripe accumulator.
+         * @return The updated hash.
+         */
+        private fun mergeRound(acc: Long, value: Long): Long {
+            return (acc xor round(0L, value)) * PRIME64_1 + PRIME64_4
+        }
+
+        /**
+         * Reads a little-endian long.
+         *
+         * @param b The bytes to read from.
+         * @param off The offset of the long.
+         * @return The long value.
+         */
+        private fun readLong(b: ByteArray, off: Int): Long {
+            return (readInt(b, off).toLong() and 0xFFFFFFFFL) or (readInt(b, off + 4).toLong() shl 32)
+        }
+
+        /**
+         * Reads a little-endian int.
+         *
+         * @param b The bytes to read from.
+         * @param off The offset of the int.
+         * @return The int value.
+         */
+        private fun readInt(b: ByteArray, off: Int): Int {
+            return (b[off].toInt() and 0xFF) or
+                    ((b[off + 1].toInt() and 0xFF) shl 8) or
+                    ((b[off + 2].toInt() and 0xFF) shl 16) or
+                    ((b[off + 3].toInt() and 0xFF) shl 24)
+        }
+    }
+
+}
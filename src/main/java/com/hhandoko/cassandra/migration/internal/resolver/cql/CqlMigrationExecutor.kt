@@ -19,8 +19,12 @@
 package com.hhandoko.cassandra.migration.internal.resolver.cql
 
 import com.datastax.driver.core.Session
-import com.hhandoko.cassandra.migration.api.resolver.MigrationExecutor
+import com.hhandoko.cassandra.migration.api.SchemaAgreementStats
+import com.hhandoko.cassandra.migration.api.migration.CancellationToken
+import com.hhandoko.cassandra.migration.api.resolver.ResumableMigrationExecutor
 import com.hhandoko.cassandra.migration.internal.dbsupport.CqlScript
+import com.hhandoko.cassandra.migration.internal.dbsupport.SchemaAgreement
+import com.hhandoko.cassandra.migration.internal.util.logging.LogFactory
 import com.hhandoko.cassandra.migration.internal.util.scanner.Resource
 
 /**
@@ -31,12 +35,24 @@ import com.hhandoko.cassandra.migration.internal.util.scanner.Resource
  *                          size of all CQL migrations files in heap space during db migration.
  * @param encoding The encoding of this CQL migration.
  * @param timeout The timout duration of this CQL migration.
+ * @param schemaAgreement The schema agreement wait following the schema changes of this CQL migration.
+ * @param streaming Stream the statements of this CQL migration while executing them, rather than loading them upfront.
+ * @param contentCache The cache of the CQL migrations content, released once this CQL migration is executed.
  */
 class CqlMigrationExecutor(
     private val cqlScriptResource: Resource,
     private val encoding: String,
-    private val timeout: Int
-) : MigrationExecutor {
+    private val timeout: Int,
+    private val schemaAgreement: SchemaAgreement = SchemaAgreement.DEFAULT,
+    private val streaming: Boolean = false,
+    private val contentCache: ResourceContentCache = ResourceContentCache.NONE
+) : ResumableMigrationExecutor {
+
+    /**
+     * The statistics of the schema agreement waits of the last execution of this CQL migration.
+     */
+    @Volatile var schemaAgreementStats = SchemaAgreementStats.EMPTY
+        private set
 
     /**
      * Execute the CQL-based migration.
@@ -44,8 +60,52 @@ class CqlMigrationExecutor(
      * @param session The Cassandra session connection to use to execute the migration.
      */
     override fun execute(session: Session) {
-        val cqlScript = CqlScript(cqlScriptResource, encoding, timeout)
-        cqlScript.execute(session)
+        execute(session, CancellationToken.NONE)
+    }
+
+    /**
+     * Execute the CQL-based migration, stopping between statements once the token is cancelled.
+     *
+     * @param session The Cassandra session connection to use to execute the migration.
+     * @param cancellationToken The cancellation token to poll.
+     */
+    override fun execute(session: Session, cancellationToken: CancellationToken) {
+        execute(session, 0, cancellationToken) {}
+    }
+
+    /**
+     * Execute the CQL-based migration, skipping the statements already completed, and stopping between statements
+     * once the token is cancelled.
+     *
+     * @param session The Cassandra session connection to use to execute the migration.
+     * @param completedStatements The number of leading statements already completed, to skip.
+     * @param cancellationToken The cancellation token to poll.
+     * @param checkpoint Called with the number of completed statements, after each statement completes.
+     */
+    override fun execute(session: Session, completedStatements: Int, cancellationToken: CancellationToken, checkpoint: (Int) -> Unit) {
+        // NOTE: The content cached on resolution is only needed once, whether the migration succeeds or not
+        val stats = try {
+            val cqlScriptSource = contentCache.get(cqlScriptResource, encoding) ?: cqlScriptResource
+            val cqlScript = CqlScript(cqlScriptSource, encoding, timeout, schemaAgreement, streaming)
+            cqlScript.execute(session, completedStatements, cancellationToken, checkpoint)
+        } finally {
+            contentCache.release(cqlScriptResource)
+        }
+        schemaAgreementStats = stats
+
+        if (stats.schemaChanges > 0) {
+            LOG.debug("Migration ${cqlScriptResource.location} waited ${stats.waitTime}ms for schema agreement after ${stats.schemaChanges} schema change(s)")
+        }
+        if (stats.timeouts > 0) {
+            LOG.warn("Migration ${cqlScriptResource.location} carried on without schema agreement after ${stats.timeouts} schema change(s)")
+        }
+    }
+
+    /**
+     * CqlMigrationExecutor companion object.
+     */
+    companion object {
+        private val LOG = LogFactory.getLog(CqlMigrationExecutor::class.java)
     }
 
 }
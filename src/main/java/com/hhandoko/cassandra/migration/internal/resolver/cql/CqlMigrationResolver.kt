@@ -20,17 +20,23 @@ package com.hhandoko.cassandra.migration.internal.resolver.cql
 
 import com.hhandoko.cassandra.migration.api.CassandraMigrationException
 import com.hhandoko.cassandra.migration.api.MigrationType
+import com.hhandoko.cassandra.migration.api.MigrationVersion
+import com.hhandoko.cassandra.migration.api.resolver.ChecksumAlgorithm
 import com.hhandoko.cassandra.migration.api.resolver.MigrationResolver
 import com.hhandoko.cassandra.migration.api.resolver.ResolvedMigration
+import com.hhandoko.cassandra.migration.internal.dbsupport.SchemaAgreement
 import com.hhandoko.cassandra.migration.internal.resolver.MigrationInfoHelper
 import com.hhandoko.cassandra.migration.internal.resolver.ResolvedMigrationComparator
 import com.hhandoko.cassandra.migration.internal.resolver.ResolvedMigrationImpl
+import com.hhandoko.cassandra.migration.internal.resolver.checksum.ChecksumAlgorithms
+import com.hhandoko.cassandra.migration.internal.resolver.checksum.ScriptChecksums
 import com.hhandoko.cassandra.migration.internal.util.Location
 import com.hhandoko.cassandra.migration.internal.util.scanner.Resource
 import com.hhandoko.cassandra.migration.internal.util.scanner.Scanner
-import java.io.BufferedReader
 import java.io.IOException
-import java.io.StringReader
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ForkJoinPool
 import java.util.zip.CRC32
 
 /**
@@ -41,12 +47,22 @@ import java.util.zip.CRC32
  * @param location The location on the classpath where the migrations are located.
  * @param encoding The encoding of the .cql file.
  * @param timeout The read script timeout duration in seconds.
+ * @param schemaAgreement The schema agreement wait following schema changes.
+ * @param streaming Stream the statements of the CQL files while executing them, rather than loading them upfront.
+ * @param contentCache The cache of the CQL files content, shared between their resolution and execution.
+ * @param checksumAlgorithm The checksum algorithm of the CQL files.
+ * @param parallelism The number of CQL files to resolve concurrently, `0` or `1` to resolve them one at a time.
  */
 class CqlMigrationResolver(
     classLoader: ClassLoader,
     private val location: Location,
     private val encoding: String,
-    private val timeout: Int
+    private val timeout: Int,
+    private val schemaAgreement: SchemaAgreement = SchemaAgreement.DEFAULT,
+    private val streaming: Boolean = false,
+    private val contentCache: ResourceContentCache = ResourceContentCache.NONE,
+    private val checksumAlgorithm: ChecksumAlgorithm = ChecksumAlgorithms.CRC32,
+    private val parallelism: Int = 1
 ) : MigrationResolver {
 
     /** The scanner to use. */
@@ -67,12 +83,57 @@ class CqlMigrationResolver(
     override fun resolveMigrations(): List<ResolvedMigration> {
         val resources = scanner.scanForResources(location, CQL_MIGRATION_PREFIX, CQL_MIGRATION_SUFFIX)
 
-        return resources.map { resource ->
-            val resolvedMigration = extractMigrationInfo(resource)
-            resolvedMigration.physicalLocation = resource.locationOnDisk
-            resolvedMigration.executor = CqlMigrationExecutor(resource, encoding, timeout)
-            resolvedMigration
-        }.sortedWith(ResolvedMigrationComparator())
+        val migrations = when {
+            parallelism > 1 && resources.size > 1 -> resolveConcurrently(resources)
+            else                                  -> resources.map { resolveMigration(it) }
+        }
+
+        return migrations.sortedWith(ResolvedMigrationComparator())
+    }
+
+    /**
+     * Resolves these resources concurrently, on a fork-join pool of the configured parallelism.
+     * The migrations are collected in the order of the resources, regardless of the order they are resolved in.
+     *
+     * @param resources The resources to resolve.
+     * @return The resolved migrations (in the order of the resources).
+     * @throws CassandraMigrationException when a resource cannot be resolved (the first one in order, if several).
+     */
+    private fun resolveConcurrently(resources: Array<Resource>): List<ResolvedMigration> {
+        val pool = ForkJoinPool(parallelism)
+        try {
+            val tasks = resources.map { resource -> pool.submit(Callable { resolveMigration(resource) }) }
+
+            return tasks.map { task ->
+                try {
+                    task.get()
+                } catch (e: ExecutionException) {
+                    val cause = e.cause
+                    when (cause) {
+                        is RuntimeException -> throw cause
+                        is Error            -> throw cause
+                        else                -> throw CassandraMigrationException(cause?.message ?: "Unable to resolve CQL migration", e)
+                    }
+                }
+            }
+        } finally {
+            // GUARD: The remaining tasks are of no use once a resource fails to resolve
+            pool.shutdownNow()
+        }
+    }
+
+    /**
+     * Resolves the migration of this resource, reading its content (and caching it within budget) and calculating its
+     * checksum.
+     *
+     * @param resource The resource to resolve.
+     * @return The resolved migration.
+     */
+    private fun resolveMigration(resource: Resource): ResolvedMigration {
+        val resolvedMigration = extractMigrationInfo(resource)
+        resolvedMigration.physicalLocation = resource.locationOnDisk
+        resolvedMigration.executor = CqlMigrationExecutor(resource, encoding, timeout, schemaAgreement, streaming, contentCache)
+        return resolvedMigration
     }
 
     /**
@@ -93,8 +154,11 @@ class CqlMigrationResolver(
         migration.version = info.left
         migration.description = info.right
         migration.script = extractScriptName(resource)
-        migration.checksum = calculateChecksum(resource, resource.loadAsString("UTF-8"))
         migration.type = MigrationType.CQL
+
+        // NOTE: The content is read once, and kept (within budget) for the execution of the migration
+        val content = contentCache.load(resource, encoding, migration.version!!)
+        readScript(content ?: resource, encoding, checksumAlgorithm, migration)
         return migration
     }
 
@@ -117,6 +181,9 @@ class CqlMigrationResolver(
      */
     companion object {
 
+        /** The header comment declaring the dependencies of a CQL migration, e.g. `-- depends: 1.0, 1.1`. */
+        private val DEPENDENCIES_HEADER = Regex("^(--|//)\\s*depends\\s*:(.*)$", RegexOption.IGNORE_CASE)
+
         /** The prefix for CQL migrations. */
         private val CQL_MIGRATION_PREFIX = "V"
 
@@ -127,37 +194,68 @@ class CqlMigrationResolver(
         private val CQL_MIGRATION_SUFFIX = ".cql"
 
         /**
-         * Calculates the checksum of these bytes.
+         * Reads this CQL script, calculating its checksum over its raw bytes, and extracting the dependencies declared
+         * in its header comments, i.e. the comment lines before the first statement (without reading any further).
          *
-         * @param bytes The bytes to calculate the checksum for.
-         * @return The crc-32 checksum of the bytes.
+         * @param resource The resource to read.
+         * @param encoding The encoding of the resource.
+         * @param checksumAlgorithm The checksum algorithm.
+         * @param migration The migration to set the checksum and dependencies of.
+         * @throws CassandraMigrationException when the resource cannot be read, or a declared dependency is not a
+         *                                     valid version.
          */
-        @Deprecated("Replaced with `calculateChecksum(resource: Resource, str: String)` as per Flyway 4.x")
-        private fun calculateChecksum(bytes: ByteArray): Int {
-            val crc32 = CRC32()
-            crc32.update(bytes)
-            return crc32.value.toInt()
+        private fun readScript(resource: Resource, encoding: String, checksumAlgorithm: ChecksumAlgorithm, migration: ResolvedMigrationImpl) {
+            try {
+                migration.checksum = ScriptChecksums.calculate(resource, encoding, checksumAlgorithm)
+            } catch (e: IOException) {
+                val message = "Unable to calculate checksum for ${resource.location} (${resource.locationOnDisk})"
+                throw CassandraMigrationException(message, e)
+            }
+
+            try {
+                migration.dependencies = resource.openReader(encoding).buffered().useLines { lines ->
+                    lines.map { it.trim() }
+                            .takeWhile { it.isEmpty() || it.startsWith("--") || it.startsWith("//") }
+                            .mapNotNull { extractDependencies(resource, it) }
+                            .firstOrNull()
+                }
+            } catch (e: IOException) {
+                throw CassandraMigrationException("Unable to read ${resource.location} (${resource.locationOnDisk})", e)
+            }
         }
 
         /**
-         * Calculates the checksum of this string.
+         * Extracts the dependencies declared in this header comment line of a CQL script.
          *
          * @param resource The resource to process.
-         * @param str The string to calculate the checksum for.
-         * @return The crc-32 checksum of the bytes.
+         * @param line The trimmed header comment line.
+         * @return The versions of the migrations the script depends on, or `null` if not declared in this line.
+         * @throws CassandraMigrationException when a declared dependency is not a valid version.
          */
-        private fun calculateChecksum(resource: Resource, str: String): Int {
-            val crc32 = CRC32()
+        private fun extractDependencies(resource: Resource, line: String): List<MigrationVersion>? {
+            val header = DEPENDENCIES_HEADER.find(line) ?: return null
 
             try {
-                BufferedReader(StringReader(str)).forEachLine { line ->
-                    crc32.update(line.toByteArray(charset("UTF-8")))
-                }
-            } catch (e: IOException) {
-                val message = "Unable to calculate checksum for ${resource.location} (${resource.locationOnDisk})"
-                throw CassandraMigrationException(message, e)
+                return header.groupValues[2]
+                        .split(',')
+                        .map { it.trim() }
+                        .filter { it.isNotEmpty() }
+                        .map { MigrationVersion.fromVersion(it) }
+            } catch (e: Exception) {
+                throw CassandraMigrationException("Invalid dependencies declared in ${resource.location}: ${header.value}", e)
             }
+        }
 
+        /**
+         * Calculates the checksum of these bytes.
+         *
+         * @param bytes The bytes to calculate the checksum for.
+         * @return The crc-32 checksum of the bytes.
+         */
+        @Deprecated("Replaced with `ScriptChecksums.calculate(resource: Resource, encoding: String, algorithm: ChecksumAlgorithm)`")
+        private fun calculateChecksum(bytes: ByteArray): Int {
+            val crc32 = CRC32()
+            crc32.update(bytes)
             return crc32.value.toInt()
         }
 
@@ -0,0 +1,128 @@
+/**
+ * File     : ResourceContent.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.resolver.cql
+
+import com.hhandoko.cassandra.migration.api.CassandraMigrationException
+import com.hhandoko.cassandra.migration.internal.util.FileCopyUtils
+import com.hhandoko.cassandra.migration.internal.util.scanner.Resource
+import java.io.ByteArrayInputStream
+import java.io.InputStream
+import java.io.InputStreamReader
+import java.io.Reader
+import java.io.StringReader
+import java.nio.charset.Charset
+
+/**
+ * The content of a resource held in memory, read once and shared between the resolution and the execution of a CQL
+ * migration. The text is only decoded when it is first loaded as a string.
+ *
+ * @param resource The resource the content is read from.
+ * @param bytes The raw content of the resource.
+ * @param encoding The encoding of the content.
+ */
+class ResourceContent(
+    private val resource: Resource,
+    private val bytes: ByteArray,
+    val encoding: String
+) : Resource by resource {
+
+    /**
+     * The size of the content, in bytes.
+     */
+    val size: Int
+        get() = bytes.size
+
+    /**
+     * The lazily decoded text of the content.
+     */
+    private val lazyText = lazy { decode(encoding) }
+
+    /**
+     * The text of the content, decoded on first access.
+     */
+    val text: String
+        get() = lazyText.value
+
+    /**
+     * Loads this content as a string, decoding it only once in its own encoding.
+     *
+     * @param encoding The encoding to use.
+     * @return The string contents of the resource.
+     */
+    override fun loadAsString(encoding: String): String {
+        return if (isEncodedIn(encoding)) text else decode(encoding)
+    }
+
+    /**
+     * Loads this content as a byte array.
+     *
+     * @return A copy of the contents of the resource.
+     */
+    override fun loadAsBytes(): ByteArray {
+        return bytes.copyOf()
+    }
+
+    /**
+     * Opens this content as a character stream, reusing the text if it has already been decoded.
+     *
+     * @param encoding The encoding to use.
+     * @return The character stream of the content.
+     */
+    override fun openReader(encoding: String): Reader {
+        // NOTE: Decoding the text here would hold both the bytes and the text in memory for no gain
+        return if (lazyText.isInitialized() && isEncodedIn(encoding)) {
+            StringReader(text)
+        } else {
+            FileCopyUtils.skipBom(InputStreamReader(openInputStream(), Charset.forName(encoding)))
+        }
+    }
+
+    /**
+     * Opens this content as a byte stream.
+     *
+     * @return The byte stream of the content.
+     */
+    override fun openInputStream(): InputStream {
+        return ByteArrayInputStream(bytes)
+    }
+
+    /**
+     * Decodes this content, skipping a leading BOM as the resource itself does.
+     *
+     * @param encoding The encoding to use.
+     * @return The text of the content.
+     */
+    private fun decode(encoding: String): String {
+        return String(bytes, Charset.forName(encoding)).removePrefix("\uFEFF")
+    }
+
+    /**
+     * Checks whether this content is in the given encoding.
+     *
+     * @param encoding The encoding to check.
+     * @return `true` if it is.
+     */
+    fun isEncodedIn(encoding: String): Boolean {
+        try {
+            return Charset.forName(this.encoding) == Charset.forName(encoding)
+        } catch (e: IllegalArgumentException) {
+            throw CassandraMigrationException("Unknown encoding: $encoding", e)
+        }
+    }
+
+}
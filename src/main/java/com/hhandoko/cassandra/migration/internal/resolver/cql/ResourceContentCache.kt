@@ -0,0 +1,180 @@
+/**
+ * File     : ResourceContentCache.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.resolver.cql
+
+import com.hhandoko.cassandra.migration.api.CassandraMigrationException
+import com.hhandoko.cassandra.migration.api.MigrationVersion
+import com.hhandoko.cassandra.migration.internal.util.logging.LogFactory
+import com.hhandoko.cassandra.migration.internal.util.scanner.Resource
+import java.io.ByteArrayOutputStream
+import java.io.IOException
+import java.util.*
+
+/**
+ * Cache of the content of CQL migration resources, so that each resource is read once for both its resolution and its
+ * execution within a command.
+ *
+ * The cached content is bounded by a memory budget. When the budget is used up, the content of the lowest migration
+ * versions is evicted to make room, since the highest versions are the most likely to be pending (rather than already
+ * applied). Migrations are resolved concurrently, so the order in which they are cached says nothing of their version.
+ * A resource whose content exceeds the whole budget, or that would only fit by evicting higher versions, is not cached,
+ * and is read from the resource itself whenever needed. The content of a migration is released once it has been
+ * executed, giving its share of the budget back.
+ *
+ * @param budget The memory budget of the cached content, in bytes. `0` disables caching.
+ */
+class ResourceContentCache(val budget: Long) {
+
+    /**
+     * The cached content, by resource location.
+     */
+    private val contents = HashMap<String, ResourceContent>()
+
+    /**
+     * The location of the cached content, by migration version, in eviction order.
+     */
+    private val locations = TreeMap<MigrationVersion, String>()
+
+    /**
+     * The size of the cached content, in bytes.
+     */
+    var usage = 0L
+        private set
+
+    /**
+     * Retrieves the cached content of this resource, reading it if it fits in the budget, and caching it if it does
+     * not displace the content of higher versions.
+     *
+     * @param resource The resource to retrieve the content of.
+     * @param encoding The encoding of the content.
+     * @param version The migration version of the resource, deciding the order of eviction.
+     * @return The content of the resource, or `null` if it exceeds the budget.
+     * @throws CassandraMigrationException when the resource cannot be read.
+     */
+    fun load(resource: Resource, encoding: String, version: MigrationVersion): ResourceContent? {
+        get(resource, encoding)?.let { return it }
+
+        if (budget <= 0) return null
+
+        // NOTE: The resource is read outside the lock, so that resources can be read concurrently
+        val bytes = read(resource, budget) ?: return null
+        val content = ResourceContent(resource, bytes, encoding)
+
+        synchronized(this) {
+            val cached = contents[resource.location]
+            if (cached != null) return cached
+
+            // GUARD: Keep the content of higher versions, and of another resource of the same version
+            if (locations.containsKey(version) || usage - evictableUsage(version) + bytes.size > budget) return content
+
+            while (usage + bytes.size > budget) {
+                val lowest = locations.pollFirstEntry()
+                LOG.debug("Evicting ${lowest.value} from the cache, exceeding the budget of $budget bytes")
+                contents.remove(lowest.value)?.let { usage -= it.size }
+            }
+
+            contents.put(resource.location, content)
+            locations.put(version, resource.location)
+            usage += bytes.size
+        }
+
+        return content
+    }
+
+    /**
+     * Retrieves the cached content of this resource.
+     *
+     * @param resource The resource to retrieve the content of.
+     * @param encoding The encoding of the content.
+     * @return The cached content of the resource, or `null` if not cached (in this encoding).
+     */
+    @Synchronized
+    fun get(resource: Resource, encoding: String): ResourceContent? {
+        val content = contents[resource.location] ?: return null
+        return if (content.isEncodedIn(encoding)) content else null
+    }
+
+    /**
+     * Releases the cached content of this resource, giving its share of the budget back.
+     *
+     * @param resource The resource to release the content of.
+     */
+    @Synchronized
+    fun release(resource: Resource) {
+        val content = contents.remove(resource.location) ?: return
+        locations.values.remove(resource.location)
+        usage -= content.size
+    }
+
+    /**
+     * Calculates the size of the cached content of the versions lower than this version, which can be evicted to make
+     * room for its content.
+     *
+     * @param version The migration version to make room for.
+     * @return The size of the evictable content, in bytes.
+     */
+    private fun evictableUsage(version: MigrationVersion): Long {
+        return locations.headMap(version).values.fold(0L) { total, location -> total + (contents[location]?.size ?: 0) }
+    }
+
+    /**
+     * Reads the content of this resource, as long as it fits in the given limit.
+     *
+     * @param resource The resource to read.
+     * @param limit The maximum size of the content, in bytes.
+     * @return The content of the resource, or `null` if it exceeds the limit.
+     * @throws CassandraMigrationException when the resource cannot be read.
+     */
+    private fun read(resource: Resource, limit: Long): ByteArray? {
+        try {
+            resource.openInputStream().use { input ->
+                val output = ByteArrayOutputStream()
+                val buffer = ByteArray(BUFFER_SIZE)
+                while (true) {
+                    val count = input.read(buffer)
+                    if (count < 0) break
+
+                    if (output.size() + count > limit) {
+                        LOG.debug("Not caching ${resource.location}, exceeding the budget of $limit bytes")
+                        return null
+                    }
+                    output.write(buffer, 0, count)
+                }
+                return output.toByteArray()
+            }
+        } catch (e: IOException) {
+            throw CassandraMigrationException("Unable to load resource: ${resource.location}", e)
+        }
+    }
+
+    /**
+     * ResourceContentCache companion object.
+     */
+    companion object {
+        private val LOG = LogFactory.getLog(ResourceContentCache::class.java)
+
+        /** The number of bytes read from a resource at a time. */
+        private val BUFFER_SIZE = 8192
+
+        /**
+         * Cache that does not cache anything.
+         */
+        @JvmField val NONE = ResourceContentCache(0L)
+    }
+
+}
@@ -20,15 +20,18 @@ package com.hhandoko.cassandra.migration.internal.resolver.java
 
 import com.datastax.driver.core.Session
 import com.hhandoko.cassandra.migration.api.CassandraMigrationException
+import com.hhandoko.cassandra.migration.api.MigrationCancelledException
+import com.hhandoko.cassandra.migration.api.migration.CancellationToken
+import com.hhandoko.cassandra.migration.api.migration.java.CancellableJavaMigration
 import com.hhandoko.cassandra.migration.api.migration.java.JavaMigration
-import com.hhandoko.cassandra.migration.api.resolver.MigrationExecutor
+import com.hhandoko.cassandra.migration.api.resolver.CancellableMigrationExecutor
 
 /**
  * Adapter for executing migrations implementing JavaMigration.
  *
  * @param javaMigration The Java-based migration to execute.
  */
-class JavaMigrationExecutor(private val javaMigration: JavaMigration) : MigrationExecutor {
+class JavaMigrationExecutor(private val javaMigration: JavaMigration) : CancellableMigrationExecutor {
 
     /**
      * Execute the Java driver-based migration.
@@ -38,8 +41,26 @@ class JavaMigrationExecutor(private val javaMigration: JavaMigration) : Migratio
      */
     @Throws(CassandraMigrationException::class)
     override fun execute(session: Session) {
+        execute(session, CancellationToken.NONE)
+    }
+
+    /**
+     * Execute the Java driver-based migration, handing it the cancellation token if it is cancellable.
+     *
+     * @param session The Cassandra session connection to use to execute the migration.
+     * @param cancellationToken The cancellation token to poll.
+     * @throws CassandraMigrationException when the execution of the migration failed.
+     * @throws MigrationCancelledException when the migration stopped early, as the token has been cancelled.
+     */
+    @Throws(CassandraMigrationException::class)
+    override fun execute(session: Session, cancellationToken: CancellationToken) {
         try {
-            javaMigration.migrate(session)
+            when (javaMigration) {
+                is CancellableJavaMigration -> javaMigration.migrate(session, cancellationToken)
+                else                        -> javaMigration.migrate(session)
+            }
+        } catch (e: MigrationCancelledException) {
+            throw e
         } catch (e: Exception) {
             throw CassandraMigrationException("Migration failed !", e)
         }
@@ -22,6 +22,7 @@ import com.hhandoko.cassandra.migration.api.CassandraMigrationException
 import com.hhandoko.cassandra.migration.api.MigrationType
 import com.hhandoko.cassandra.migration.api.MigrationVersion
 import com.hhandoko.cassandra.migration.api.migration.MigrationChecksumProvider
+import com.hhandoko.cassandra.migration.api.migration.MigrationDependencyProvider
 import com.hhandoko.cassandra.migration.api.migration.MigrationInfoProvider
 import com.hhandoko.cassandra.migration.api.migration.java.JavaMigration
 import com.hhandoko.cassandra.migration.api.resolver.MigrationResolver
@@ -116,6 +117,9 @@ class JavaMigrationResolver(
         resolvedMigration.script = script
         resolvedMigration.checksum = checksum
         resolvedMigration.type = MigrationType.JAVA_DRIVER
+        if (javaMigration is MigrationDependencyProvider) {
+            resolvedMigration.dependencies = javaMigration.dependencies.toList()
+        }
         return resolvedMigration
     }
 }
@@ -18,9 +18,14 @@
  */
 package com.hhandoko.cassandra.migration.internal.util;
 
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.RegularStatement;
 import com.datastax.driver.core.Session;
 
 /**
@@ -28,9 +33,17 @@ import com.datastax.driver.core.Session;
  */
 public class CachePrepareStatement {
     /**
-     * Prepared statement cache.
+     * Prepared statement caches per connection session, released once no longer used.
+     * The caches are weakly referenced too, since a cache (and its prepared statements, through their cluster)
+     * references its session, which would otherwise never be released.
      */
-    private ConcurrentHashMap<Integer, PreparedStatement> cacheStatement = new ConcurrentHashMap<>();
+    private static final Map<Session, WeakReference<CachePrepareStatement>> SESSION_CACHES =
+            Collections.synchronizedMap(new WeakHashMap<Session, WeakReference<CachePrepareStatement>>());
+
+    /**
+     * Prepared statement cache, keyed by the full query string.
+     */
+    private ConcurrentHashMap<String, PreparedStatement> cacheStatement = new ConcurrentHashMap<>();
 
     /**
      * Current connection session.
@@ -46,6 +59,36 @@ public class CachePrepareStatement {
         this.session = session;
     }
 
+    /**
+     * Retrieve the prepared statement cache shared by all current users of the given session, so that each statement
+     * is only prepared once per session while the cache is in use.
+     *
+     * @param session The Cassandra driver connection session.
+     * @return The session prepared statement cache.
+     */
+    public static CachePrepareStatement forSession(Session session) {
+        synchronized (SESSION_CACHES) {
+            WeakReference<CachePrepareStatement> reference = SESSION_CACHES.get(session);
+            CachePrepareStatement cache = reference != null ? reference.get() : null;
+            if (cache == null) {
+                cache = new CachePrepareStatement(session);
+                SESSION_CACHES.put(session, new WeakReference<>(cache));
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * Retrieve the prepared statement cache currently in use for the given session, if any.
+     *
+     * @param session The Cassandra driver connection session.
+     * @return The session prepared statement cache, {@code null} if none is in use.
+     */
+    static CachePrepareStatement cachedFor(Session session) {
+        WeakReference<CachePrepareStatement> reference = SESSION_CACHES.get(session);
+        return reference != null ? reference.get() : null;
+    }
+
     /**
      * Prepare the given prepared statement string.
      * Retrieve it from cache if exists, or prepare and store it in cache for later use.
@@ -53,13 +96,26 @@ public class CachePrepareStatement {
      * @param s The prepared statement string.
      * @return PreparedStatement.
      */
-    public PreparedStatement prepare(String s){
-        Integer hash = s.hashCode();
-        PreparedStatement ps = cacheStatement.get(hash);
+    public PreparedStatement prepare(String s) {
+        PreparedStatement ps = cacheStatement.get(s);
         if (ps == null) {
             ps = session.prepare(s);
-            cacheStatement.put(hash, ps);
+            PreparedStatement existing = cacheStatement.putIfAbsent(s, ps);
+            if (existing != null) {
+                ps = existing;
+            }
         }
         return ps;
     }
+
+    /**
+     * Prepare the given statement (e.g. built through the query builder).
+     * Retrieve it from cache if exists, or prepare and store it in cache for later use.
+     *
+     * @param statement The statement to prepare.
+     * @return PreparedStatement.
+     */
+    public PreparedStatement prepare(RegularStatement statement) {
+        return prepare(statement.getQueryString());
+    }
 }
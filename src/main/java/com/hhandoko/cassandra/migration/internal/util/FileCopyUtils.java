@@ -52,6 +52,23 @@ public class FileCopyUtils {
         return str;
     }
 
+    /**
+     * Skip the UTF-8 BOM at the start of the given Reader, if any, as when copying its contents into a String.
+     *
+     * @param in the reader to skip the BOM of
+     * @return the reader positioned after the BOM
+     * @throws IOException in case of I/O errors
+     */
+    public static Reader skipBom(Reader in) throws IOException {
+        PushbackReader reader = new PushbackReader(in, 1);
+        int c = reader.read();
+        if (c != -1 && c != '\ufeff') {
+            reader.unread(c);
+        }
+
+        return reader;
+    }
+
     /**
      * Copy the contents of the given InputStream into a new byte array.
      * Closes the stream when done.
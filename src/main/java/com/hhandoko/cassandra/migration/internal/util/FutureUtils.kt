@@ -0,0 +1,125 @@
+/**
+ * File     : FutureUtils.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.util
+
+import com.google.common.base.Function
+import com.google.common.util.concurrent.*
+import com.hhandoko.cassandra.migration.api.CassandraMigrationException
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+/**
+ * Listenable future utility.
+ */
+object FutureUtils {
+
+    /**
+     * Default executor for future callbacks, so that callbacks never run on (and block) the driver's I/O threads.
+     */
+    val DEFAULT_EXECUTOR: Executor = Executors.newCachedThreadPool(
+            ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("cassandra-migration-%d")
+                    .build()
+    )
+
+    /**
+     * Scheduler of delayed future callbacks, only handing the callbacks over to their executor once due.
+     */
+    private val DELAY_SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+            ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("cassandra-migration-delay-%d")
+                    .build()
+    )
+
+    /**
+     * Run the given asynchronous function once the given delay has elapsed, without blocking a thread meanwhile.
+     *
+     * @param delay The delay, in milliseconds.
+     * @param executor The executor to run the function on.
+     * @param function The asynchronous function to run.
+     * @return The future result of the function.
+     */
+    fun <O> delay(delay: Long, executor: Executor, function: () -> ListenableFuture<O>): ListenableFuture<O> {
+        val delayed = SettableFuture.create<O>()
+        DELAY_SCHEDULER.schedule(Runnable {
+            try {
+                executor.execute {
+                    try {
+                        delayed.setFuture(function())
+                    } catch (e: Throwable) {
+                        delayed.setException(e)
+                    }
+                }
+            } catch (e: Throwable) {
+                delayed.setException(e)
+            }
+        }, delay, TimeUnit.MILLISECONDS)
+        return delayed
+    }
+
+    /**
+     * Chain the given asynchronous function, once the given future completes.
+     *
+     * @param future The future to chain from.
+     * @param executor The executor to run the function on.
+     * @param function The asynchronous function to apply to the future result.
+     * @return The future result of the function.
+     */
+    @Suppress("UNCHECKED_CAST")
+    fun <I, O> then(future: ListenableFuture<I>, executor: Executor, function: (I) -> ListenableFuture<O>): ListenableFuture<O> {
+        return Futures.transformAsync(future, AsyncFunction<I, O> { input -> function(input as I) }, executor)
+    }
+
+    /**
+     * Transform the given future result, once it completes.
+     *
+     * @param future The future to transform.
+     * @param executor The executor to run the function on.
+     * @param function The function to apply to the future result.
+     * @return The future transformed result.
+     */
+    @Suppress("UNCHECKED_CAST")
+    fun <I, O> map(future: ListenableFuture<I>, executor: Executor, function: (I) -> O): ListenableFuture<O> {
+        return Futures.transform(future, Function<I, O> { input -> function(input as I) }, executor)
+    }
+
+    /**
+     * Wait uninterruptibly for the given future to complete, rethrowing the cause of its failure.
+     *
+     * @param future The future to wait for.
+     * @return The future result.
+     * @throws CassandraMigrationException when the future failed with a checked exception.
+     */
+    fun <T> getUninterruptibly(future: ListenableFuture<T>): T {
+        try {
+            return Uninterruptibles.getUninterruptibly(future)
+        } catch (e: ExecutionException) {
+            val cause = e.cause
+            when (cause) {
+                is RuntimeException -> throw cause
+                is Error            -> throw cause
+                else                -> throw CassandraMigrationException(cause?.message ?: "Asynchronous operation failed", e)
+            }
+        }
+    }
+
+}
@@ -18,6 +18,9 @@
  */
 package com.hhandoko.cassandra.migration.internal.util.scanner;
 
+import java.io.InputStream;
+import java.io.Reader;
+
 /**
  * A loadable resource.
  */
@@ -42,6 +45,24 @@ public interface Resource {
      */
     String loadAsString(String encoding);
 
+    /**
+     * Opens this resource as a character stream, so that it can be read without loading it whole in memory.
+     * A leading UTF-8 BOM is skipped, as when loading this resource as a string.
+     * The caller is responsible for closing the reader.
+     *
+     * @param encoding The encoding to use.
+     * @return The character stream of the resource.
+     */
+    Reader openReader(String encoding);
+
+    /**
+     * Opens this resource as a byte stream, so that it can be read without loading it whole in memory.
+     * The caller is responsible for closing the stream.
+     *
+     * @return The byte stream of the resource.
+     */
+    InputStream openInputStream();
+
     /**
      * Loads this resource as a byte array.
      *
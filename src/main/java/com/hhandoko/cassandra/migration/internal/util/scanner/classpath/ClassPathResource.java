@@ -89,6 +89,22 @@ public class ClassPathResource implements Comparable<ClassPathResource>, Resourc
         }
     }
 
+    public Reader openReader(String encoding) {
+        try {
+            return FileCopyUtils.skipBom(new InputStreamReader(openInputStream(), Charset.forName(encoding)));
+        } catch (IOException e) {
+            throw new CassandraMigrationException("Unable to load resource: " + location + " (encoding: " + encoding + ")", e);
+        }
+    }
+
+    public InputStream openInputStream() {
+        InputStream inputStream = classLoader.getResourceAsStream(location);
+        if (inputStream == null) {
+            throw new CassandraMigrationException("Unable to obtain inputstream for resource: " + location);
+        }
+        return inputStream;
+    }
+
     public byte[] loadAsBytes() {
         try {
             InputStream inputStream = classLoader.getResourceAsStream(location);
@@ -77,6 +77,33 @@ public class FileSystemResource implements Resource, Comparable<FileSystemResour
         }
     }
 
+    /**
+     * Opens this resource as a character stream.
+     *
+     * @param encoding The encoding to use.
+     * @return The character stream of the resource.
+     */
+    public Reader openReader(String encoding) {
+        try {
+            return FileCopyUtils.skipBom(new InputStreamReader(openInputStream(), Charset.forName(encoding)));
+        } catch (IOException e) {
+            throw new CassandraMigrationException("Unable to load filesystem resource: " + location.getPath() + " (encoding: " + encoding + ")", e);
+        }
+    }
+
+    /**
+     * Opens this resource as a byte stream.
+     *
+     * @return The byte stream of the resource.
+     */
+    public InputStream openInputStream() {
+        try {
+            return new FileInputStream(location);
+        } catch (IOException e) {
+            throw new CassandraMigrationException("Unable to open filesystem resource: " + location.getPath(), e);
+        }
+    }
+
     /**
      * Loads this resource as a byte array.
      *
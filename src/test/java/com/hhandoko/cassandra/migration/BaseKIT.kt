@@ -21,8 +21,10 @@ package com.hhandoko.cassandra.migration
 import com.datastax.driver.core.Cluster
 import com.datastax.driver.core.Session
 import com.datastax.driver.core.SimpleStatement
+import com.hhandoko.cassandra.migration.api.MigrationVersion
 import com.hhandoko.cassandra.migration.api.configuration.ConfigurationProperty
 import com.hhandoko.cassandra.migration.api.configuration.KeyspaceConfiguration
+import com.hhandoko.cassandra.migration.internal.dbsupport.SchemaVersionDAO
 import com.typesafe.config.ConfigFactory
 import io.github.config4k.extract
 import io.kotlintest.specs.FreeSpec
@@ -70,6 +72,9 @@ open class BaseKIT : FreeSpec() {
             conf.extract<Boolean?>("cassandra.migration.disable_embedded")
                 ?: false
 
+    /** Integration test migration script locations */
+    val INTEG_LOCATIONS = arrayOf("migration/integ", "migration/integ/java")
+
     /** Cluster connection session */
     private var session: Session? = null
 
@@ -146,6 +151,46 @@ open class BaseKIT : FreeSpec() {
         return ks
     }
 
+    /**
+     * Get the keyspace configuration, with the given settings applied.
+     *
+     * @param configure The settings to apply to the keyspace configuration.
+     */
+    protected fun getKeyspace(configure: KeyspaceConfiguration.() -> Unit): KeyspaceConfiguration {
+        val ks = getKeyspace()
+        ks.configure()
+        return ks
+    }
+
+    /**
+     * Create a Cassandra migration of the given migration script locations.
+     *
+     * @param keyspaceConfig The keyspace configuration.
+     * @param locations The migration script locations.
+     */
+    protected fun createMigration(
+        keyspaceConfig: KeyspaceConfiguration = getKeyspace(),
+        locations: Array<String> = INTEG_LOCATIONS
+    ): CassandraMigration {
+        val cm = CassandraMigration()
+        cm.locations = locations
+        cm.keyspaceConfig = keyspaceConfig
+        return cm
+    }
+
+    /**
+     * Create a schema version DAO of the migration history written by the Cassandra migrations.
+     *
+     * @param keyspaceConfig The keyspace configuration.
+     * @param table The schema version table name.
+     */
+    protected fun createSchemaVersionDAO(
+        keyspaceConfig: KeyspaceConfiguration = getKeyspace(),
+        table: String = MigrationVersion.CURRENT.table
+    ): SchemaVersionDAO {
+        return SchemaVersionDAO(getSession(), keyspaceConfig, table)
+    }
+
     /**
      * Get the active connection session.
      */
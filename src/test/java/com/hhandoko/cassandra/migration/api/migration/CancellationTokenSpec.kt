@@ -0,0 +1,72 @@
+/**
+ * File     : CancellationTokenSpec.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.api.migration
+
+import com.hhandoko.cassandra.migration.api.MigrationCancelledException
+import io.kotlintest.specs.FreeSpec
+
+/**
+ * CancellationToken unit tests.
+ */
+class CancellationTokenSpec : FreeSpec() {
+
+    init {
+
+        "CancellationToken" - {
+
+            "should not be cancelled without deadline" {
+                CancellationToken.withDeadline(0).isCancelled shouldBe false
+                CancellationToken.NONE.isCancelled shouldBe false
+            }
+
+            "should be cancelled once its deadline has expired" {
+                val token = CancellationToken.withDeadline(1)
+                Thread.sleep(10)
+
+                token.isCancelled shouldBe true
+                shouldThrow<MigrationCancelledException> { token.throwIfCancelled() }
+            }
+
+            "should be cancelled along with the token it is derived from" {
+                val parent = CancellationToken.withDeadline(0)
+                val token = parent.withTimeout(60000)
+                parent.cancel()
+
+                token.isCancelled shouldBe true
+            }
+
+            "should not cancel the token it is derived from" {
+                val parent = CancellationToken.withDeadline(0)
+                val token = parent.withTimeout(0)
+                token.cancel()
+
+                token.isCancelled shouldBe true
+                parent.isCancelled shouldBe false
+            }
+
+            "should never cancel the shared token without deadline" {
+                CancellationToken.NONE.cancel()
+
+                CancellationToken.NONE.isCancelled shouldBe false
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,121 @@
+/**
+ * File     : AppliedMigrationRowMapperBenchmark.java
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.benchmark;
+
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.Row;
+import com.hhandoko.cassandra.migration.api.MigrationType;
+import com.hhandoko.cassandra.migration.api.MigrationVersion;
+import com.hhandoko.cassandra.migration.internal.dbsupport.AppliedMigrationRowMapper;
+import com.hhandoko.cassandra.migration.internal.metadatatable.AppliedMigration;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decode cost per schema migration version table row, by column name (previous decoding) and by column index.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class AppliedMigrationRowMapperBenchmark {
+
+    private static final int ROWS = 1000;
+
+    private static final DataType[] TYPES = {
+            DataType.cint(), DataType.cint(), DataType.text(),
+            DataType.text(), DataType.text(), DataType.text(),
+            DataType.cint(), DataType.timestamp(), DataType.text(),
+            DataType.cint(), DataType.cboolean()
+    };
+
+    private List<Row> rows;
+
+    private AppliedMigrationRowMapper warmMapper;
+
+    @Setup
+    public void setup() {
+        BenchmarkRows builder = new BenchmarkRows(AppliedMigrationRowMapper.Companion.getCOLUMNS(), TYPES);
+
+        rows = new ArrayList<>(ROWS);
+        for (int i = 1; i <= ROWS; i++) {
+            rows.add(builder.row(
+                    i, i, "1." + i,
+                    "Migration " + i, MigrationType.CQL.name(), "V1_" + i + "__Migration.cql",
+                    i % 2 == 0 ? null : i * 31, new Date(), "cassandra",
+                    42, true
+            ));
+        }
+
+        warmMapper = new AppliedMigrationRowMapper();
+        for (Row row : rows) {
+            warmMapper.map(row);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void byName(Blackhole blackhole) {
+        for (Row row : rows) {
+            blackhole.consume(mapByName(row));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void byIndex(Blackhole blackhole) {
+        AppliedMigrationRowMapper mapper = new AppliedMigrationRowMapper();
+        for (Row row : rows) {
+            blackhole.consume(mapper.map(row));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void byIndexCachedVersions(Blackhole blackhole) {
+        for (Row row : rows) {
+            blackhole.consume(warmMapper.map(row));
+        }
+    }
+
+    /**
+     * The row decoding previously used by SchemaVersionDAO.
+     */
+    private static AppliedMigration mapByName(Row row) {
+        return new AppliedMigration(
+                row.getInt("version_rank"),
+                row.getInt("installed_rank"),
+                MigrationVersion.Companion.fromVersion(row.getString("version")),
+                row.getString("description"),
+                MigrationType.valueOf(row.getString("type")),
+                row.getString("script"),
+                row.isNull("checksum") ? null : row.getInt("checksum"),
+                row.getTimestamp("installed_on"),
+                row.getString("installed_by"),
+                row.getInt("execution_time"),
+                row.getBool("success")
+        );
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * File     : BenchmarkRows.java
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.benchmark;
+
+import com.datastax.driver.core.CodecRegistry;
+import com.datastax.driver.core.ColumnDefinitions;
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.ProtocolVersion;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.TypeCodec;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Builds driver rows without a Cassandra connection, for microbenchmarks.
+ * The rows hold their values serialized and decode them with the driver codecs on each read, as driver rows do.
+ */
+final class BenchmarkRows {
+
+    private final Map<String, Integer> indexes = new HashMap<>();
+
+    private final TypeCodec<Object>[] codecs;
+
+    private final ColumnDefinitions definitions;
+
+    /**
+     * Creates a builder of rows with the given columns.
+     *
+     * @param names The column names.
+     * @param types The column types, in the same order as the names.
+     */
+    @SuppressWarnings("unchecked")
+    BenchmarkRows(String[] names, DataType[] types) {
+        this.codecs = new TypeCodec[types.length];
+        for (int i = 0; i < names.length; i++) {
+            indexes.put(names[i], i);
+            codecs[i] = CodecRegistry.DEFAULT_INSTANCE.codecFor(types[i]);
+        }
+
+        definitions = mock(ColumnDefinitions.class);
+        when(definitions.getIndexOf(anyString())).thenAnswer(new Answer<Integer>() {
+            @Override
+            public Integer answer(InvocationOnMock invocation) {
+                return indexOf((String) invocation.getArguments()[0]);
+            }
+        });
+    }
+
+    /**
+     * Creates a row with the given values.
+     *
+     * @param values The column values, in the same order as the column names.
+     * @return The row.
+     */
+    Row row(Object... values) {
+        final ByteBuffer[] data = new ByteBuffer[values.length];
+        for (int i = 0; i < values.length; i++) {
+            data[i] = values[i] == null ? null : codecs[i].serialize(values[i], ProtocolVersion.NEWEST_SUPPORTED);
+        }
+
+        return (Row) Proxy.newProxyInstance(
+                Row.class.getClassLoader(),
+                new Class<?>[] { Row.class },
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        String name = method.getName();
+                        if (name.equals("getColumnDefinitions")) {
+                            return definitions;
+                        }
+
+                        int i = args[0] instanceof String ? indexOf((String) args[0]) : (Integer) args[0];
+                        if (name.equals("isNull")) {
+                            return data[i] == null;
+                        }
+                        if (data[i] == null) {
+                            return method.getReturnType() == int.class ? 0
+                                    : method.getReturnType() == boolean.class ? (Object) false
+                                    : null;
+                        }
+                        return codecs[i].deserialize(data[i].duplicate(), ProtocolVersion.NEWEST_SUPPORTED);
+                    }
+                });
+    }
+
+    /**
+     * Resolves the index of the given column.
+     *
+     * @param name The column name.
+     * @return The column index.
+     * @throws IllegalArgumentException if there is no such column.
+     */
+    private int indexOf(String name) {
+        Integer index = indexes.get(name);
+        if (index == null) {
+            throw new IllegalArgumentException(name + " is not a column defined in this metadata");
+        }
+        return index;
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * File     : CqlScriptParseBenchmark.java
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.benchmark;
+
+import com.hhandoko.cassandra.migration.internal.dbsupport.CqlScript;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse cost per line of a seed-data CQL script, mixing multi-line statements, comments and string literals.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class CqlScriptParseBenchmark {
+
+    private static final int STATEMENTS = 10000;
+
+    private static final int LINES_PER_STATEMENT = 4;
+
+    private String source;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i <= STATEMENTS; i++) {
+            sb.append("-- Seed content ").append(i).append('\n');
+            sb.append("INSERT INTO contents (id, title, body)\n");
+            sb.append("  VALUES (").append(i).append(", 'Title ").append(i).append("', 'It''s body; /* not a comment */')\n");
+            sb.append(";\n");
+        }
+        source = sb.toString();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STATEMENTS * LINES_PER_STATEMENT)
+    public List<String> parse() {
+        return new CqlScript(source).getCqlStatements();
+    }
+}
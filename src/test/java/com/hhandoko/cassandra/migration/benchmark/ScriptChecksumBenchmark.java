@@ -0,0 +1,93 @@
+/**
+ * File     : ScriptChecksumBenchmark.java
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.benchmark;
+
+import com.hhandoko.cassandra.migration.internal.resolver.checksum.ChecksumAlgorithms;
+import com.hhandoko.cassandra.migration.internal.resolver.checksum.ScriptChecksums;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+/**
+ * Checksum cost of a 1 MB CQL script: the line by line CRC-32 of earlier versions, against the standard algorithms
+ * over the raw bytes of the script.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ScriptChecksumBenchmark {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int SCRIPT_SIZE = 1024 * 1024;
+
+    /**
+     * The script, shared by the baseline and the algorithms so that the baseline is not run once per algorithm.
+     */
+    @State(Scope.Thread)
+    public static class Script {
+
+        private byte[] bytes;
+
+        @Setup
+        public void setup() {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 1; sb.length() < SCRIPT_SIZE; i++) {
+                sb.append("INSERT INTO contents (id, title) VALUES (").append(i).append(", 'Title ").append(i).append("');\n");
+            }
+            bytes = sb.toString().getBytes(UTF_8);
+        }
+    }
+
+    /**
+     * The checksum algorithm, compared against the baseline.
+     */
+    @State(Scope.Thread)
+    public static class Algorithm {
+
+        @Param({"CRC32", "CRC32C", "XXHASH64"})
+        private String algorithm;
+    }
+
+    @Benchmark
+    public long lineByLine(Script script) throws IOException {
+        CRC32 crc32 = new CRC32();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(script.bytes), UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            crc32.update(line.getBytes(UTF_8));
+        }
+        return crc32.getValue();
+    }
+
+    @Benchmark
+    public long rawBytes(Script script, Algorithm algorithm) throws IOException {
+        Checksum checksum = ChecksumAlgorithms.valueOf(algorithm.algorithm).newChecksum();
+        ScriptChecksums.INSTANCE.update(checksum, new ByteArrayInputStream(script.bytes));
+        return checksum.getValue();
+    }
+}
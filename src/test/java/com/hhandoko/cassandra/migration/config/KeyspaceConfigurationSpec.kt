@@ -22,6 +22,8 @@ import com.datastax.driver.core.ConsistencyLevel
 import com.hhandoko.cassandra.migration.api.configuration.ClusterConfiguration
 import com.hhandoko.cassandra.migration.api.configuration.ConfigurationProperty
 import com.hhandoko.cassandra.migration.api.configuration.KeyspaceConfiguration
+import com.hhandoko.cassandra.migration.api.configuration.RankAllocation
+import com.hhandoko.cassandra.migration.api.configuration.TableLayout
 import io.kotlintest.matchers.be
 import io.kotlintest.specs.FreeSpec
 import java.util.*
@@ -39,6 +41,18 @@ class KeyspaceConfigurationSpec : FreeSpec() {
     fun clearTestProperties() {
         System.clearProperty(ConfigurationProperty.KEYSPACE_NAME.namespace)
         System.clearProperty(ConfigurationProperty.CONSISTENCY_LEVEL.namespace)
+        System.clearProperty(ConfigurationProperty.READ_CONSISTENCY_LEVEL.namespace)
+        System.clearProperty(ConfigurationProperty.WRITE_CONSISTENCY_LEVEL.namespace)
+        System.clearProperty(ConfigurationProperty.SERIAL_CONSISTENCY_LEVEL.namespace)
+        System.clearProperty(ConfigurationProperty.QUERY_TABLE_CHECK.namespace)
+        System.clearProperty(ConfigurationProperty.TABLE_LAYOUT.namespace)
+        System.clearProperty(ConfigurationProperty.TABLE_COMPACTION.namespace)
+        System.clearProperty(ConfigurationProperty.TABLE_CACHING.namespace)
+        System.clearProperty(ConfigurationProperty.TABLE_GC_GRACE_SECONDS.namespace)
+        System.clearProperty(ConfigurationProperty.TABLE_SPECULATIVE_RETRY.namespace)
+        System.clearProperty(ConfigurationProperty.RANK_ALLOCATION.namespace)
+        System.clearProperty(ConfigurationProperty.FETCH_SIZE.namespace)
+        System.clearProperty(ConfigurationProperty.PREFETCH.namespace)
     }
 
     override fun beforeEach() {
@@ -66,6 +80,48 @@ class KeyspaceConfigurationSpec : FreeSpec() {
                     keyspaceConfig.consistency shouldBe null
                 }
 
+                "should have no read and write consistency levels as the default" {
+                    keyspaceConfig.readConsistency shouldBe null
+                    keyspaceConfig.writeConsistency shouldBe null
+                }
+
+                "should have SERIAL serial consistency level as the default" {
+                    keyspaceConfig.serialConsistency shouldBe ConsistencyLevel.SERIAL
+                }
+
+                "should use schema metadata table check as the default" {
+                    keyspaceConfig.queryTableCheck shouldBe false
+                }
+
+                "should have V1 table layout as the default" {
+                    keyspaceConfig.tableLayout shouldBe TableLayout.V1
+                }
+
+                "should have leveled compaction as the default table compaction" {
+                    keyspaceConfig.tableCompaction shouldBe "LeveledCompactionStrategy"
+                }
+
+                "should cache all rows as the default table caching" {
+                    keyspaceConfig.tableCaching shouldBe "ALL"
+                }
+
+                "should use Cassandra's default table GC grace seconds and speculative retry as the default" {
+                    keyspaceConfig.tableGcGraceSeconds shouldBe null
+                    keyspaceConfig.tableSpeculativeRetry shouldBe null
+                }
+
+                "should have counter rank allocation as the default" {
+                    keyspaceConfig.rankAllocation shouldBe RankAllocation.COUNTER
+                }
+
+                "should use the driver's default fetch size as the default" {
+                    keyspaceConfig.fetchSize shouldBe 0
+                }
+
+                "should not prefetch as the default" {
+                    keyspaceConfig.prefetch shouldBe false
+                }
+
                 "should have default cluster object" {
                     keyspaceConfig.clusterConfig should be a ClusterConfiguration::class
                 }
@@ -84,6 +140,66 @@ class KeyspaceConfigurationSpec : FreeSpec() {
                     KeyspaceConfiguration().consistency shouldBe ConsistencyLevel.QUORUM
                 }
 
+                "should allow read consistency level override" {
+                    System.setProperty(ConfigurationProperty.READ_CONSISTENCY_LEVEL.namespace, "LOCAL_QUORUM")
+                    KeyspaceConfiguration().readConsistency shouldBe ConsistencyLevel.LOCAL_QUORUM
+                }
+
+                "should allow write consistency level override" {
+                    System.setProperty(ConfigurationProperty.WRITE_CONSISTENCY_LEVEL.namespace, "LOCAL_QUORUM")
+                    KeyspaceConfiguration().writeConsistency shouldBe ConsistencyLevel.LOCAL_QUORUM
+                }
+
+                "should allow serial consistency level override" {
+                    System.setProperty(ConfigurationProperty.SERIAL_CONSISTENCY_LEVEL.namespace, "LOCAL_SERIAL")
+                    KeyspaceConfiguration().serialConsistency shouldBe ConsistencyLevel.LOCAL_SERIAL
+                }
+
+                "should allow query table check override" {
+                    System.setProperty(ConfigurationProperty.QUERY_TABLE_CHECK.namespace, "true")
+                    KeyspaceConfiguration().queryTableCheck shouldBe true
+                }
+
+                "should allow table layout override" {
+                    System.setProperty(ConfigurationProperty.TABLE_LAYOUT.namespace, "v2")
+                    KeyspaceConfiguration().tableLayout shouldBe TableLayout.V2
+                }
+
+                "should allow table compaction override" {
+                    System.setProperty(ConfigurationProperty.TABLE_COMPACTION.namespace, "SizeTieredCompactionStrategy")
+                    KeyspaceConfiguration().tableCompaction shouldBe "SizeTieredCompactionStrategy"
+                }
+
+                "should allow table caching override" {
+                    System.setProperty(ConfigurationProperty.TABLE_CACHING.namespace, "none")
+                    KeyspaceConfiguration().tableCaching shouldBe "NONE"
+                }
+
+                "should allow table GC grace seconds override" {
+                    System.setProperty(ConfigurationProperty.TABLE_GC_GRACE_SECONDS.namespace, "3600")
+                    KeyspaceConfiguration().tableGcGraceSeconds shouldBe 3600
+                }
+
+                "should allow table speculative retry override" {
+                    System.setProperty(ConfigurationProperty.TABLE_SPECULATIVE_RETRY.namespace, "99percentile")
+                    KeyspaceConfiguration().tableSpeculativeRetry shouldBe "99PERCENTILE"
+                }
+
+                "should allow rank allocation override" {
+                    System.setProperty(ConfigurationProperty.RANK_ALLOCATION.namespace, "lwt")
+                    KeyspaceConfiguration().rankAllocation shouldBe RankAllocation.LWT
+                }
+
+                "should allow fetch size override" {
+                    System.setProperty(ConfigurationProperty.FETCH_SIZE.namespace, "100")
+                    KeyspaceConfiguration().fetchSize shouldBe 100
+                }
+
+                "should allow prefetch override" {
+                    System.setProperty(ConfigurationProperty.PREFETCH.namespace, "true")
+                    KeyspaceConfiguration().prefetch shouldBe true
+                }
+
             }
 
         }
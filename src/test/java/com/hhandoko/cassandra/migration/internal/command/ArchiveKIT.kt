@@ -0,0 +1,112 @@
+/**
+ * File     : ArchiveKIT.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.command
+
+import com.datastax.driver.core.querybuilder.QueryBuilder
+import com.hhandoko.cassandra.migration.BaseKIT
+import com.hhandoko.cassandra.migration.api.MigrationVersion
+import com.hhandoko.cassandra.migration.api.configuration.TableLayout
+
+/**
+ * Archive command unit tests.
+ */
+class ArchiveKIT : BaseKIT() {
+
+    /**
+     * Count the rows of the given migration history table.
+     *
+     * @param table The migration history table name.
+     * @return The number of rows.
+     */
+    fun countRows(table: String): Int {
+        return getSession().execute(QueryBuilder.select().from(CASSANDRA_KEYSPACE, table)).all().size
+    }
+
+    init {
+
+        "Archive command API" - {
+
+            "should archive the migration history before the current version" {
+                val cm = createMigration()
+                cm.migrate()
+
+                cm.archive() shouldBe 5
+                countRows(MigrationVersion.CURRENT.table) shouldBe 1
+
+                val dao = createSchemaVersionDAO()
+                dao.findAppliedMigrations().size shouldBe 6
+                cm.info().applied().size shouldBe 6
+                cm.info().pending().size shouldBe 0
+                cm.validate()
+            }
+
+            "should archive the migration history before the configured version" {
+                val cm = createMigration()
+                cm.migrate()
+
+                cm.archiveVersion = MigrationVersion.fromVersion("2.0.0")
+                cm.archive(getSession()) shouldBe 3
+                countRows(MigrationVersion.CURRENT.table) shouldBe 3
+
+                cm.archiveVersion = MigrationVersion.LATEST
+                cm.archive() shouldBe 3
+                countRows(MigrationVersion.CURRENT.table) shouldBe 0
+                cm.info().applied().size shouldBe 6
+            }
+
+            "should not archive anything without migration history" {
+                val cm = createMigration()
+
+                cm.archive() shouldBe 0
+            }
+
+            "should continue migrating after archival" {
+                val cm = createMigration(locations = arrayOf("migration/integ"))
+                cm.migrate()
+                cm.archive()
+
+                cm.locations = INTEG_LOCATIONS
+                cm.migrate() shouldBe 2
+
+                val dao = createSchemaVersionDAO()
+                val installedRanks = dao.findAppliedMigrations().map { it.installedRank!! }.sorted()
+                installedRanks shouldBe (1..installedRanks.size).toList()
+                cm.info().pending().size shouldBe 0
+            }
+
+            "with V2 table layout" - {
+
+                "should archive the migration history before the current version" {
+                    val keyspaceConfig = getKeyspace { tableLayout = TableLayout.V2 }
+
+                    val cm = createMigration(keyspaceConfig)
+                    cm.migrate()
+
+                    cm.archive() shouldBe 5
+                    countRows(MigrationVersion.CURRENT.table + "_v2") shouldBe 1
+                    cm.info().applied().size shouldBe 6
+                    cm.validate()
+                }
+
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,193 @@
+/**
+ * File     : MigrateKIT.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.command
+
+import com.hhandoko.cassandra.migration.BaseKIT
+import com.hhandoko.cassandra.migration.api.CassandraMigrationException
+import com.hhandoko.cassandra.migration.api.MigrationCancelledException
+import com.hhandoko.cassandra.migration.api.MigrationVersion
+
+/**
+ * Migrate command integration tests.
+ */
+class MigrateKIT : BaseKIT() {
+
+    init {
+
+        "Migrate command API" - {
+
+            "with deadlines" - {
+
+                "should stop a migration once its deadline has expired" {
+                    val cm = createMigration(locations = arrayOf("migration/integ_deadline"))
+                    cm.migrationDeadline = 1
+                    val result = cm.migrateWithResult()
+
+                    result.isCancelled shouldBe true
+                    result.appliedCount shouldBe 0
+                    result.cancelledVersion shouldBe MigrationVersion.fromVersion("1.0")
+                    cm.info().failed().size shouldBe 1
+                }
+
+                "should throw once the migration run deadline has expired" {
+                    val cm = createMigration(locations = arrayOf("migration/integ_deadline"))
+                    cm.runDeadline = 1
+
+                    shouldThrow<MigrationCancelledException> { cm.migrate() }
+                }
+
+                "should complete the migrations within their deadlines" {
+                    val cm = createMigration()
+                    cm.migrationDeadline = 60
+                    cm.runDeadline = 300
+                    val result = cm.migrateWithResult()
+
+                    result.isCancelled shouldBe false
+                    result.appliedCount shouldBe 6
+                }
+
+            }
+
+            "with resume" - {
+
+                "should record the progress of a failed migration" {
+                    val cm = createMigration(locations = arrayOf("migration/integ_resume"))
+                    shouldThrow<CassandraMigrationException> { cm.migrate() }
+
+                    val dao = createSchemaVersionDAO()
+                    val progress = dao.findMigrationProgress(MigrationVersion.fromVersion("1.0.0"))!!
+                    progress.completedStatements shouldBe 1
+                }
+
+                "should refuse to migrate a failed migration when disabled" {
+                    val cm = createMigration(locations = arrayOf("migration/integ_resume"))
+                    shouldThrow<CassandraMigrationException> { cm.migrate() }
+
+                    getSession().execute("CREATE TABLE contents_source (id int PRIMARY KEY, title text);")
+                    shouldThrow<CassandraMigrationException> { cm.migrate() }
+                }
+
+                "should resume a failed migration from the statement it failed on" {
+                    val cm = createMigration(locations = arrayOf("migration/integ_resume"))
+                    shouldThrow<CassandraMigrationException> { cm.migrate() }
+
+                    // NOTE: Re-creating the `contents` table would fail, should the first statement run again
+                    getSession().execute("CREATE TABLE contents_source (id int PRIMARY KEY, title text);")
+                    cm.resume = true
+                    cm.migrate() shouldBe 1
+
+                    cm.info().failed().size shouldBe 0
+                    getSession().execute("SELECT * FROM contents WHERE id = 1;").all().size shouldBe 1
+
+                    val dao = createSchemaVersionDAO()
+                    dao.findMigrationProgress(MigrationVersion.fromVersion("1.0.0")) shouldBe null
+                }
+
+            }
+
+            "with streaming" - {
+
+                "should apply streamed CQL migrations" {
+                    val cm = createMigration()
+                    cm.streaming = true
+                    cm.migrate() shouldBe 6
+
+                    cm.info().applied().size shouldBe 6
+                    cm.validate()
+                }
+
+                "should resume a failed streamed migration from the statement it failed on" {
+                    val cm = createMigration(locations = arrayOf("migration/integ_resume"))
+                    cm.streaming = true
+                    shouldThrow<CassandraMigrationException> { cm.migrate() }
+
+                    getSession().execute("CREATE TABLE contents_source (id int PRIMARY KEY, title text);")
+                    cm.resume = true
+                    cm.migrate() shouldBe 1
+                }
+
+            }
+
+            "with schema agreement" - {
+
+                "should apply schema changes without waiting when disabled" {
+                    val cm = createMigration()
+                    cm.schemaAgreementTimeout = 0
+                    cm.migrate() shouldBe 6
+
+                    cm.info().pending().size shouldBe 0
+                }
+
+                "should apply schema changes once in agreement" {
+                    val cm = createMigration()
+                    cm.schemaAgreementTimeout = 30000
+                    cm.schemaAgreementInterval = 50
+                    cm.migrate() shouldBe 6
+
+                    cm.info().pending().size shouldBe 0
+                }
+
+                "should report the schema agreement statistics of each CQL migration" {
+                    val cm = createMigration()
+                    cm.schemaAgreementTimeout = 30000
+                    cm.schemaAgreementInterval = 50
+                    val result = cm.migrateWithResult()
+
+                    val stats = result.schemaAgreementStats[MigrationVersion.fromVersion("1.0.0")]!!
+                    (stats.schemaChanges > 0) shouldBe true
+                    stats.timeouts shouldBe 0
+                }
+
+            }
+
+            "with parallel migration" - {
+
+                "should apply independent migrations concurrently" {
+                    val cm = createMigration(locations = arrayOf("migration/integ_parallel"))
+                    cm.parallelism = 2
+                    cm.migrate() shouldBe 4
+
+                    cm.info().pending().size shouldBe 0
+                    getSession().execute("SELECT * FROM users WHERE email = 'jane@example.com';").all().size shouldBe 1
+                }
+
+                "should record the applied migrations in version order" {
+                    val cm = createMigration(locations = arrayOf("migration/integ_parallel"))
+                    cm.parallelism = 2
+                    cm.migrate()
+
+                    val dao = createSchemaVersionDAO()
+                    val versions = dao.findAppliedMigrations().sortedBy { it.installedRank }.map { it.version.toString() }
+                    versions shouldBe listOf("1.0.0", "1.1.0", "1.2.0", "2.0.0")
+                }
+
+                "should apply migrations without declared dependencies in order" {
+                    val cm = createMigration()
+                    cm.parallelism = 4
+                    cm.migrate() shouldBe 6
+
+                    cm.info().pending().size shouldBe 0
+                }
+
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,109 @@
+/**
+ * File     : CqlScriptSpec.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.dbsupport
+
+import com.hhandoko.cassandra.migration.internal.util.scanner.classpath.ClassPathResource
+import io.kotlintest.specs.FreeSpec
+
+/**
+ * CqlScript parsing unit tests.
+ */
+class CqlScriptSpec : FreeSpec() {
+
+    init {
+
+        "CqlScript" - {
+
+            "should split statements terminated by a delimiter, stripping the delimiter" {
+                val script = CqlScript("CREATE TABLE a (id int PRIMARY KEY);\n\nINSERT INTO a (id) VALUES (1) ;  \n")
+
+                script.cqlStatements shouldBe listOf("CREATE TABLE a (id int PRIMARY KEY)", "INSERT INTO a (id) VALUES (1)")
+            }
+
+            "should join the lines of a multi-line statement" {
+                val script = CqlScript("CREATE TABLE a (\n  id int PRIMARY KEY\n);")
+
+                script.cqlStatements shouldBe listOf("CREATE TABLE a (\n  id int PRIMARY KEY\n)")
+            }
+
+            "should support CR LF and CR line terminators" {
+                val script = CqlScript("CREATE TABLE a (\r\n  id int PRIMARY KEY\r\n);\rDROP TABLE b;")
+
+                script.cqlStatements shouldBe listOf("CREATE TABLE a (\n  id int PRIMARY KEY\n)", "DROP TABLE b")
+            }
+
+            "should keep a trailing statement without delimiter" {
+                CqlScript("DROP TABLE a;\nDROP TABLE b").cqlStatements shouldBe listOf("DROP TABLE a", "DROP TABLE b")
+            }
+
+            "should discard comment lines between statements" {
+                val script = CqlScript("-- first\n// second\n/* third;\n fourth; */\nDROP TABLE a;")
+
+                script.cqlStatements shouldBe listOf("DROP TABLE a")
+            }
+
+            "should not terminate a statement on a line ending with a single-line comment" {
+                val script = CqlScript("DROP TABLE a -- not yet;\n;")
+
+                script.cqlStatements shouldBe listOf("DROP TABLE a -- not yet;\n")
+            }
+
+            "should not terminate a statement within a string literal" {
+                val script = CqlScript("INSERT INTO a (id, v) VALUES (1, 'x;\n-- y;\nz');\nDROP TABLE a;")
+
+                script.cqlStatements shouldBe listOf("INSERT INTO a (id, v) VALUES (1, 'x;\n-- y;\nz')", "DROP TABLE a")
+            }
+
+            "should handle escaped quotes within a string literal" {
+                val script = CqlScript("INSERT INTO a (v) VALUES ('it''s;\n');\nDROP TABLE a;")
+
+                script.cqlStatements shouldBe listOf("INSERT INTO a (v) VALUES ('it''s;\n')", "DROP TABLE a")
+            }
+
+            "should not terminate a statement within a quoted identifier" {
+                val script = CqlScript("SELECT \"a;\nb\" FROM a;")
+
+                script.cqlStatements shouldBe listOf("SELECT \"a;\nb\" FROM a")
+            }
+
+            "should not terminate a statement within a dollar-quoted string literal" {
+                val script = CqlScript("CREATE FUNCTION f (x int) RETURNS NULL ON NULL INPUT RETURNS int LANGUAGE java AS $$\n  return x;\n$$;")
+
+                script.cqlStatements shouldBe listOf("CREATE FUNCTION f (x int) RETURNS NULL ON NULL INPUT RETURNS int LANGUAGE java AS $$\n  return x;\n$$")
+            }
+
+            "should skip a leading UTF-8 BOM when reading a resource" {
+                val resource = ClassPathResource("com/hhandoko/cassandra/migration/internal/util/scanner/classpath/utf8bom.nofilter", Thread.currentThread().contextClassLoader)
+
+                CqlScript(resource, "UTF-8", 0).cqlStatements shouldBe listOf("SELECT * FROM contents")
+                CqlScript(resource, "UTF-8", 0, streaming = true).cqlStatements shouldBe listOf("SELECT * FROM contents")
+            }
+
+            "should read the same statements from a resource, upfront or while streaming" {
+                val resource = ClassPathResource("migration/integ_resume/V1_0_0__Create_and_load_contents.cql", Thread.currentThread().contextClassLoader)
+                val script = CqlScript(resource, "UTF-8", 0)
+                val streamingScript = CqlScript(resource, "UTF-8", 0, streaming = true)
+
+                streamingScript.cqlStatements shouldBe script.cqlStatements
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,62 @@
+/**
+ * File     : CqlStatementTypeSpec.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.dbsupport
+
+import io.kotlintest.specs.FreeSpec
+
+/**
+ * CqlStatementType unit tests.
+ */
+class CqlStatementTypeSpec : FreeSpec() {
+
+    init {
+
+        "CqlStatementType" - {
+
+            "should classify table, type and index definitions as schema changes" {
+                CqlStatementType.classify("CREATE TABLE users (id uuid PRIMARY KEY)") shouldBe CqlStatementType.SCHEMA_CHANGE
+                CqlStatementType.classify("alter type address ADD zip text") shouldBe CqlStatementType.SCHEMA_CHANGE
+                CqlStatementType.classify("DROP INDEX users_email_idx") shouldBe CqlStatementType.SCHEMA_CHANGE
+            }
+
+            "should classify reads and writes as data statements" {
+                CqlStatementType.classify("INSERT INTO users (id) VALUES (now())") shouldBe CqlStatementType.DATA
+                CqlStatementType.classify("BEGIN BATCH\nUPDATE users SET name = 'x' WHERE id = 1;\nAPPLY BATCH") shouldBe CqlStatementType.DATA
+                CqlStatementType.classify("TRUNCATE users") shouldBe CqlStatementType.DATA
+            }
+
+            "should not classify role and user management as schema changes" {
+                CqlStatementType.classify("CREATE ROLE migrator WITH LOGIN = true") shouldBe CqlStatementType.OTHER
+                CqlStatementType.classify("DROP USER legacy") shouldBe CqlStatementType.OTHER
+                CqlStatementType.classify("GRANT SELECT ON ALL KEYSPACES TO migrator") shouldBe CqlStatementType.OTHER
+            }
+
+            "should skip leading comments" {
+                CqlStatementType.classify("-- users\n/* v2 */ CREATE TABLE users (id uuid PRIMARY KEY)") shouldBe CqlStatementType.SCHEMA_CHANGE
+                CqlStatementType.classify("// seed\nINSERT INTO users (id) VALUES (now())") shouldBe CqlStatementType.DATA
+            }
+
+            "should classify an empty statement as other" {
+                CqlStatementType.classify("  -- nothing") shouldBe CqlStatementType.OTHER
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,140 @@
+/**
+ * File     : MigrationLockKIT.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.dbsupport
+
+import com.hhandoko.cassandra.migration.BaseKIT
+import com.hhandoko.cassandra.migration.api.CassandraMigrationException
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+/**
+ * MigrationLock integration tests.
+ */
+class MigrationLockKIT : BaseKIT() {
+
+    /**
+     * Creates a new migration lock, with its table.
+     *
+     * @param leaseDuration The duration of the lock lease, in seconds.
+     * @return The migration lock.
+     */
+    fun createMigrationLock(leaseDuration: Int = 30): MigrationLock {
+        val dao = createSchemaVersionDAO()
+        val lock = dao.createMigrationLock(leaseDuration)
+        lock.createTableIfNotExists()
+        return lock
+    }
+
+    init {
+
+        "MigrationLock" - {
+
+            "should be held by a single owner at a time" {
+                val lock = createMigrationLock()
+                val other = createMigrationLock()
+
+                lock.tryAcquire() shouldBe true
+                other.tryAcquire() shouldBe false
+
+                lock.release()
+                other.tryAcquire() shouldBe true
+                other.release()
+            }
+
+            "should stop waiting once there is nothing left to do" {
+                val lock = createMigrationLock()
+                lock.tryAcquire() shouldBe true
+
+                createMigrationLock().acquire(10000, 10, 100) { true } shouldBe false
+                lock.release()
+            }
+
+            "should fail when not acquired within the timeout" {
+                val lock = createMigrationLock()
+                lock.tryAcquire() shouldBe true
+
+                shouldThrow<CassandraMigrationException> {
+                    createMigrationLock().acquire(200, 10, 100) { false }
+                }
+                lock.release()
+            }
+
+            "should cancel the migrations run under the lock once the lease is lost" {
+                val lock = createMigrationLock(3)
+                lock.tryAcquire() shouldBe true
+                lock.cancellationToken.isCancelled shouldBe false
+
+                // Simulate another owner taking the lease over
+                getSession().execute("UPDATE ${CASSANDRA_KEYSPACE}.${lock.lockTableName} SET owner = uuid() WHERE name = 'migration';")
+
+                val deadline = System.currentTimeMillis() + 5000
+                while (!lock.cancellationToken.isCancelled && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(50)
+                }
+                lock.cancellationToken.isCancelled shouldBe true
+                lock.isHeld shouldBe false
+                lock.release()
+            }
+
+            "should let a single instance apply the migrations" {
+                val pool = Executors.newFixedThreadPool(4)
+                try {
+                    val results = (1..4).map {
+                        pool.submit(Callable<Int> {
+                            val cm = createMigration()
+                            cm.lockEnabled = true
+                            cm.lockBackoff = 10
+                            cm.migrate(getSession())
+                        })
+                    }.map { it.get(2, TimeUnit.MINUTES) }
+
+                    results.sum() shouldBe 6
+                    results.count { it > 0 } shouldBe 1
+                } finally {
+                    pool.shutdown()
+                }
+            }
+
+            "should fail every instance once the owner has failed the last migration" {
+                val pool = Executors.newFixedThreadPool(4)
+                try {
+                    val futures = (1..4).map {
+                        pool.submit(Callable<Int> {
+                            val cm = createMigration(locations = arrayOf("migration/integ", "migration/integ_failure"))
+                            cm.lockEnabled = true
+                            cm.lockBackoff = 10
+                            cm.migrate(getSession())
+                        })
+                    }
+
+                    for (future in futures) {
+                        val e = shouldThrow<ExecutionException> { future.get(2, TimeUnit.MINUTES) }
+                        (e.cause is CassandraMigrationException) shouldBe true
+                    }
+                } finally {
+                    pool.shutdown()
+                }
+            }
+
+        }
+
+    }
+
+}
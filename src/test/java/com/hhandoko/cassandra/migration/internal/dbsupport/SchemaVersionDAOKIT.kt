@@ -0,0 +1,357 @@
+/**
+ * File     : SchemaVersionDAOKIT.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.dbsupport
+
+import com.hhandoko.cassandra.migration.BaseKIT
+import com.hhandoko.cassandra.migration.api.CassandraMigrationException
+import com.hhandoko.cassandra.migration.api.MigrationType
+import com.hhandoko.cassandra.migration.api.MigrationVersion
+import com.hhandoko.cassandra.migration.api.configuration.RankAllocation
+import com.hhandoko.cassandra.migration.api.configuration.TableLayout
+import com.hhandoko.cassandra.migration.internal.metadatatable.AppliedMigration
+
+/**
+ * SchemaVersionDAO integration tests.
+ */
+class SchemaVersionDAOKIT : BaseKIT() {
+
+    init {
+
+        "SchemaVersionDAO" - {
+
+            "with the summary record" - {
+
+                "should summarise the recorded migrations" {
+                    createMigration().migrate()
+
+                    val dao = createSchemaVersionDAO()
+                    val appliedMigrations = dao.findAppliedMigrations()
+                    val summary = dao.findSummary()!!
+                    summary.appliedCount shouldBe appliedMigrations.size
+                    summary.highestVersion shouldBe appliedMigrations.map { it.version!! }.max()
+                    summary.highestInstalledRank shouldBe appliedMigrations.map { it.installedRank!! }.max()
+                    summary.hasBaselineMarker shouldBe false
+                }
+
+                "should rebuild a missing summary from the recorded migrations" {
+                    createMigration().migrate()
+
+                    val table = MigrationVersion.CURRENT.table
+                    getSession().execute("DROP TABLE ${CASSANDRA_KEYSPACE}.${table}_summary;")
+
+                    val dao = createSchemaVersionDAO()
+                    dao.hasAppliedMigrations() shouldBe true
+                    dao.findSummary()!!.appliedCount shouldBe dao.findAppliedMigrations().size
+                }
+
+                "should rebuild a summary left behind the recorded migrations" {
+                    createMigration().migrate()
+
+                    // Simulate a process stopped after recording a migration, before updating the summary
+                    val table = MigrationVersion.CURRENT.table
+                    getSession().execute(
+                            "UPDATE ${CASSANDRA_KEYSPACE}.${table}_summary SET applied_count = 1, highest_installed_rank = 1 WHERE name = '$table';"
+                    )
+
+                    val dao = createSchemaVersionDAO()
+                    dao.findSummary()!!.appliedCount shouldBe 6
+                    dao.findSummary()!!.highestInstalledRank shouldBe 6
+                }
+
+                "should rebuild a summary left behind the recorded migrations with the V2 table layout" {
+                    val keyspaceConfig = getKeyspace { tableLayout = TableLayout.V2 }
+                    createMigration(keyspaceConfig).migrate()
+
+                    val table = MigrationVersion.CURRENT.table
+                    getSession().execute(
+                            "UPDATE ${CASSANDRA_KEYSPACE}.${table}_summary SET applied_count = 1, highest_installed_rank = 1 WHERE name = '$table';"
+                    )
+
+                    createSchemaVersionDAO(keyspaceConfig).findSummary()!!.appliedCount shouldBe 6
+                }
+
+                "should summarise the migrations recorded by concurrent writers" {
+                    val first = createSchemaVersionDAO()
+                    first.createTablesIfNotExist()
+                    first.addAppliedMigration(AppliedMigration(
+                            MigrationVersion.fromVersion("1"), "First", MigrationType.CQL, "V1__First.cql", 1, "test", 10, true
+                    ))
+
+                    // Both writers record on top of the same summary
+                    val second = createSchemaVersionDAO()
+                    second.findSummary()!!.appliedCount shouldBe 1
+                    first.addAppliedMigration(AppliedMigration(
+                            MigrationVersion.fromVersion("2"), "Second", MigrationType.CQL, "V2__Second.cql", 2, "test", 10, true
+                    ))
+                    second.addAppliedMigration(AppliedMigration(
+                            MigrationVersion.fromVersion("3"), "Third", MigrationType.CQL, "V3__Third.cql", 3, "test", 10, true
+                    ))
+
+                    val summary = createSchemaVersionDAO().findSummary()!!
+                    summary.appliedCount shouldBe 3
+                    summary.highestVersion shouldBe MigrationVersion.fromVersion("3")
+                    summary.highestInstalledRank shouldBe 3
+                }
+
+                "should record the resolved migrations fingerprint once migrated up to date" {
+                    val cm = createMigration()
+                    cm.migrate() shouldBe 6
+
+                    val dao = createSchemaVersionDAO()
+                    val summary = dao.findSummary()!!
+                    (summary.resolvedFingerprint != null) shouldBe true
+                    summary.fingerprintInstalledRank shouldBe summary.highestInstalledRank
+
+                    cm.migrate() shouldBe 0
+                    cm.info().pending().size shouldBe 0
+                }
+
+                "should not skip migrating once the recorded migrations are gone" {
+                    val cm = createMigration()
+                    cm.migrate() shouldBe 6
+
+                    val table = MigrationVersion.CURRENT.table
+                    val dao = createSchemaVersionDAO()
+                    dao.hasHighestRecordedMigration(dao.findSummary()!!) shouldBe true
+
+                    getSession().execute("TRUNCATE ${CASSANDRA_KEYSPACE}.${table};")
+                    dao.hasHighestRecordedMigration(dao.findSummary()!!) shouldBe false
+                    cm.migrate() shouldBe 6
+                }
+
+                "should migrate when the fingerprinted settings change" {
+                    val cm = createMigration()
+                    cm.target = MigrationVersion.fromVersion("1.1.0")
+                    cm.migrate() shouldBe 2
+
+                    cm.target = MigrationVersion.LATEST
+                    cm.migrate() shouldBe 4
+                }
+
+            }
+
+            "when finding applied migrations by type" - {
+
+                "should decode the same records as the full read" {
+                    createMigration().migrate()
+
+                    val dao = createSchemaVersionDAO()
+                    val expected = dao.findAppliedMigrations().filter { it.type == MigrationType.JAVA_DRIVER }
+                    val javaMigrations = dao.findAppliedMigrations(MigrationType.JAVA_DRIVER)
+                    javaMigrations.isNotEmpty() shouldBe true
+                    javaMigrations.sorted() shouldBe expected.sorted()
+                }
+
+            }
+
+            "with paged reads" - {
+
+                "should stream all applied migrations across pages" {
+                    createMigration().migrate()
+
+                    val expected = createSchemaVersionDAO().findAppliedMigrations()
+
+                    val keyspaceConfig = getKeyspace {
+                        fetchSize = 2
+                        prefetch = true
+                    }
+                    val dao = createSchemaVersionDAO(keyspaceConfig)
+                    dao.streamAppliedMigrations().toList().sorted() shouldBe expected.sorted()
+                }
+
+            }
+
+            "with asynchronous operations" - {
+
+                "should record and read applied migrations" {
+                    val dao = createSchemaVersionDAO()
+                    dao.createTablesIfNotExistAsync().get()
+
+                    val baseline = dao.addBaselineMarkerAsync(MigrationVersion.fromVersion("1"), "Baseline", "test").get()
+                    val recorded = dao.addAppliedMigrationAsync(AppliedMigration(
+                            MigrationVersion.fromVersion("2"), "Second", MigrationType.CQL, "V2__Second.cql", 1, "test", 10, true
+                    )).get()
+
+                    recorded.installedRank shouldBe baseline.installedRank!! + 1
+                    dao.findAppliedMigrationsAsync().get().sorted() shouldBe dao.findAppliedMigrations().sorted()
+                    dao.findAppliedMigrationsAsync().get().size shouldBe 2
+                }
+
+            }
+
+            "with group-commit" - {
+
+                "should record the applied migrations in batches" {
+                    val cm = createMigration()
+                    cm.groupCommitSize = 4
+                    cm.migrate() shouldBe 6
+
+                    val dao = createSchemaVersionDAO()
+                    val appliedMigrations = dao.findAppliedMigrations()
+                    appliedMigrations.map { it.installedRank!! }.sorted() shouldBe (1..6).toList()
+                    appliedMigrations.sortedBy { it.installedRank!! }.map { it.version } shouldBe
+                            appliedMigrations.map { it.version }.sorted()
+                    dao.findSummary()?.appliedCount shouldBe 6
+                    cm.info().pending().size shouldBe 0
+                }
+
+                "should flush the buffered records on failure" {
+                    val cm = createMigration(locations = arrayOf("migration/integ", "migration/integ_failure"))
+                    cm.groupCommitSize = 10
+                    shouldThrow<CassandraMigrationException> { cm.migrate() }
+
+                    val dao = createSchemaVersionDAO()
+                    val appliedMigrations = dao.findAppliedMigrations()
+                    appliedMigrations.size shouldBe 5
+                    appliedMigrations.filterNot { it.isSuccess }.map { it.version } shouldBe
+                            listOf(MigrationVersion.fromVersion("2.1.0"))
+                }
+
+            }
+
+            "with V2 table layout" - {
+
+                "should record applied migrations" {
+                    val keyspaceConfig = getKeyspace { tableLayout = TableLayout.V2 }
+
+                    val cm = createMigration(keyspaceConfig)
+                    cm.migrate()
+
+                    val dao = createSchemaVersionDAO(keyspaceConfig)
+                    dao.findAppliedMigrations().size shouldBe 6
+                    cm.info().pending().size shouldBe 0
+                }
+
+                "should copy existing V1 applied migrations" {
+                    createMigration().migrate()
+
+                    val v1Migrations = createSchemaVersionDAO().findAppliedMigrations()
+
+                    val keyspaceConfig = getKeyspace { tableLayout = TableLayout.V2 }
+                    val dao = createSchemaVersionDAO(keyspaceConfig)
+                    dao.createTablesIfNotExist()
+
+                    val v2Migrations = dao.findAppliedMigrations()
+                    v2Migrations.size shouldBe v1Migrations.size
+                    v2Migrations.sorted() shouldBe v1Migrations.sorted()
+                }
+
+                "should read the V1 applied migrations until they are copied" {
+                    createMigration().migrate()
+
+                    val v1Migrations = createSchemaVersionDAO().findAppliedMigrations()
+
+                    val keyspaceConfig = getKeyspace { tableLayout = TableLayout.V2 }
+                    val dao = createSchemaVersionDAO(keyspaceConfig)
+                    dao.findAppliedMigrations().sorted() shouldBe v1Migrations.sorted()
+                    dao.streamAppliedMigrations().toList().sorted() shouldBe v1Migrations.sorted()
+                }
+
+                "should resume an interrupted V1 applied migrations copy" {
+                    createMigration().migrate()
+
+                    val table = MigrationVersion.CURRENT.table
+                    val v1Migrations = createSchemaVersionDAO().findAppliedMigrations()
+
+                    val keyspaceConfig = getKeyspace { tableLayout = TableLayout.V2 }
+                    createSchemaVersionDAO(keyspaceConfig).createTablesIfNotExist()
+
+                    // Simulate a copy interrupted before its completion was marked
+                    getSession().execute("TRUNCATE ${CASSANDRA_KEYSPACE}.${table}_v2;")
+                    getSession().execute("DELETE v1_copied_on FROM ${CASSANDRA_KEYSPACE}.${table}_summary WHERE name = '$table';")
+
+                    val interrupted = createSchemaVersionDAO(keyspaceConfig)
+                    interrupted.findAppliedMigrations().sorted() shouldBe v1Migrations.sorted()
+                    interrupted.createTablesIfNotExist()
+
+                    val dao = createSchemaVersionDAO(keyspaceConfig)
+                    dao.findAppliedMigrations().sorted() shouldBe v1Migrations.sorted()
+                    getSession().execute("SELECT * FROM ${CASSANDRA_KEYSPACE}.${table}_v2;").all().size shouldBe v1Migrations.size
+                }
+
+            }
+
+            "with table options" - {
+
+                "should create the migration tables with the read-optimised defaults" {
+                    val dao = createSchemaVersionDAO()
+                    dao.createTablesIfNotExist()
+
+                    val options = getSession().cluster.metadata
+                            .getKeyspace(CASSANDRA_KEYSPACE)
+                            .getTable(MigrationVersion.CURRENT.table)
+                            .options
+                    options.compaction["class"]!! shouldBe "org.apache.cassandra.db.compaction.LeveledCompactionStrategy"
+                    options.caching["rows_per_partition"] shouldBe "ALL"
+                }
+
+                "should create the migration tables with the configured options" {
+                    val keyspaceConfig = getKeyspace {
+                        tableCompaction = "SizeTieredCompactionStrategy"
+                        tableCaching = "NONE"
+                        tableGcGraceSeconds = 3600
+                    }
+
+                    val dao = createSchemaVersionDAO(keyspaceConfig)
+                    dao.createTablesIfNotExist()
+
+                    val options = getSession().cluster.metadata
+                            .getKeyspace(CASSANDRA_KEYSPACE)
+                            .getTable(MigrationVersion.CURRENT.table)
+                            .options
+                    options.compaction["class"]!! shouldBe "org.apache.cassandra.db.compaction.SizeTieredCompactionStrategy"
+                    options.caching["rows_per_partition"] shouldBe "NONE"
+                    options.gcGraceInSeconds shouldBe 3600
+                }
+
+            }
+
+            "with LWT rank allocation" - {
+
+                "should allocate sequential installed ranks" {
+                    val keyspaceConfig = getKeyspace { rankAllocation = RankAllocation.LWT }
+
+                    val cm = createMigration(keyspaceConfig)
+                    cm.migrate()
+
+                    val dao = createSchemaVersionDAO(keyspaceConfig)
+                    val installedRanks = dao.findAppliedMigrations().map { it.installedRank!! }.sorted()
+                    installedRanks shouldBe (1..installedRanks.size).toList()
+                }
+
+                "should continue from the ranks allocated by the counter" {
+                    val cm = createMigration(locations = arrayOf("migration/integ"))
+                    cm.migrate()
+
+                    val keyspaceConfig = getKeyspace { rankAllocation = RankAllocation.LWT }
+                    cm.locations = INTEG_LOCATIONS
+                    cm.keyspaceConfig = keyspaceConfig
+                    cm.migrate()
+
+                    val dao = createSchemaVersionDAO(keyspaceConfig)
+                    val installedRanks = dao.findAppliedMigrations().map { it.installedRank!! }.sorted()
+                    installedRanks shouldBe (1..installedRanks.size).toList()
+                }
+
+            }
+
+        }
+
+    }
+
+}
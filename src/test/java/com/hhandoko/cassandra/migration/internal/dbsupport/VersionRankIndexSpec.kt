@@ -0,0 +1,79 @@
+/**
+ * File     : VersionRankIndexSpec.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.dbsupport
+
+import com.hhandoko.cassandra.migration.api.MigrationVersion
+import io.kotlintest.specs.FreeSpec
+
+/**
+ * VersionRankIndex unit tests.
+ */
+class VersionRankIndexSpec : FreeSpec() {
+
+    private fun versions(vararg versions: String) = versions.map { MigrationVersion.fromVersion(it) }
+
+    init {
+
+        "VersionRankIndex" - {
+
+            "should rank the first version as one" {
+                val index = VersionRankIndex(emptyList(), 0)
+
+                index.rankOf(MigrationVersion.fromVersion("1.0")) shouldBe 1
+            }
+
+            "should rank a version after the recorded versions less than or equal to it" {
+                val index = VersionRankIndex(versions("2.0", "1.0", "3.0"), 3)
+
+                index.rankOf(MigrationVersion.fromVersion("0.9")) shouldBe 1
+                index.rankOf(MigrationVersion.fromVersion("1.5")) shouldBe 2
+                index.rankOf(MigrationVersion.fromVersion("2.0")) shouldBe 3
+                index.rankOf(MigrationVersion.fromVersion("4.0")) shouldBe 4
+            }
+
+            "should ignore repeated versions" {
+                val index = VersionRankIndex(versions("1.0", "1.0", "2.0"), 3)
+
+                index.rankOf(MigrationVersion.fromVersion("3.0")) shouldBe 3
+            }
+
+            "should rank versions after the added ones" {
+                val index = VersionRankIndex(versions("1.0", "3.0"), 2)
+                index.add(MigrationVersion.fromVersion("2.0"), 3)
+                index.add(MigrationVersion.fromVersion("2.0"), 4)
+
+                index.rankOf(MigrationVersion.fromVersion("2.5")) shouldBe 3
+                index.rankOf(MigrationVersion.fromVersion("4.0")) shouldBe 4
+            }
+
+            "should track the highest installed rank" {
+                val index = VersionRankIndex(versions("1.0", "2.0"), 5)
+                index.add(MigrationVersion.fromVersion("1.5"), 3)
+
+                index.maxInstalledRank shouldBe 5
+
+                index.add(MigrationVersion.fromVersion("3.0"), 6)
+
+                index.maxInstalledRank shouldBe 6
+            }
+
+        }
+
+    }
+
+}
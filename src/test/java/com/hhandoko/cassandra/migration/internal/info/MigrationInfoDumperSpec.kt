@@ -72,7 +72,7 @@ class MigrationInfoDumperSpec : FreeSpec() {
      */
     fun createSchemaVersionDAO(): SchemaVersionDAO {
         return mock {
-            on { findAppliedMigrations() } doReturn arrayListOf<AppliedMigration>()
+            on { streamAppliedMigrations() } doReturn emptySequence<AppliedMigration>()
         }
     }
 
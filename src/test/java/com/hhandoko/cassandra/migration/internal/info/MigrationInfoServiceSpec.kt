@@ -143,7 +143,7 @@ class MigrationInfoServiceSpec : FreeSpec() {
             appliedMigrations.toList()
         }
         return mock {
-            on { findAppliedMigrations() } doReturn migrations
+            on { streamAppliedMigrations() } doReturn migrations.asSequence()
         }
     }
 
@@ -294,6 +294,25 @@ class MigrationInfoServiceSpec : FreeSpec() {
                 migrationInfoService.pending().size shouldBe 0
             }
 
+            "should record applied migrations in-memory without re-reading the history" {
+                val migrationInfoService = MigrationInfoServiceImpl(
+                        createMigrationResolver(createAvailableMigration("1"), createAvailableMigration("2")),
+                        createSchemaVersionDAO(createAppliedMigration("1")),
+                        MigrationVersion.LATEST,
+                        outOfOrder = false,
+                        pendingOrFuture = true
+                )
+                migrationInfoService.refresh()
+                migrationInfoService.lastInstalledRank shouldBe 1
+
+                migrationInfoService.addAppliedMigration(createAppliedMigration("2"))
+
+                migrationInfoService.current()!!.version.toString() shouldBe "2"
+                migrationInfoService.all().size shouldBe 2
+                migrationInfoService.pending().size shouldBe 0
+                migrationInfoService.lastInstalledRank shouldBe 2
+            }
+
         }
 
     }
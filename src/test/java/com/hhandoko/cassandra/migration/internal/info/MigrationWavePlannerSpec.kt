@@ -0,0 +1,112 @@
+/**
+ * File     : MigrationWavePlannerSpec.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.info
+
+import com.hhandoko.cassandra.migration.api.CassandraMigrationException
+import com.hhandoko.cassandra.migration.api.MigrationType
+import com.hhandoko.cassandra.migration.api.MigrationVersion
+import com.hhandoko.cassandra.migration.internal.resolver.ResolvedMigrationImpl
+import io.kotlintest.specs.FreeSpec
+
+/**
+ * MigrationWavePlanner unit tests.
+ */
+class MigrationWavePlannerSpec : FreeSpec() {
+
+    /**
+     * Creates a new pending migration.
+     *
+     * @param version The version of the migration.
+     * @param dependencies The versions of the migrations it depends on, `null` if not declared.
+     * @return The pending migration.
+     */
+    fun createPendingMigration(version: String, vararg dependencies: String): MigrationInfoImpl {
+        return createPendingMigration(version, dependencies.map { MigrationVersion.fromVersion(it) })
+    }
+
+    /**
+     * Creates a new pending migration.
+     *
+     * @param version The version of the migration.
+     * @param dependencies The versions of the migrations it depends on, `null` if not declared.
+     * @return The pending migration.
+     */
+    fun createPendingMigration(version: String, dependencies: List<MigrationVersion>?): MigrationInfoImpl {
+        val resolvedMigration = ResolvedMigrationImpl()
+        resolvedMigration.version = MigrationVersion.fromVersion(version)
+        resolvedMigration.description = "test"
+        resolvedMigration.type = MigrationType.CQL
+        resolvedMigration.dependencies = dependencies
+        return MigrationInfoImpl(resolvedMigration, null, MigrationInfoContext())
+    }
+
+    /**
+     * Plans the given pending migrations, with no applied migration.
+     *
+     * @param pending The pending migrations.
+     * @return The planned waves versions.
+     */
+    fun plan(vararg pending: MigrationInfoImpl): List<List<String>> {
+        return MigrationWavePlanner.plan(pending.toList()) { false }.map { wave -> wave.map { it.version.toString() } }
+    }
+
+    init {
+
+        "MigrationWavePlanner" - {
+
+            "should plan migrations without declared dependencies one at a time" {
+                plan(createPendingMigration("1", null), createPendingMigration("2", null)) shouldBe listOf(listOf("1"), listOf("2"))
+            }
+
+            "should plan migrations depending on the same migration in the same wave" {
+                val waves = plan(
+                        createPendingMigration("1", null),
+                        createPendingMigration("2", "1"),
+                        createPendingMigration("3", "1"),
+                        createPendingMigration("4", null)
+                )
+
+                waves shouldBe listOf(listOf("1"), listOf("2", "3"), listOf("4"))
+            }
+
+            "should plan independent migrations in the first wave" {
+                plan(createPendingMigration("1", null), createPendingMigration("2")) shouldBe listOf(listOf("1", "2"))
+            }
+
+            "should consider applied dependencies as satisfied" {
+                val waves = MigrationWavePlanner.plan(listOf(createPendingMigration("2", "1"))) { it == MigrationVersion.fromVersion("1") }
+                waves.size shouldBe 1
+            }
+
+            "should reject dependencies on later migrations" {
+                shouldThrow<CassandraMigrationException> {
+                    plan(createPendingMigration("1", "2"), createPendingMigration("2", null))
+                }
+            }
+
+            "should reject dependencies neither applied nor pending" {
+                shouldThrow<CassandraMigrationException> {
+                    plan(createPendingMigration("2", "1"))
+                }
+            }
+
+        }
+
+    }
+
+}
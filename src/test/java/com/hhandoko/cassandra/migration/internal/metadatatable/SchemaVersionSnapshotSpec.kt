@@ -0,0 +1,124 @@
+/**
+ * File     : SchemaVersionSnapshotSpec.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.metadatatable
+
+import com.hhandoko.cassandra.migration.api.CassandraMigrationException
+import com.hhandoko.cassandra.migration.api.MigrationType
+import com.hhandoko.cassandra.migration.api.MigrationVersion
+import io.kotlintest.specs.FreeSpec
+import java.util.*
+
+/**
+ * SchemaVersionSnapshot unit tests.
+ */
+class SchemaVersionSnapshotSpec : FreeSpec() {
+
+    /**
+     * Creates a new recorded migration with this version and installed rank.
+     *
+     * @param version The version of the migration.
+     * @param installedRank The installed rank of the migration.
+     * @param success Flag indicating whether the migration was successful or not.
+     * @param checksum The checksum of the migration.
+     * @return The recorded migration.
+     */
+    fun createAppliedMigration(version: String, installedRank: Int, success: Boolean = true, checksum: Int? = 123): AppliedMigration {
+        return AppliedMigration(
+                installedRank,
+                installedRank,
+                MigrationVersion.fromVersion(version),
+                "abc",
+                MigrationType.CQL,
+                "x",
+                checksum,
+                Date(),
+                "sa",
+                100,
+                success
+        )
+    }
+
+    init {
+
+        "SchemaVersionSnapshot" - {
+
+            "should keep the latest record of each archived version" {
+                val snapshot = SchemaVersionSnapshot.EMPTY.archive(
+                        MigrationVersion.fromVersion("3"),
+                        listOf(
+                                createAppliedMigration("1", 1),
+                                createAppliedMigration("2", 2, success = false),
+                                createAppliedMigration("2", 3)
+                        )
+                )
+
+                snapshot.archivedBefore shouldBe MigrationVersion.fromVersion("3")
+                snapshot.appliedMigrations.map { it.installedRank } shouldBe listOf(1, 3)
+            }
+
+            "should merge with the previously archived records" {
+                val snapshot = SchemaVersionSnapshot.EMPTY
+                        .archive(MigrationVersion.fromVersion("2"), listOf(createAppliedMigration("1", 1)))
+                        .archive(MigrationVersion.fromVersion("3"), listOf(createAppliedMigration("2", 2)))
+
+                snapshot.archivedBefore shouldBe MigrationVersion.fromVersion("3")
+                snapshot.appliedMigrations.map { it.version } shouldBe
+                        listOf(MigrationVersion.fromVersion("1"), MigrationVersion.fromVersion("2"))
+            }
+
+            "should recognise the records left behind by an interrupted archival" {
+                val snapshot = SchemaVersionSnapshot.EMPTY.archive(
+                        MigrationVersion.fromVersion("3"),
+                        listOf(
+                                createAppliedMigration("1", 1),
+                                createAppliedMigration("2", 2, success = false),
+                                createAppliedMigration("2", 3)
+                        )
+                )
+
+                snapshot.isArchived(createAppliedMigration("1", 1)) shouldBe true
+                snapshot.isArchived(createAppliedMigration("2", 2, success = false)) shouldBe true
+                snapshot.isArchived(createAppliedMigration("2", 3)) shouldBe true
+                snapshot.isArchived(createAppliedMigration("3", 4)) shouldBe false
+                snapshot.isArchived(createAppliedMigration("2.5", 5)) shouldBe false
+            }
+
+            "should not archive failed migrations" {
+                shouldThrow<CassandraMigrationException> {
+                    SchemaVersionSnapshot.EMPTY.archive(
+                            MigrationVersion.fromVersion("2"),
+                            listOf(createAppliedMigration("1", 1, success = false))
+                    )
+                }
+            }
+
+            "should decode the encoded records" {
+                val snapshot = SchemaVersionSnapshot.EMPTY.archive(
+                        MigrationVersion.fromVersion("3"),
+                        listOf(createAppliedMigration("1", 1, checksum = null), createAppliedMigration("2.1", 2))
+                )
+
+                val decoded = SchemaVersionSnapshot.decode(snapshot.archivedBefore, snapshot.encode())
+                decoded shouldBe snapshot
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,112 @@
+/**
+ * File     : SchemaVersionSummarySpec.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.metadatatable
+
+import com.hhandoko.cassandra.migration.api.MigrationType
+import com.hhandoko.cassandra.migration.api.MigrationVersion
+import io.kotlintest.specs.FreeSpec
+import java.util.*
+
+/**
+ * SchemaVersionSummary unit tests.
+ */
+class SchemaVersionSummarySpec : FreeSpec() {
+
+    /**
+     * Creates a new recorded migration with this version and installed rank.
+     *
+     * @param version The version of the migration.
+     * @param installedRank The installed rank of the migration.
+     * @param type The type of the migration.
+     * @return The recorded migration.
+     */
+    fun createAppliedMigration(version: String, installedRank: Int, type: MigrationType = MigrationType.CQL): AppliedMigration {
+        return AppliedMigration(
+                installedRank,
+                installedRank,
+                MigrationVersion.fromVersion(version),
+                "abc",
+                type,
+                "x",
+                null,
+                Date(),
+                "sa",
+                100,
+                success = true
+        )
+    }
+
+    init {
+
+        "SchemaVersionSummary" - {
+
+            "should count recorded migrations, excluding the baseline marker" {
+                val summary = SchemaVersionSummary.EMPTY
+                        .record(createAppliedMigration("1", 1, MigrationType.BASELINE))
+                        .record(createAppliedMigration("2", 2))
+                        .record(createAppliedMigration("3", 3))
+
+                summary.appliedCount shouldBe 2
+            }
+
+            "should track the highest version and installed rank" {
+                val summary = SchemaVersionSummary.EMPTY
+                        .record(createAppliedMigration("3", 1))
+                        .record(createAppliedMigration("2", 2))
+
+                summary.highestVersion shouldBe MigrationVersion.fromVersion("3")
+                summary.highestInstalledRank shouldBe 2
+            }
+
+            "should keep the first recorded baseline marker" {
+                val summary = SchemaVersionSummary.EMPTY
+                        .record(createAppliedMigration("1", 1, MigrationType.BASELINE))
+                        .record(createAppliedMigration("2", 2, MigrationType.BASELINE))
+
+                summary.hasBaselineMarker shouldBe true
+                summary.baselineVersion shouldBe MigrationVersion.fromVersion("1")
+                summary.baselineInstalledRank shouldBe 1
+            }
+
+            "should have no baseline marker when not baselined" {
+                SchemaVersionSummary.EMPTY.record(createAppliedMigration("1", 1)).hasBaselineMarker shouldBe false
+            }
+
+            "should be up to date with the fingerprint recorded at its highest installed rank" {
+                val summary = SchemaVersionSummary.EMPTY
+                        .record(createAppliedMigration("1", 1))
+                        .copy(resolvedFingerprint = 42L, fingerprintInstalledRank = 1)
+
+                summary.isUpToDate(42L) shouldBe true
+                summary.isUpToDate(43L) shouldBe false
+            }
+
+            "should not be up to date once migrations are recorded after the fingerprint" {
+                val summary = SchemaVersionSummary.EMPTY
+                        .record(createAppliedMigration("1", 1))
+                        .copy(resolvedFingerprint = 42L, fingerprintInstalledRank = 1)
+                        .record(createAppliedMigration("2", 2))
+
+                summary.isUpToDate(42L) shouldBe false
+            }
+
+        }
+
+    }
+
+}
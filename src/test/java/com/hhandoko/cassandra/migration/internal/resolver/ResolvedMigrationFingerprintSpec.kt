@@ -0,0 +1,77 @@
+/**
+ * File     : ResolvedMigrationFingerprintSpec.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.resolver
+
+import com.hhandoko.cassandra.migration.api.MigrationType
+import com.hhandoko.cassandra.migration.api.MigrationVersion
+import com.hhandoko.cassandra.migration.api.resolver.ResolvedMigration
+import io.kotlintest.specs.FreeSpec
+
+/**
+ * ResolvedMigrationFingerprint unit tests.
+ */
+class ResolvedMigrationFingerprintSpec : FreeSpec() {
+
+    /**
+     * Creates a resolved migration for testing.
+     *
+     * @param version The resolved migration version.
+     * @param checksum The migration script checksum.
+     * @return Resolved migration.
+     */
+    fun createResolvedMigration(version: String, checksum: Int): ResolvedMigration {
+        val migration = ResolvedMigrationImpl()
+        migration.type = MigrationType.CQL
+        migration.version = MigrationVersion.fromVersion(version)
+        migration.description = "Description"
+        migration.script = "V${version}__Description.cql"
+        migration.checksum = checksum
+        return migration
+    }
+
+    init {
+
+        "ResolvedMigrationFingerprint" - {
+
+            val migrations = listOf(createResolvedMigration("1", 123), createResolvedMigration("2", 456))
+            val fingerprint = ResolvedMigrationFingerprint.calculate(migrations, MigrationVersion.LATEST, false)
+
+            "should not depend on the resolution order" {
+                ResolvedMigrationFingerprint.calculate(migrations.reversed(), MigrationVersion.LATEST, false) shouldBe fingerprint
+            }
+
+            "should change when a migration checksum changes" {
+                val changed = listOf(createResolvedMigration("1", 123), createResolvedMigration("2", 789))
+                (ResolvedMigrationFingerprint.calculate(changed, MigrationVersion.LATEST, false) == fingerprint) shouldBe false
+            }
+
+            "should change when a migration is added" {
+                val added = migrations + createResolvedMigration("3", 123)
+                (ResolvedMigrationFingerprint.calculate(added, MigrationVersion.LATEST, false) == fingerprint) shouldBe false
+            }
+
+            "should change with the migration settings" {
+                (ResolvedMigrationFingerprint.calculate(migrations, MigrationVersion.fromVersion("1"), false) == fingerprint) shouldBe false
+                (ResolvedMigrationFingerprint.calculate(migrations, MigrationVersion.LATEST, true) == fingerprint) shouldBe false
+            }
+
+        }
+
+    }
+
+}
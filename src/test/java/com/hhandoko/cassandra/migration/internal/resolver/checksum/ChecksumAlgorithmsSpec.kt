@@ -0,0 +1,87 @@
+/**
+ * File     : ChecksumAlgorithmsSpec.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.resolver.checksum
+
+import com.hhandoko.cassandra.migration.api.CassandraMigrationException
+import io.kotlintest.specs.FreeSpec
+import java.util.*
+
+/**
+ * ChecksumAlgorithms unit tests.
+ */
+class ChecksumAlgorithmsSpec : FreeSpec() {
+
+    /**
+     * Calculates the checksum of these bytes, updating it in chunks of the given size.
+     *
+     * @param algorithm The checksum algorithm.
+     * @param bytes The bytes to calculate the checksum for.
+     * @param chunkSize The number of bytes to update the checksum with at a time.
+     * @return The checksum value.
+     */
+    fun checksum(algorithm: ChecksumAlgorithms, bytes: ByteArray, chunkSize: Int = bytes.size): Long {
+        val checksum = algorithm.newChecksum()
+        var offset = 0
+        while (offset < bytes.size) {
+            val length = Math.min(chunkSize, bytes.size - offset)
+            checksum.update(bytes, offset, length)
+            offset += length
+        }
+        return checksum.value
+    }
+
+    init {
+
+        val data = ByteArray(1000)
+        Random(1).nextBytes(data)
+
+        "ChecksumAlgorithms" - {
+
+            "should calculate the standard CRC-32C check value" {
+                checksum(ChecksumAlgorithms.CRC32C, "123456789".toByteArray()) shouldBe 0xE3069283L
+            }
+
+            "should calculate the standard xxHash64 test vectors" {
+                // NOTE: 0xEF46DB3751D8E999, 0x44BC2CF5AD770999 and 0xFBCEA83C8A378BF1 as signed longs
+                checksum(ChecksumAlgorithms.XXHASH64, ByteArray(0)) shouldBe -0x10B924C8AE271667L
+                checksum(ChecksumAlgorithms.XXHASH64, "abc".toByteArray()) shouldBe 0x44BC2CF5AD770999L
+                checksum(ChecksumAlgorithms.XXHASH64, "Nobody inspects the spammish repetition".toByteArray()) shouldBe -0x043157C375C8740FL
+            }
+
+            "should calculate the same checksum however the bytes are chunked" {
+                for (algorithm in ChecksumAlgorithms.values()) {
+                    checksum(algorithm, data, 7) shouldBe checksum(algorithm, data)
+                    checksum(algorithm, data, 33) shouldBe checksum(algorithm, data)
+                }
+            }
+
+            "should resolve a standard algorithm by name, regardless of case" {
+                ChecksumAlgorithms.fromName("crc32c", Thread.currentThread().contextClassLoader) shouldBe ChecksumAlgorithms.CRC32C
+            }
+
+            "should fail to resolve an unknown algorithm" {
+                shouldThrow<CassandraMigrationException> {
+                    ChecksumAlgorithms.fromName("com.example.Unknown", Thread.currentThread().contextClassLoader)
+                }
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,111 @@
+/**
+ * File     : ScriptChecksumsSpec.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.resolver.checksum
+
+import com.hhandoko.cassandra.migration.internal.util.scanner.classpath.ClassPathResource
+import io.kotlintest.specs.FreeSpec
+import java.io.BufferedReader
+import java.io.ByteArrayInputStream
+import java.io.StringReader
+import java.util.zip.CRC32
+
+/**
+ * ScriptChecksums unit tests.
+ */
+class ScriptChecksumsSpec : FreeSpec() {
+
+    /**
+     * Calculates the CRC-32 of this script line by line, as recorded by earlier versions.
+     *
+     * @param script The script.
+     * @return The CRC-32 of the script lines.
+     */
+    fun lineByLineChecksum(script: String): Int {
+        val crc32 = CRC32()
+        BufferedReader(StringReader(script)).forEachLine { crc32.update(it.toByteArray(Charsets.UTF_8)) }
+        return crc32.value.toInt()
+    }
+
+    /**
+     * Calculates the CRC-32 of the UTF-8 bytes of this script.
+     *
+     * @param script The script.
+     * @return The CRC-32 of the script bytes.
+     */
+    fun bytesChecksum(script: String): Int {
+        val checksum = ChecksumAlgorithms.CRC32.newChecksum()
+        ScriptChecksums.update(checksum, ByteArrayInputStream(script.toByteArray(Charsets.UTF_8)))
+        return checksum.value.toInt()
+    }
+
+    /**
+     * Calculates the CRC-32 of the characters of this script.
+     *
+     * @param script The script.
+     * @return The CRC-32 of the script characters.
+     */
+    fun charsChecksum(script: String): Int {
+        val checksum = ChecksumAlgorithms.CRC32.newChecksum()
+        ScriptChecksums.update(checksum, StringReader(script))
+        return checksum.value.toInt()
+    }
+
+    init {
+
+        val script = "-- Crème brûlée\r\nCREATE TABLE a (id int PRIMARY KEY);\n\nINSERT INTO a (id) VALUES (1);\r"
+
+        "ScriptChecksums" - {
+
+            "should be compatible with the line by line CRC-32 over the bytes of a script" {
+                bytesChecksum(script) shouldBe lineByLineChecksum(script)
+            }
+
+            "should be compatible with the line by line CRC-32 over the characters of a script" {
+                charsChecksum(script) shouldBe lineByLineChecksum(script)
+            }
+
+            "should not depend on the line terminators" {
+                bytesChecksum(script.replace("\r\n", "\n")) shouldBe bytesChecksum(script)
+            }
+
+            "should be compatible with the line by line CRC-32 of a script starting with a BOM" {
+                val resource = ClassPathResource("com/hhandoko/cassandra/migration/internal/util/scanner/classpath/utf8bom.nofilter", Thread.currentThread().contextClassLoader)
+                val expected = lineByLineChecksum(resource.loadAsString("UTF-8"))
+
+                ScriptChecksums.calculate(resource, "UTF-8", ChecksumAlgorithms.CRC32) shouldBe expected
+            }
+
+            "should be compatible with the line by line CRC-32 of a Latin-1 script, whatever the configured encoding" {
+                val resource = ClassPathResource("com/hhandoko/cassandra/migration/internal/resolver/checksum/latin1.nofilter", Thread.currentThread().contextClassLoader)
+                val expected = lineByLineChecksum(resource.loadAsString("UTF-8"))
+
+                ScriptChecksums.calculate(resource, "ISO-8859-1", ChecksumAlgorithms.CRC32) shouldBe expected
+                ScriptChecksums.calculate(resource, "UTF-8", ChecksumAlgorithms.CRC32) shouldBe expected
+            }
+
+            "should encode surrogate pairs split across reads" {
+                val longScript = "x".repeat(8191) + "😀;\n"
+
+                charsChecksum(longScript) shouldBe lineByLineChecksum(longScript)
+            }
+
+        }
+
+    }
+
+}
@@ -19,6 +19,8 @@
 package com.hhandoko.cassandra.migration.internal.resolver.cql
 
 import com.hhandoko.cassandra.migration.api.CassandraMigrationException
+import com.hhandoko.cassandra.migration.api.MigrationVersion
+import com.hhandoko.cassandra.migration.internal.resolver.ResolvedMigrationImpl
 import com.hhandoko.cassandra.migration.internal.util.Location
 import com.hhandoko.cassandra.migration.internal.util.scanner.classpath.ClassPathResource
 import com.hhandoko.cassandra.migration.internal.util.scanner.filesystem.FileSystemResource
@@ -33,14 +35,16 @@ class CqlMigrationResolverSpec : FreeSpec() {
      * Create the CQL migration resolver given its location.
      *
      * @param location The scripts location.
+     * @param parallelism The number of scripts to resolve concurrently.
      * @return The CQL migration resolver.
      */
-    fun createMigrationResolver(location: String): CqlMigrationResolver {
+    fun createMigrationResolver(location: String, parallelism: Int = 1): CqlMigrationResolver {
         return CqlMigrationResolver(
                 Thread.currentThread().contextClassLoader,
                 Location(location),
                 "UTF-8",
-                timeout = 0
+                timeout = 0,
+                parallelism = parallelism
         )
     }
 
@@ -88,6 +92,36 @@ class CqlMigrationResolverSpec : FreeSpec() {
                 }
             }
 
+            "provided migrations declaring dependencies" - {
+
+                "should extract the dependencies from the header comments" {
+                    val resolver = createMigrationResolver("migration/integ_parallel")
+                    val migrations = resolver.resolveMigrations().map { it as ResolvedMigrationImpl }
+
+                    migrations.size shouldBe 4
+
+                    migrations[0].dependencies shouldBe null
+                    migrations[1].dependencies shouldBe listOf(MigrationVersion.fromVersion("1.0.0"))
+                    migrations[2].dependencies shouldBe listOf(MigrationVersion.fromVersion("1.0.0"))
+                    migrations[3].dependencies shouldBe null
+                }
+
+            }
+
+            "provided concurrent resolution" - {
+
+                "should resolve the same migrations, in the same order, as when resolved one at a time" {
+                    val migrations = createMigrationResolver("migration/integ_parallel", parallelism = 4).resolveMigrations()
+                    val expected = createMigrationResolver("migration/integ_parallel").resolveMigrations()
+
+                    migrations.map { it.version } shouldBe expected.map { it.version }
+                    migrations.map { it.script } shouldBe expected.map { it.script }
+                    migrations.map { it.checksum } shouldBe expected.map { it.checksum }
+                    migrations.map { (it as ResolvedMigrationImpl).dependencies } shouldBe expected.map { (it as ResolvedMigrationImpl).dependencies }
+                }
+
+            }
+
             "provided non-existing migration folder" - {
 
                 "should throw an exception" {
@@ -0,0 +1,110 @@
+/**
+ * File     : ResourceContentCacheSpec.kt
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.resolver.cql
+
+import com.hhandoko.cassandra.migration.api.MigrationVersion
+import com.hhandoko.cassandra.migration.internal.util.scanner.classpath.ClassPathResource
+import io.kotlintest.specs.FreeSpec
+
+/**
+ * ResourceContentCache unit tests.
+ */
+class ResourceContentCacheSpec : FreeSpec() {
+
+    /**
+     * Create the classpath resource of this migration script.
+     *
+     * @param location The location of the script on the classpath.
+     * @return The classpath resource.
+     */
+    fun createResource(location: String): ClassPathResource {
+        return ClassPathResource(location, Thread.currentThread().contextClassLoader)
+    }
+
+    init {
+
+        val first = createResource("migration/integ/V1_0_0__First.cql")
+        val second = createResource("migration/integ/V2_0_0__Second.cql")
+        val firstSize = first.loadAsBytes().size.toLong()
+        val secondSize = second.loadAsBytes().size.toLong()
+        val firstVersion = MigrationVersion.fromVersion("1.0.0")
+        val secondVersion = MigrationVersion.fromVersion("2.0.0")
+
+        "ResourceContentCache" - {
+
+            "should cache the content of a resource within budget" {
+                val cache = ResourceContentCache(firstSize + secondSize)
+                val content = cache.load(first, "UTF-8", firstVersion)!!
+
+                content.loadAsString("UTF-8") shouldBe first.loadAsString("UTF-8")
+                cache.get(first, "UTF-8") shouldBe content
+                cache.usage shouldBe firstSize
+            }
+
+            "should not cache the content of a resource exceeding the budget" {
+                val cache = ResourceContentCache(firstSize - 1)
+
+                cache.load(first, "UTF-8", firstVersion) shouldBe null
+                cache.usage shouldBe 0L
+            }
+
+            "should not cache anything when disabled" {
+                ResourceContentCache.NONE.load(first, "UTF-8", firstVersion) shouldBe null
+            }
+
+            "should evict the content of the lowest versions once the budget is used up" {
+                val cache = ResourceContentCache(Math.max(firstSize, secondSize))
+                cache.load(first, "UTF-8", firstVersion)
+                cache.load(second, "UTF-8", secondVersion)
+
+                cache.get(first, "UTF-8") shouldBe null
+                cache.get(second, "UTF-8")!!.location shouldBe second.location
+                cache.usage shouldBe secondSize
+            }
+
+            "should not evict the content of higher versions, whatever the order it was cached in" {
+                val cache = ResourceContentCache(Math.max(firstSize, secondSize))
+                cache.load(second, "UTF-8", secondVersion)
+
+                cache.load(first, "UTF-8", firstVersion)!!.location shouldBe first.location
+                cache.get(first, "UTF-8") shouldBe null
+                cache.get(second, "UTF-8")!!.location shouldBe second.location
+                cache.usage shouldBe secondSize
+            }
+
+            "should give the budget back once released" {
+                val cache = ResourceContentCache(firstSize)
+                cache.load(first, "UTF-8", firstVersion)
+                cache.release(first)
+
+                cache.get(first, "UTF-8") shouldBe null
+                cache.usage shouldBe 0L
+            }
+
+            "should not share the content cached in another encoding" {
+                val cache = ResourceContentCache(firstSize)
+                cache.load(first, "UTF-8", firstVersion)
+
+                cache.get(first, "ISO-8859-1") shouldBe null
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,104 @@
+/**
+ * File     : CachePrepareStatementSmallTest.java
+ * License  :
+ *   Copyright (c) 2016 - 2018 cassandra-migration Contributors
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *           http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.hhandoko.cassandra.migration.internal.util;
+
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Session;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testcase for CachePrepareStatement.
+ */
+public class CachePrepareStatementSmallTest {
+    @Test
+    public void prepareOncePerQuery() {
+        Session session = mock(Session.class);
+        when(session.prepare(anyString())).thenReturn(mock(PreparedStatement.class));
+
+        CachePrepareStatement cache = new CachePrepareStatement(session);
+        PreparedStatement first = cache.prepare("SELECT * FROM test");
+        PreparedStatement second = cache.prepare("SELECT * FROM test");
+
+        assertSame(first, second);
+        verify(session, times(1)).prepare("SELECT * FROM test");
+    }
+
+    @Test
+    public void prepareCollidingHashCodes() {
+        // "Aa" and "BB" share the same String hash code
+        Session session = mock(Session.class);
+        PreparedStatement aa = mock(PreparedStatement.class);
+        PreparedStatement bb = mock(PreparedStatement.class);
+        when(session.prepare("SELECT Aa FROM test")).thenReturn(aa);
+        when(session.prepare("SELECT BB FROM test")).thenReturn(bb);
+
+        CachePrepareStatement cache = new CachePrepareStatement(session);
+
+        assertSame(aa, cache.prepare("SELECT Aa FROM test"));
+        assertSame(bb, cache.prepare("SELECT BB FROM test"));
+    }
+
+    @Test
+    public void forSession() {
+        Session session = mock(Session.class);
+
+        assertSame(CachePrepareStatement.forSession(session), CachePrepareStatement.forSession(session));
+        assertNotSame(CachePrepareStatement.forSession(session), CachePrepareStatement.forSession(mock(Session.class)));
+    }
+
+    @Test
+    public void forSessionByIdentity() {
+        Session session = proxySession();
+        Session other = proxySession();
+
+        CachePrepareStatement cache = CachePrepareStatement.forSession(session);
+
+        assertSame(cache, CachePrepareStatement.cachedFor(session));
+        assertSame(cache, CachePrepareStatement.forSession(session));
+        assertNull(CachePrepareStatement.cachedFor(other));
+    }
+
+    /**
+     * Creates a session which is not a mock, hashed and compared by identity like the driver sessions.
+     */
+    private static Session proxySession() {
+        return (Session) Proxy.newProxyInstance(
+                Session.class.getClassLoader(),
+                new Class<?>[] { Session.class },
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        switch (method.getName()) {
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            case "equals":
+                                return proxy == args[0];
+                            default:
+                                return null;
+                        }
+                    }
+                });
+    }
+}
@@ -0,0 +1,22 @@
+package migration.integ_deadline;
+
+import com.datastax.driver.core.Session;
+
+import com.hhandoko.cassandra.migration.api.migration.CancellationToken;
+import com.hhandoko.cassandra.migration.api.migration.java.CancellableJavaMigration;
+
+public class V1_0__Wait_for_cancellation implements CancellableJavaMigration {
+
+    @Override
+    public void migrate(Session session) throws Exception {
+        migrate(session, CancellationToken.NONE);
+    }
+
+    @Override
+    public void migrate(Session session, CancellationToken cancellationToken) throws Exception {
+        for (int i = 0; i < 100; i++) {
+            cancellationToken.throwIfCancelled();
+            Thread.sleep(100);
+        }
+    }
+}